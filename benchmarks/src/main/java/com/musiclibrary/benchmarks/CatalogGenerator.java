@@ -0,0 +1,52 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic synthetic catalog: roughly 85% songs, 15% podcast episodes, with skewed
+// artist popularity so sorts and GROUP BYs see realistic duplicate keys.
+public final class CatalogGenerator {
+    private static final String[] GENRES = {
+            "Rock", "Pop", "Jazz", "Hip Hop", "Classical", "Electronic", "Folk", "Metal", "Blues", "Synth-pop"
+    };
+    private static final String[] CATEGORIES = {
+            "Technology", "Comedy", "News", "History", "Science", "Fitness", "Business"
+    };
+    private static final String[] WORDS = {
+            "Midnight", "Light", "Dream", "River", "Fire", "Echo", "Golden", "Silent", "Wild", "Heart",
+            "Summer", "Shadow", "Electric", "Blue", "Paper", "Stone", "Glass", "Velvet", "Neon", "Ocean"
+    };
+
+    private CatalogGenerator() {
+    }
+
+    public static List<Media> generate(int count, long seed) {
+        Random random = new Random(seed);
+        List<Media> catalog = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            catalog.add(randomMedia(random, i));
+        }
+        return catalog;
+    }
+
+    public static Media randomMedia(Random random, int sequence) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + sequence;
+        int year = 1960 + random.nextInt(64);
+
+        if (random.nextInt(100) < 85) {
+            // Squaring the draw favours low artist numbers, giving a long-tail distribution.
+            int artist = (int) (Math.pow(random.nextDouble(), 2) * 5_000);
+            return new Song(0, title, "Artist " + artist, 120 + random.nextInt(360), year,
+                    "Album " + (sequence / 12), GENRES[random.nextInt(GENRES.length)], 1 + sequence % 12);
+        }
+        int show = random.nextInt(500);
+        return new Podcast(0, title, "Show " + show, 900 + random.nextInt(5_400), year,
+                "Host " + show, CATEGORIES[random.nextInt(CATEGORIES.length)], 1 + sequence % 300,
+                "Episode " + sequence + " of show " + show);
+    }
+}
@@ -0,0 +1,71 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MediaRepositoryBenchmark {
+    // Larger catalogs: -p catalogSize=1000000,10000000
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private SqliteFixture fixture;
+    private MediaRepositoryImpl repository;
+    private Random random;
+    private int nextSequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = SqliteFixture.create(catalogSize, 42L);
+        repository = new MediaRepositoryImpl();
+        random = new Random(7L);
+        nextSequence = catalogSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Media> getAll() {
+        return repository.getAll();
+    }
+
+    @Benchmark
+    public Media getById() {
+        return repository.getById(1 + random.nextInt(catalogSize));
+    }
+
+    @Benchmark
+    public Media save() {
+        return repository.save(CatalogGenerator.randomMedia(random, nextSequence++));
+    }
+
+    @Benchmark
+    public List<Media> search() {
+        return repository.search("midnight light");
+    }
+}
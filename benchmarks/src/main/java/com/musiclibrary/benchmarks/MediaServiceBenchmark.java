@@ -0,0 +1,71 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.service.MediaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MediaServiceBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private SqliteFixture fixture;
+    private MediaService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = SqliteFixture.create(catalogSize, 42L);
+        service = new MediaService(new MediaRepositoryImpl());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public List<Media> sortedByTitle() {
+        return service.getAllMediaSortedByTitle();
+    }
+
+    @Benchmark
+    public List<Media> sortedByDuration() {
+        return service.getAllMediaSortedByDuration();
+    }
+
+    @Benchmark
+    public List<Media> sortedByArtistThenTitle() {
+        return service.getAllMediaSortedByArtistThenTitle();
+    }
+
+    @Benchmark
+    public List<Media> longMedia() {
+        return service.getLongMedia(1800);
+    }
+
+    @Benchmark
+    public List<String> allArtists() {
+        return service.getAllArtists();
+    }
+}
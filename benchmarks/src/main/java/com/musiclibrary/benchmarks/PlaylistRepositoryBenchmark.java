@@ -0,0 +1,70 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.LazyPlaylist;
+import com.musiclibrary.model.Playlist;
+import com.musiclibrary.repository.CachingMediaRepository;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.repository.PlaylistRepositoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PlaylistRepositoryBenchmark {
+    private static final int CATALOG_SIZE = 20_000;
+    private static final int FIRST_PAGE = 50;
+
+    @Param({"50", "1000", "10000"})
+    private int playlistSize;
+
+    private SqliteFixture fixture;
+    private PlaylistRepositoryImpl repository;
+    private int playlistId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = SqliteFixture.create(CATALOG_SIZE, 42L);
+        MediaRepositoryImpl media = new MediaRepositoryImpl();
+        repository = new PlaylistRepositoryImpl(new CachingMediaRepository(media, 5_000));
+
+        Playlist playlist = new Playlist(0, "Benchmark " + playlistSize, "Synthetic playlist");
+        for (int id = 1; id <= playlistSize; id++) {
+            playlist.addMedia(media.getById(id));
+        }
+        playlistId = repository.save(playlist).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Playlist getById() {
+        return repository.getById(playlistId);
+    }
+
+    @Benchmark
+    public List<Playlist.PlaylistItem> lazyFirstPage() {
+        LazyPlaylist playlist = repository.getLazyById(playlistId);
+        return playlist.getItems(0, Math.min(FIRST_PAGE, playlist.size()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.utils.SortingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SortingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int catalogSize;
+
+    private List<Media> catalog;
+    private List<Media> working;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        catalog = CatalogGenerator.generate(catalogSize, 42L);
+    }
+
+    // Sorting works in place, so every invocation starts again from the unsorted catalog.
+    @Setup(Level.Invocation)
+    public void reset() {
+        working = new ArrayList<>(catalog);
+    }
+
+    @Benchmark
+    public List<Media> sortByTitle() {
+        SortingUtils.sortByTitle(working);
+        return working;
+    }
+
+    @Benchmark
+    public List<Media> sortByDuration() {
+        SortingUtils.sortByDuration(working);
+        return working;
+    }
+
+    @Benchmark
+    public List<Media> sortByArtistThenTitle() {
+        SortingUtils.sortByArtistThenTitle(working);
+        return working;
+    }
+
+    @Benchmark
+    public List<Media> filterByMinDuration() {
+        return SortingUtils.filterByMinDuration(working, 1800);
+    }
+}
@@ -0,0 +1,73 @@
+package com.musiclibrary.benchmarks;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.utils.DatabaseConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Random;
+
+// Temp-file SQLite database filled with a synthetic catalog. DatabaseConnection is a
+// per-JVM singleton, so each JMH fork can own exactly one fixture.
+public final class SqliteFixture implements AutoCloseable {
+    private static final int INSERT_CHUNK = 50_000;
+    private static final String URL_PROPERTY = "musiclibrary.db.url";
+
+    private final Path dbFile;
+    private final DatabaseConnection db;
+    private final int catalogSize;
+
+    private SqliteFixture(Path dbFile, DatabaseConnection db, int catalogSize) {
+        this.dbFile = dbFile;
+        this.db = db;
+        this.catalogSize = catalogSize;
+    }
+
+    public static SqliteFixture create(int catalogSize, long seed) throws IOException, SQLException {
+        if (System.getProperty(URL_PROPERTY) != null) {
+            throw new IllegalStateException("A fixture already exists in this JVM; run benchmarks with forks >= 1");
+        }
+        Path file = Files.createTempFile("music-bench-", ".db");
+        System.setProperty(URL_PROPERTY, "jdbc:sqlite:" + file);
+        DatabaseConnection db = DatabaseConnection.getInstance();
+
+        Random random = new Random(seed);
+        for (int from = 0; from < catalogSize; from += INSERT_CHUNK) {
+            int start = from;
+            int end = Math.min(catalogSize, from + INSERT_CHUNK);
+            db.executeInTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(MediaRepositoryImpl.INSERT_SQL)) {
+                    for (int i = start; i < end; i++) {
+                        Media media = CatalogGenerator.randomMedia(random, i);
+                        MediaRepositoryImpl.bindInsertParameters(ps, media);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                return null;
+            });
+        }
+        return new SqliteFixture(file, db, catalogSize);
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public DatabaseConnection getDatabase() {
+        return db;
+    }
+
+    @Override
+    public void close() throws IOException {
+        db.shutdown();
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(Paths.get(dbFile + "-wal"));
+        Files.deleteIfExists(Paths.get(dbFile + "-shm"));
+    }
+}
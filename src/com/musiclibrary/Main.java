@@ -1,16 +1,75 @@
 package com.musiclibrary;
 
+import com.musiclibrary.http.HttpApiServer;
+import com.musiclibrary.ingest.BulkMediaImporter;
+import com.musiclibrary.ingest.ImportReport;
+import com.musiclibrary.metrics.Instrumented;
+import com.musiclibrary.metrics.MetricsRegistry;
+import com.musiclibrary.repository.CacheStats;
+import com.musiclibrary.repository.CachingMediaRepository;
 import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.repository.PlaylistRepositoryImpl;
 import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.search.MediaSearchIndex;
+import com.musiclibrary.snapshot.MediaSnapshot;
+import com.musiclibrary.snapshot.MediaSnapshotBuilder;
+import com.musiclibrary.snapshot.SnapshotMediaRepository;
+import com.musiclibrary.utils.DatabaseConnection;
+import com.musiclibrary.utils.StatementProfiler;
 
 import com.musiclibrary.controller.MusicController;
 import com.musiclibrary.model.*;
+import com.musiclibrary.service.AsyncMediaService;
 import com.musiclibrary.service.MediaService;
 import com.musiclibrary.exception.*;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 
 public class Main {
+    private static final int DEFAULT_HTTP_PORT = Integer.getInteger("musiclibrary.http.port", 8080);
+    private static final int HTTP_CACHE_SIZE = Integer.getInteger("musiclibrary.http.cacheSize", 10_000);
+    // Bounds how long a write from another process (e.g. --import) can go unseen; 0 disables expiry.
+    private static final long HTTP_CACHE_TTL_SECONDS = Long.getLong("musiclibrary.http.cacheTtlSeconds", 60L);
+    // Serve /search from the in-memory index instead of FTS5; costs a full scan at startup.
+    private static final boolean HTTP_SEARCH_INDEX = Boolean.getBoolean("musiclibrary.http.searchIndex");
+    // Serve list views and /stats from a columnar catalog loaded at startup (POST /catalog/refresh reloads it).
+    private static final boolean HTTP_CATALOG = Boolean.getBoolean("musiclibrary.http.catalog");
+    // Keep this snapshot file current while serving, pruning the media change log as it goes.
+    private static final String HTTP_SNAPSHOT = System.getProperty("musiclibrary.http.snapshot");
+    private static final long HTTP_SNAPSHOT_REFRESH_SECONDS = Long.getLong("musiclibrary.http.snapshotRefreshSeconds", 60L);
+    // Serve media reads from that snapshot file instead of SQLite; media writes are rejected and
+    // other processes' writes show up after the next refresh.
+    private static final boolean HTTP_SNAPSHOT_SERVE = Boolean.getBoolean("musiclibrary.http.snapshot.serve");
+
     public static void main(String[] args) {
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            serve(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HTTP_PORT);
+            return;
+        }
+        if (args.length > 0 && "--import".equals(args[0])) {
+            if (args.length < 2) {
+                System.err.println("Usage: --import <catalog.csv|catalog.jsonl> [rejected-rows file]");
+                return;
+            }
+            importCatalog(Paths.get(args[1]), args.length > 2 ? Paths.get(args[2]) : null);
+            return;
+        }
+        if (args.length > 0 && "--snapshot".equals(args[0])) {
+            if (args.length < 2) {
+                System.err.println("Usage: --snapshot <snapshot file>");
+                return;
+            }
+            refreshSnapshot(Paths.get(args[1]));
+            return;
+        }
+
         System.out.println("\n" + "=".repeat(60));
         System.out.println(" MUSIC LIBRARY API - ASSIGNMENT 3");
         System.out.println(" Advanced OOP with JDBC + Exception Handling");
@@ -24,13 +83,144 @@ public class Main {
         System.out.println("\n" + "=".repeat(60));
         System.out.println(" ASSIGNMENTS 3 & 4 COMPLETE!");
         System.out.println("=".repeat(60));
+
+        System.out.println("\n" + MetricsRegistry.getInstance().toText());
+        StatementProfiler profiler = DatabaseConnection.getInstance().getStatementProfiler();
+        if (profiler != null) {
+            System.out.println("\n" + profiler.report(10));
+        }
+        CacheStats statementCache = DatabaseConnection.getInstance().getStatementCacheStats();
+        if (statementCache != null) {
+            System.out.println("Prepared statement " + statementCache);
+        }
+    }
+
+    // Runs until the process is stopped; the server's dispatcher thread keeps the JVM alive.
+    private static void serve(int port) {
+        SnapshotMediaRepository snapshotRepository = null;
+        SearchableRepository<Media, Integer> repository;
+        if (HTTP_SNAPSHOT_SERVE) {
+            if (HTTP_SNAPSHOT == null) {
+                System.err.println("-Dmusiclibrary.http.snapshot.serve needs -Dmusiclibrary.http.snapshot=<file>");
+                return;
+            }
+            try {
+                snapshotRepository = new SnapshotMediaRepository(
+                        new MediaSnapshotBuilder().refresh(Paths.get(HTTP_SNAPSHOT)));
+            } catch (IOException e) {
+                System.err.println("Could not open snapshot " + HTTP_SNAPSHOT + ": " + e.getMessage());
+                return;
+            }
+            repository = instrumented(snapshotRepository, "SnapshotMediaRepository");
+        } else {
+            // Both layers are recorded: CachingMediaRepository.* is what callers see, MediaRepository.*
+            // the misses that reached SQLite.
+            repository = instrumented(new CachingMediaRepository(
+                    instrumented(new MediaRepositoryImpl(), "MediaRepository"),
+                    HTTP_CACHE_SIZE, HTTP_CACHE_TTL_SECONDS, TimeUnit.SECONDS), "CachingMediaRepository");
+        }
+        MediaService service = HTTP_SEARCH_INDEX
+                ? new MediaService(repository, new MediaSearchIndex())
+                : new MediaService(repository);
+        if (HTTP_CATALOG) {
+            service.refreshCatalog();
+        }
+        PlaylistRepositoryImpl playlists = new PlaylistRepositoryImpl(repository);
+        AsyncMediaService async = new AsyncMediaService(service, playlists);
+        ScheduledExecutorService snapshots = HTTP_SNAPSHOT != null
+                ? scheduleSnapshotRefresh(Paths.get(HTTP_SNAPSHOT), snapshotRepository)
+                : null;
+        try {
+            HttpApiServer server = new HttpApiServer(new InetSocketAddress(port), service, playlists, async);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                async.close();
+                service.close();
+                if (snapshots != null) {
+                    snapshots.shutdownNow();
+                }
+            }, "http-shutdown"));
+            server.start();
+            System.out.println("Music library API listening on port " + server.getPort());
+        } catch (IOException e) {
+            System.err.println("Could not start HTTP server on port " + port + ": " + e.getMessage());
+            async.close();
+            service.close();
+            if (snapshots != null) {
+                snapshots.shutdownNow();
+            }
+        }
+    }
+
+    // A refresh reloads only the rows written since the last one but still copies the whole file,
+    // so the period trades staleness against one sequential rewrite per run. When serving from
+    // the snapshot, each refreshed file is swapped into the live repository.
+    private static ScheduledExecutorService scheduleSnapshotRefresh(Path file, SnapshotMediaRepository live) {
+        MediaSnapshotBuilder builder = new MediaSnapshotBuilder();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "snapshot-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1L, HTTP_SNAPSHOT_REFRESH_SECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                MediaSnapshot refreshed = builder.refreshAndPrune(file);
+                if (live != null) {
+                    live.replace(refreshed);
+                }
+            } catch (IOException | DatabaseOperationException e) {
+                System.err.println("Snapshot refresh of " + file + " failed: " + e.getMessage());
+            }
+        }, live != null ? period : 0, period, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+    private static void refreshSnapshot(Path file) {
+        try {
+            MediaSnapshot snapshot = new MediaSnapshotBuilder().refreshAndPrune(file);
+            System.out.println(snapshot);
+        } catch (IOException e) {
+            System.err.println("Snapshot refresh of " + file + " failed: " + e.getMessage());
+        } catch (DatabaseOperationException e) {
+            System.err.println("Snapshot refresh aborted: " + e.getMessage());
+        } finally {
+            DatabaseConnection.getInstance().shutdown();
+        }
+    }
+
+    // A class literal cannot carry type arguments, so the token for Instrumented.wrap is cast once here.
+    @SuppressWarnings("unchecked")
+    private static SearchableRepository<Media, Integer> instrumented(SearchableRepository<Media, Integer> repository,
+                                                                     String name) {
+        Class<SearchableRepository<Media, Integer>> type =
+                (Class<SearchableRepository<Media, Integer>>) (Class<?>) SearchableRepository.class;
+        return Instrumented.wrap(type, repository, name);
+    }
+
+    // Rejected rows go next to the input as <name>.rejected.tsv unless a file is given.
+    private static void importCatalog(Path input, Path deadLetterFile) {
+        Path rejected = deadLetterFile != null ? deadLetterFile
+                : input.resolveSibling(input.getFileName() + ".rejected.tsv");
+        try {
+            ImportReport report = new BulkMediaImporter().importFile(input, rejected);
+            if (report.getRowsRejected() > 0) {
+                System.out.println(report.getRowsRejected() + " rejected rows written to " + rejected);
+            }
+        } catch (IOException e) {
+            System.err.println("Import of " + input + " failed: " + e.getMessage());
+        } catch (DatabaseOperationException e) {
+            System.err.println("Import aborted: " + e.getMessage());
+        } finally {
+            DatabaseConnection.getInstance().shutdown();
+        }
     }
 
     private static void runAssignment4Demo() {
         System.out.println("\nSetting up SOLID architecture...");
 
         try {
-            SearchableRepository repository = new MediaRepositoryImpl();
+            SearchableRepository<Media, Integer> repository = instrumented(new MediaRepositoryImpl(), "MediaRepository");
             MediaService service = new MediaService(repository);
             MusicController controller = new MusicController(service);
 
@@ -0,0 +1,563 @@
+package com.musiclibrary.catalog;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.MediaProjection;
+import com.musiclibrary.repository.query.QueryEvaluator;
+import com.musiclibrary.repository.query.QuerySpec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Read-only struct-of-arrays snapshot of the media table for scans, filters and sorts.
+// Numbers are primitive columns, repeated text is dictionary-encoded, titles and
+// descriptions sit in UTF-8 arenas. Operations return row numbers; Song/Podcast objects
+// are only built by materialize()/get() for the rows a caller actually returns.
+public class ColumnarCatalog {
+    private static final byte SONG = 0;
+    private static final byte PODCAST = 1;
+    private static final int LOAD_FETCH_SIZE = 10_000;
+    private static final int AGGREGATE_CHUNK = 1 << 16;
+    private static final int ALL_KINDS = -2;
+    private static final int NO_KIND = -1;
+
+    private final int size;
+    private final int[] ids;
+    private final int[] durations;
+    private final int[] years;
+    private final int[] numbers;
+    private final byte[] kinds;
+    private final int[] artistCodes;
+    private final int[] albumCodes;
+    private final int[] genreCodes;
+    private final int[] hostCodes;
+    private final int[] categoryCodes;
+    private final StringArena titles;
+    private final StringArena descriptions;
+    private final StringDictionary artists;
+    private final StringDictionary albums;
+    private final StringDictionary genres;
+    private final StringDictionary hosts;
+    private final StringDictionary categories;
+
+    // Rows in title order and the inverse mapping, computed once at build time.
+    private final int[] rowByTitleRank;
+    private final int[] titleRank;
+
+    private ColumnarCatalog(Builder b) {
+        size = b.size;
+        ids = Arrays.copyOf(b.ids, size);
+        durations = Arrays.copyOf(b.durations, size);
+        years = Arrays.copyOf(b.years, size);
+        numbers = Arrays.copyOf(b.numbers, size);
+        kinds = Arrays.copyOf(b.kinds, size);
+        artistCodes = Arrays.copyOf(b.artistCodes, size);
+        albumCodes = Arrays.copyOf(b.albumCodes, size);
+        genreCodes = Arrays.copyOf(b.genreCodes, size);
+        hostCodes = Arrays.copyOf(b.hostCodes, size);
+        categoryCodes = Arrays.copyOf(b.categoryCodes, size);
+        titles = b.titles;
+        descriptions = b.descriptions;
+        artists = b.artists;
+        albums = b.albums;
+        genres = b.genres;
+        hosts = b.hosts;
+        categories = b.categories;
+
+        titles.trim();
+        descriptions.trim();
+        for (StringDictionary dictionary : List.of(artists, albums, genres, hosts, categories)) {
+            dictionary.freeze();
+        }
+
+        // Row numbers are sorted as primitives against the arena bytes, so building the rank
+        // costs two int arrays instead of a boxed index and a decoded String per row.
+        int[] order = new int[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = row;
+        }
+        sortRowsByTitle(order, new int[size], 0, size);
+        rowByTitleRank = order;
+        titleRank = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            titleRank[order[rank]] = rank;
+        }
+    }
+
+    private int compareTitles(int a, int b) {
+        int cmp = titles.compare(a, b);
+        return cmp != 0 ? cmp : Integer.compare(ids[a], ids[b]);
+    }
+
+    // Top-down merge sort of rows[from, to) using scratch as the merge buffer.
+    private void sortRowsByTitle(int[] rows, int[] scratch, int from, int to) {
+        if (to - from < 32) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && compareTitles(rows[j], row) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortRowsByTitle(rows, scratch, from, mid);
+        sortRowsByTitle(rows, scratch, mid, to);
+        if (compareTitles(rows[mid - 1], rows[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int i = from, j = mid, n = from;
+        while (i < mid && j < to) {
+            rows[n++] = compareTitles(scratch[j], scratch[i]) < 0 ? scratch[j++] : scratch[i++];
+        }
+        while (i < mid) rows[n++] = scratch[i++];
+        while (j < to) rows[n++] = scratch[j++];
+    }
+
+    public static ColumnarCatalog from(Iterable<Media> mediaList) {
+        Builder builder = new Builder();
+        for (Media media : mediaList) {
+            builder.add(media);
+        }
+        return builder.build();
+    }
+
+    public static ColumnarCatalog load(SearchableRepository<Media, Integer> repository) {
+        Builder builder = new Builder();
+        try (Stream<Media> rows = repository.stream(QuerySpec.all().orderBy(MediaField.ID), LOAD_FETCH_SIZE)) {
+            rows.forEach(builder::add);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) { return ids[row]; }
+    public int getDuration(int row) { return durations[row]; }
+    public int getReleaseYear(int row) { return years[row]; }
+    public String getTitle(int row) { return titles.get(row); }
+    public String getArtist(int row) { return artists.decode(artistCodes[row]); }
+
+    public Media get(int row) {
+        return get(row, MediaProjection.FULL);
+    }
+
+    // LIST leaves the podcast description null, matching the SQL LIST projection.
+    public Media get(int row, MediaProjection projection) {
+        if (kinds[row] == SONG) {
+            return new Song(ids[row], titles.get(row), artists.decode(artistCodes[row]), durations[row], years[row],
+                    albums.decode(albumCodes[row]), genres.decode(genreCodes[row]), numbers[row]);
+        }
+        return new Podcast(ids[row], titles.get(row), artists.decode(artistCodes[row]), durations[row], years[row],
+                hosts.decode(hostCodes[row]), categories.decode(categoryCodes[row]), numbers[row],
+                projection == MediaProjection.FULL ? descriptions.get(row) : null);
+    }
+
+    public List<Media> materialize(int[] rows) {
+        return materialize(rows, MediaProjection.FULL);
+    }
+
+    public List<Media> materialize(int[] rows, MediaProjection projection) {
+        List<Media> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(get(row, projection));
+        }
+        return result;
+    }
+
+    // Filters below count matches first and then fill an exact-size array; the loops are
+    // branch-light scans over one primitive column, which the JIT can unroll and vectorize.
+    public int[] rowsWithDurationAtLeast(int minDuration) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            count += durations[row] >= minDuration ? 1 : 0;
+        }
+        int[] result = new int[count];
+        for (int row = 0, n = 0; row < size; row++) {
+            if (durations[row] >= minDuration) {
+                result[n++] = row;
+            }
+        }
+        return result;
+    }
+
+    public int[] rowsOfType(String type) {
+        int kind = kindOf(type);
+        if (kind < 0) {
+            return new int[0];
+        }
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            count += kinds[row] == kind ? 1 : 0;
+        }
+        int[] result = new int[count];
+        for (int row = 0, n = 0; row < size; row++) {
+            if (kinds[row] == kind) {
+                result[n++] = row;
+            }
+        }
+        return result;
+    }
+
+    public int[] rowsByArtist(String artist) {
+        int code = artists.codeOf(artist);
+        if (code == StringDictionary.NULL_CODE) {
+            return new int[0];
+        }
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            count += artistCodes[row] == code ? 1 : 0;
+        }
+        int[] result = new int[count];
+        for (int row = 0, n = 0; row < size; row++) {
+            if (artistCodes[row] == code) {
+                result[n++] = row;
+            }
+        }
+        return result;
+    }
+
+    // Distinct artists in NOCASE order, matching the SQL findDistinct listing.
+    public List<String> distinctArtists() {
+        int[] codes = artists.sortedCodes(QueryEvaluator.NOCASE);
+        List<String> result = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            result.add(artists.decode(code));
+        }
+        return result;
+    }
+
+    // GROUP BY on group codes: each chunk of rows fills its own count/sum/min/max arrays
+    // indexed by code, chunks run in parallel and their arrays are summed at the end.
+    // mediaType may be null for all rows. Groups are ordered by key, NULL keys skipped.
+    public List<GroupStats> aggregate(MediaField groupBy, String mediaType) {
+        int kind = mediaType == null ? ALL_KINDS : kindOf(mediaType);
+        if (kind == NO_KIND || size == 0) {
+            return new ArrayList<>();
+        }
+
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        if (groupBy == MediaField.RELEASE_YEAR) {
+            for (int row = 0; row < size; row++) {
+                minYear = Math.min(minYear, years[row]);
+                maxYear = Math.max(maxYear, years[row]);
+            }
+        }
+        int yearBase = minYear;
+        int groupCount;
+        IntUnaryOperator groupOf;
+        IntFunction<String> keyOf;
+        switch (groupBy) {
+            case ARTIST:
+                groupCount = artists.size();
+                groupOf = row -> artistCodes[row];
+                keyOf = artists::decode;
+                break;
+            case ALBUM:
+                groupCount = albums.size();
+                groupOf = row -> albumCodes[row];
+                keyOf = albums::decode;
+                break;
+            case GENRE:
+                groupCount = genres.size();
+                groupOf = row -> genreCodes[row];
+                keyOf = genres::decode;
+                break;
+            case HOST:
+                groupCount = hosts.size();
+                groupOf = row -> hostCodes[row];
+                keyOf = hosts::decode;
+                break;
+            case CATEGORY:
+                groupCount = categories.size();
+                groupOf = row -> categoryCodes[row];
+                keyOf = categories::decode;
+                break;
+            case RELEASE_YEAR:
+                groupCount = maxYear - minYear + 1;
+                groupOf = row -> years[row] - yearBase;
+                keyOf = code -> String.valueOf(code + yearBase);
+                break;
+            case MEDIA_TYPE:
+                groupCount = 2;
+                groupOf = row -> kinds[row];
+                keyOf = code -> code == SONG ? "Song" : "Podcast";
+                break;
+            default:
+                throw new IllegalArgumentException("Catalog cannot group by " + groupBy);
+        }
+
+        int chunks = (size + AGGREGATE_CHUNK - 1) / AGGREGATE_CHUNK;
+        GroupArrays totals = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    GroupArrays part = new GroupArrays(groupCount);
+                    int end = Math.min(size, (chunk + 1) * AGGREGATE_CHUNK);
+                    for (int row = chunk * AGGREGATE_CHUNK; row < end; row++) {
+                        if (kind != ALL_KINDS && kinds[row] != kind) {
+                            continue;
+                        }
+                        int group = groupOf.applyAsInt(row);
+                        if (group != StringDictionary.NULL_CODE) {
+                            part.add(group, durations[row]);
+                        }
+                    }
+                    return part;
+                })
+                .reduce(GroupArrays::combine)
+                .orElseGet(() -> new GroupArrays(groupCount));
+
+        List<GroupStats> result = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            if (totals.counts[group] > 0) {
+                result.add(new GroupStats(keyOf.apply(group), totals.counts[group], totals.sums[group],
+                        totals.mins[group], totals.maxes[group]));
+            }
+        }
+        // Year codes are already in numeric order; text keys sort like SQL's BINARY collation.
+        if (groupBy != MediaField.RELEASE_YEAR) {
+            result.sort(Comparator.comparing(GroupStats::getKey));
+        }
+        return result;
+    }
+
+    // Longest rows first, ties by row (id order). A bounded min-heap of packed
+    // (duration, reversed row) keys keeps the scan free of allocation.
+    public int[] topRowsByDuration(int limit, String mediaType) {
+        int kind = mediaType == null ? ALL_KINDS : kindOf(mediaType);
+        if (kind == NO_KIND || limit <= 0) {
+            return new int[0];
+        }
+        long[] heap = new long[Math.min(limit, size)];
+        int heapSize = 0;
+        for (int row = 0; row < size; row++) {
+            if (kind != ALL_KINDS && kinds[row] != kind) {
+                continue;
+            }
+            long key = ((long) durations[row] << 32) | (Integer.MAX_VALUE - row);
+            if (heapSize < heap.length) {
+                heap[heapSize] = key;
+                siftUp(heap, heapSize++);
+            } else if (heapSize > 0 && key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+        long[] best = Arrays.copyOf(heap, heapSize);
+        Arrays.sort(best);
+        int[] result = new int[heapSize];
+        for (int i = 0; i < heapSize; i++) {
+            result[i] = Integer.MAX_VALUE - (int) best[heapSize - 1 - i];
+        }
+        return result;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            long tmp = heap[parent];
+            heap[parent] = heap[index];
+            heap[index] = tmp;
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int heapSize) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && heap[left] < heap[smallest]) smallest = left;
+            if (right < heapSize && heap[right] < heap[smallest]) smallest = right;
+            if (smallest == index) {
+                return;
+            }
+            long tmp = heap[smallest];
+            heap[smallest] = heap[index];
+            heap[index] = tmp;
+            index = smallest;
+        }
+    }
+
+    private static int kindOf(String type) {
+        if ("Song".equalsIgnoreCase(type)) {
+            return SONG;
+        }
+        if ("Podcast".equalsIgnoreCase(type)) {
+            return PODCAST;
+        }
+        return NO_KIND;
+    }
+
+    public int[] rowsSortedByTitle() {
+        return rowByTitleRank.clone();
+    }
+
+    // Sorting packed long keys (value in the high half, row in the low half) is a primitive
+    // sort with no comparator calls and no boxing.
+    public int[] rowsSortedByDuration() {
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) durations[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+
+    // Title ranks are unique per row, so the low half identifies the row through rowByTitleRank.
+    public int[] rowsSortedByArtistThenTitle() {
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) artists.rank(artistCodes[row]) << 32) | titleRank[row];
+        }
+        Arrays.sort(keys);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = rowByTitleRank[(int) keys[i]];
+        }
+        return result;
+    }
+
+    public long getByteSize() {
+        long columns = (long) size * (Integer.BYTES * 11 + 1);
+        return columns + titles.getByteSize() + descriptions.getByteSize() + artists.getByteSize()
+                + albums.getByteSize() + genres.getByteSize() + hosts.getByteSize() + categories.getByteSize();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ColumnarCatalog[rows=%d, artists=%d, albums=%d, genres=%d, hosts=%d, categories=%d, ~%.1f MB]",
+                size, artists.size(), albums.size(), genres.size(), hosts.size(), categories.size(),
+                getByteSize() / (1024.0 * 1024.0));
+    }
+
+    private static class GroupArrays {
+        private final long[] counts;
+        private final long[] sums;
+        private final int[] mins;
+        private final int[] maxes;
+
+        GroupArrays(int groups) {
+            counts = new long[groups];
+            sums = new long[groups];
+            mins = new int[groups];
+            maxes = new int[groups];
+            Arrays.fill(mins, Integer.MAX_VALUE);
+            Arrays.fill(maxes, Integer.MIN_VALUE);
+        }
+
+        void add(int group, int duration) {
+            counts[group]++;
+            sums[group] += duration;
+            mins[group] = Math.min(mins[group], duration);
+            maxes[group] = Math.max(maxes[group], duration);
+        }
+
+        GroupArrays combine(GroupArrays other) {
+            for (int group = 0; group < counts.length; group++) {
+                counts[group] += other.counts[group];
+                sums[group] += other.sums[group];
+                mins[group] = Math.min(mins[group], other.mins[group]);
+                maxes[group] = Math.max(maxes[group], other.maxes[group]);
+            }
+            return this;
+        }
+    }
+
+    public static class Builder {
+        private int size;
+        private int[] ids = new int[1024];
+        private int[] durations = new int[1024];
+        private int[] years = new int[1024];
+        private int[] numbers = new int[1024];
+        private byte[] kinds = new byte[1024];
+        private int[] artistCodes = new int[1024];
+        private int[] albumCodes = new int[1024];
+        private int[] genreCodes = new int[1024];
+        private int[] hostCodes = new int[1024];
+        private int[] categoryCodes = new int[1024];
+        private final StringArena titles = new StringArena();
+        private final StringArena descriptions = new StringArena();
+        private final StringDictionary artists = new StringDictionary();
+        private final StringDictionary albums = new StringDictionary();
+        private final StringDictionary genres = new StringDictionary();
+        private final StringDictionary hosts = new StringDictionary();
+        private final StringDictionary categories = new StringDictionary();
+
+        public Builder add(Media media) {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = media.getId();
+            durations[size] = media.getDuration();
+            years[size] = media.getReleaseYear();
+            titles.add(media.getTitle());
+            artistCodes[size] = artists.encode(media.getArtist());
+
+            if (media instanceof Song) {
+                Song song = (Song) media;
+                kinds[size] = SONG;
+                numbers[size] = song.getTrackNumber();
+                albumCodes[size] = albums.encode(song.getAlbum());
+                genreCodes[size] = genres.encode(song.getGenre());
+                hostCodes[size] = StringDictionary.NULL_CODE;
+                categoryCodes[size] = StringDictionary.NULL_CODE;
+                descriptions.add(null);
+            } else {
+                Podcast podcast = (Podcast) media;
+                kinds[size] = PODCAST;
+                numbers[size] = podcast.getEpisodeNumber();
+                albumCodes[size] = StringDictionary.NULL_CODE;
+                genreCodes[size] = StringDictionary.NULL_CODE;
+                hostCodes[size] = hosts.encode(podcast.getHost());
+                categoryCodes[size] = categories.encode(podcast.getCategory());
+                descriptions.add(podcast.getDescription());
+            }
+            size++;
+            return this;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            years = Arrays.copyOf(years, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            artistCodes = Arrays.copyOf(artistCodes, capacity);
+            albumCodes = Arrays.copyOf(albumCodes, capacity);
+            genreCodes = Arrays.copyOf(genreCodes, capacity);
+            hostCodes = Arrays.copyOf(hostCodes, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        }
+
+        public ColumnarCatalog build() {
+            return new ColumnarCatalog(this);
+        }
+    }
+}
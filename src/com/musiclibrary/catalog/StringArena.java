@@ -0,0 +1,70 @@
+package com.musiclibrary.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Append-only UTF-8 byte arena. Strings live as byte ranges in one array instead of as
+// separate String objects (~40 bytes of headers each); they are decoded only when read.
+public class StringArena {
+    private byte[] data = new byte[4096];
+    // Slot i spans offsets[i]..offsets[i + 1].
+    private int[] offsets = new int[256];
+    private final BitSet nulls = new BitSet();
+    private int size;
+    private int used;
+
+    // Returns the slot of the appended value; null is kept as an empty, null-marked slot.
+    public int add(String value) {
+        if (size + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        if (value == null) {
+            nulls.set(size);
+            offsets[size + 1] = used;
+            return size++;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (used + bytes.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, used + bytes.length));
+        }
+        System.arraycopy(bytes, 0, data, used, bytes.length);
+        used += bytes.length;
+        offsets[size + 1] = used;
+        return size++;
+    }
+
+    public String get(int slot) {
+        if (nulls.get(slot)) {
+            return null;
+        }
+        int start = offsets[slot];
+        return new String(data, start, offsets[slot + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    // Orders two slots by their UTF-8 bytes, compared unsigned: code point order, which is
+    // also SQLite's BINARY collation. Nulls sort first. Nothing is decoded.
+    public int compare(int a, int b) {
+        boolean nullA = nulls.get(a);
+        boolean nullB = nulls.get(b);
+        if (nullA || nullB) {
+            return Boolean.compare(!nullA, !nullB);
+        }
+        int startA = offsets[a];
+        int startB = offsets[b];
+        return Arrays.compareUnsigned(data, startA, offsets[a + 1], data, startB, offsets[b + 1]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getByteSize() {
+        return (long) data.length + (long) offsets.length * Integer.BYTES;
+    }
+
+    void trim() {
+        data = Arrays.copyOf(data, used);
+        offsets = Arrays.copyOf(offsets, size + 1);
+    }
+}
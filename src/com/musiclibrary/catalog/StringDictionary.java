@@ -0,0 +1,97 @@
+package com.musiclibrary.catalog;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+// Dictionary encoding for repeated text columns: each distinct value is stored once and
+// rows hold an int code. NULL is code -1.
+public class StringDictionary {
+    public static final int NULL_CODE = -1;
+
+    private final StringArena values = new StringArena();
+    // Only needed while encoding; after freeze() lookups binary-search the sorted codes.
+    private Map<String, Integer> codes = new HashMap<>();
+    private int[] codesInOrder;
+    private int[] rankByCode;
+
+    public int encode(String value) {
+        if (codes == null) {
+            throw new IllegalStateException("Dictionary is frozen");
+        }
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    public int codeOf(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        if (codes != null) {
+            Integer code = codes.get(value);
+            return code != null ? code : NULL_CODE;
+        }
+        int low = 0;
+        int high = codesInOrder.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = values.get(codesInOrder[mid]).compareTo(value);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return codesInOrder[mid];
+        }
+        return NULL_CODE;
+    }
+
+    public String decode(int code) {
+        return code == NULL_CODE ? null : values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long getByteSize() {
+        return values.getByteSize() + (rankByCode != null ? 2L * rankByCode.length * Integer.BYTES : 0);
+    }
+
+    // Position of the code in natural String order, so rows can be ordered by comparing
+    // ints instead of strings.
+    public int rank(int code) {
+        return code == NULL_CODE ? -1 : rankByCode[code];
+    }
+
+    // Codes in sort order.
+    public int[] sortedCodes(Comparator<String> order) {
+        Integer[] sorted = new Integer[size()];
+        String[] decoded = new String[size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+            decoded[i] = values.get(i);
+        }
+        Arrays.sort(sorted, (a, b) -> order.compare(decoded[a], decoded[b]));
+        int[] result = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            result[i] = sorted[i];
+        }
+        return result;
+    }
+
+    void freeze() {
+        values.trim();
+        codes = null;
+        codesInOrder = sortedCodes(Comparator.naturalOrder());
+        rankByCode = new int[codesInOrder.length];
+        for (int rank = 0; rank < codesInOrder.length; rank++) {
+            rankByCode[codesInOrder[rank]] = rank;
+        }
+    }
+}
@@ -0,0 +1,670 @@
+package com.musiclibrary.http;
+
+import com.musiclibrary.catalog.ColumnarCatalog;
+import com.musiclibrary.exception.DatabaseOperationException;
+import com.musiclibrary.exception.DuplicateResourceException;
+import com.musiclibrary.exception.InvalidInputException;
+import com.musiclibrary.exception.ResourceNotFoundException;
+import com.musiclibrary.ingest.MediaRecordParser;
+import com.musiclibrary.metrics.MetricsRegistry;
+import com.musiclibrary.model.LazyPlaylist;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Playlist;
+import com.musiclibrary.ratings.MediaRating;
+import com.musiclibrary.repository.PlaylistRepositoryImpl;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.service.AsyncMediaService;
+import com.musiclibrary.serialization.JsonOutput;
+import com.musiclibrary.serialization.MediaBinaryWriter;
+import com.musiclibrary.serialization.MediaCodec;
+import com.musiclibrary.serialization.MediaJsonSerializer;
+import com.musiclibrary.service.MediaService;
+import com.musiclibrary.utils.JsonObjectParser;
+import com.musiclibrary.utils.VirtualThreads;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+// JSON over HTTP on the JDK's built-in server, one virtual thread per exchange where the
+// runtime has them. Responses are built in memory and sent with a Content-Length, except the
+// unpaged /media listings, which are written chunked straight from a database cursor so their
+// size is bounded by the table rather than the heap. Buffered GET responses carry an ETag and
+// answer If-None-Match with 304; bodies above GZIP_MIN_BYTES (and every streamed listing) are
+// gzipped for clients that accept it. Media responses are sent in the MediaCodec binary form
+// instead of JSON when Accept names MediaCodec.CONTENT_TYPE.
+//
+//   GET    /health                         GET /metrics
+//   GET    /media[?sort=title|duration|artist][&type=Song][&minDuration=600]
+//   GET    /media?limit=50[&cursor=...]     keyset page in title order, limit capped at maxPageSize
+//   POST   /media                          GET|PUT|DELETE /media/{id}
+//   GET    /media/{id}/rating              POST /media/{id}/rating {"stars": 4}
+//   GET    /search?q=...                   GET /stats/{artists|genres|years|categories|types}
+//   GET    /playlists                      POST /playlists {"name": ..., "description": ...}
+//   GET    /playlists/{id}                 POST /playlists/{id}/items {"media_id": 7, "position": 1}
+//   GET    /catalog                        POST /catalog/refresh   (columnar catalog for list views)
+//
+//   -Dmusiclibrary.http.gzipMinBytes=1024 -Dmusiclibrary.http.maxBodyBytes=1048576
+//   -Dmusiclibrary.http.maxPageSize=1000
+public class HttpApiServer implements AutoCloseable {
+    private static final int GZIP_MIN_BYTES = Integer.getInteger("musiclibrary.http.gzipMinBytes", 1024);
+    private static final int MAX_BODY_BYTES = Integer.getInteger("musiclibrary.http.maxBodyBytes", 1 << 20);
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("musiclibrary.http.maxPageSize", 1000);
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final MediaRecordParser MEDIA_PARSER = MediaRecordParser.jsonLines();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MediaService media;
+    private final PlaylistRepositoryImpl playlists;
+    private final AsyncMediaService async;
+
+    public HttpApiServer(InetSocketAddress address, MediaService media, PlaylistRepositoryImpl playlists,
+                         AsyncMediaService async) throws IOException {
+        this.media = media;
+        this.playlists = playlists;
+        this.async = async;
+        this.executor = VirtualThreads.newExecutor("http");
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/health", exchange -> handle(exchange, this::health));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+        server.createContext("/media", exchange -> handle(exchange, this::media));
+        server.createContext("/search", exchange -> handle(exchange, this::search));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+        server.createContext("/playlists", exchange -> handle(exchange, this::playlists));
+        server.createContext("/catalog", exchange -> handle(exchange, this::catalog));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private Response health(Request request) {
+        request.allow("GET");
+        int count = media.getTotalMediaCount();
+        return Response.ok(json -> json.beginObject()
+                .field("status", "ok")
+                .field("media", count)
+                .endObject());
+    }
+
+    private Response metrics(Request request) {
+        request.allow("GET");
+        return new Response(200, MetricsRegistry.getInstance().toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Response media(Request request) throws IOException {
+        String[] path = request.path;
+        if (path.length == 1) {
+            if (request.is("POST")) {
+                Media created = media.createMedia(MEDIA_PARSER.parse(request.body()));
+                return Response.json(201, json -> MediaJsonSerializer.writeMedia(json, created))
+                        .header("Location", "/media/" + created.getId());
+            }
+            request.allow("GET");
+            return listMedia(request);
+        }
+
+        int id = request.intSegment(1);
+        if (path.length == 2) {
+            switch (request.method) {
+                case "GET":
+                    return Response.ok(request, media.getMediaById(id));
+                case "PUT":
+                    return Response.ok(request, media.updateMedia(id, MEDIA_PARSER.parse(request.body())));
+                case "DELETE":
+                    media.deleteMedia(id);
+                    return Response.noContent();
+                default:
+                    throw new MethodNotAllowed("GET, PUT, DELETE");
+            }
+        }
+        if (path.length == 3 && "rating".equals(path[2])) {
+            if (request.is("POST")) {
+                media.rate(id, request.intField(JsonObjectParser.parse(request.body()), "stars"));
+                return Response.accepted();
+            }
+            request.allow("GET");
+            MediaRating rating = media.getRating(id);
+            return Response.ok(json -> MediaJson.rating(json, id, rating));
+        }
+        throw new ResourceNotFoundException("No such resource: " + request.rawPath);
+    }
+
+    private Response listMedia(Request request) {
+        String limit = request.query("limit");
+        String cursor = request.query("cursor");
+        if (limit != null || cursor != null) {
+            // Larger requests get a full page and a cursor, like any other page.
+            int pageSize = limit != null ? Math.min(parseInt("limit", limit), MAX_PAGE_SIZE) : 50;
+            Page<Media> page = media.getMediaPage(cursor != null ? PageCursor.fromToken(cursor) : null, pageSize);
+            return Response.ok(json -> {
+                json.beginObject().name("items");
+                MediaJsonSerializer.writeMediaArray(json, page.getItems());
+                json.field("next", page.hasNext() ? page.getNextCursor().toToken() : null).endObject();
+            });
+        }
+
+        Stream<Media> result;
+        String type = request.query("type");
+        String minDuration = request.query("minDuration");
+        String sort = request.query("sort");
+        if (type != null) {
+            result = media.streamMediaByType(type);
+        } else if (minDuration != null) {
+            result = media.streamLongMedia(parseInt("minDuration", minDuration));
+        } else if (sort == null || "title".equals(sort)) {
+            result = media.streamAllMediaSortedByTitle();
+        } else if ("duration".equals(sort)) {
+            result = media.streamAllMediaSortedByDuration();
+        } else if ("artist".equals(sort)) {
+            result = media.streamAllMediaSortedByArtistThenTitle();
+        } else {
+            throw new InvalidInputException("Unknown sort '" + sort + "'; expected title, duration or artist");
+        }
+        return Response.stream(request, result);
+    }
+
+    private Response search(Request request) {
+        request.allow("GET");
+        String keyword = request.query("q");
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new InvalidInputException("Query parameter 'q' is required");
+        }
+        return Response.ok(request, media.search(keyword));
+    }
+
+    private Response stats(Request request) {
+        request.allow("GET");
+        if (request.path.length != 2) {
+            throw new ResourceNotFoundException("No such resource: " + request.rawPath);
+        }
+        List<GroupStats> groups;
+        switch (request.path[1]) {
+            case "artists":
+                groups = media.getDurationStatsByArtist();
+                break;
+            case "genres":
+                groups = media.getDurationStatsByGenre();
+                break;
+            case "years":
+                groups = media.getDurationStatsByYear();
+                break;
+            case "categories":
+                groups = media.getPodcastCategoryStats();
+                break;
+            case "types":
+                Map<String, Long> counts = media.getCountByMediaType();
+                return Response.ok(json -> MediaJson.counts(json, counts));
+            default:
+                throw new ResourceNotFoundException("No such statistic: " + request.path[1]);
+        }
+        return Response.ok(json -> MediaJson.groupStats(json, groups));
+    }
+
+    // The catalog is dropped by the first write through the service; refresh reloads it.
+    private Response catalog(Request request) {
+        if (request.path.length == 2 && "refresh".equals(request.path[1])) {
+            request.allow("POST");
+            ColumnarCatalog loaded = media.refreshCatalog();
+            return Response.ok(json -> MediaJson.catalog(json, loaded));
+        }
+        if (request.path.length != 1) {
+            throw new ResourceNotFoundException("No such resource: " + request.rawPath);
+        }
+        request.allow("GET");
+        ColumnarCatalog current = media.getCatalog();
+        return Response.ok(json -> MediaJson.catalog(json, current));
+    }
+
+    private Response playlists(Request request) throws IOException {
+        String[] path = request.path;
+        if (playlists == null) {
+            throw new DatabaseOperationException("Playlists are not available");
+        }
+        if (path.length == 1) {
+            if (request.is("POST")) {
+                Map<String, String> fields = JsonObjectParser.parse(request.body());
+                String name = fields.get("name");
+                if (name == null || name.trim().isEmpty()) {
+                    throw new InvalidInputException("Missing required field 'name'");
+                }
+                Playlist created = playlists.save(new Playlist(0, name, fields.get("description")));
+                return Response.json(201, json -> MediaJsonSerializer.writePlaylistSummary(json, created))
+                        .header("Location", "/playlists/" + created.getId());
+            }
+            request.allow("GET");
+            List<Playlist> all = playlists.findAll();
+            return Response.ok(json -> {
+                json.beginArray();
+                for (Playlist playlist : all) {
+                    MediaJsonSerializer.writePlaylistSummary(json, playlist);
+                }
+                json.endArray();
+            });
+        }
+
+        int id = request.intSegment(1);
+        if (path.length == 2) {
+            request.allow("GET");
+            LazyPlaylist playlist = playlists.getLazyById(id);
+            List<Media> tracks = join(async.getPlaylistTracks(playlist));
+            return Response.ok(json -> MediaJson.playlist(json, id, playlist.getName(), playlist.getDescription(), tracks));
+        }
+        if (path.length == 3 && "items".equals(path[2])) {
+            request.allow("POST");
+            Map<String, String> fields = JsonObjectParser.parse(request.body());
+            playlists.addMediaToPlaylist(id, request.intField(fields, "media_id"), request.intField(fields, "position"));
+            return Response.noContent();
+        }
+        throw new ResourceNotFoundException("No such resource: " + request.rawPath);
+    }
+
+    private void handle(HttpExchange exchange, Route route) throws IOException {
+        Response response;
+        try {
+            Request request = new Request(exchange);
+            // Contexts match by string prefix, so /mediafoo would otherwise land on /media.
+            if (!exchange.getHttpContext().getPath().equals("/" + request.path[0])) {
+                throw new ResourceNotFoundException("No such resource: " + request.rawPath);
+            }
+            response = route.handle(request);
+        } catch (MethodNotAllowed e) {
+            response = Response.error(405, "Method not allowed").header("Allow", e.getMessage());
+        } catch (RuntimeException e) {
+            response = toError(e);
+        } catch (Error e) {
+            // e.g. OutOfMemoryError: still answer, so the client is not left waiting on the exchange.
+            System.err.println("HTTP request failed: " + e);
+            response = Response.error(500, "Internal server error");
+        }
+
+        try {
+            send(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Response toError(RuntimeException e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ResourceNotFoundException) {
+            return Response.error(404, cause.getMessage());
+        }
+        if (cause instanceof DuplicateResourceException) {
+            return Response.error(409, cause.getMessage());
+        }
+        if (cause instanceof PayloadTooLarge) {
+            return Response.error(413, cause.getMessage());
+        }
+        if (cause instanceof InvalidInputException || cause instanceof IllegalArgumentException) {
+            return Response.error(400, cause.getMessage());
+        }
+        if (cause instanceof UnsupportedOperationException) {
+            // e.g. writes against a read-only snapshot repository
+            return Response.error(405, cause.getMessage());
+        }
+        if (cause instanceof DatabaseOperationException) {
+            System.err.println("HTTP request failed: " + cause.getMessage());
+            return Response.error(503, cause.getMessage());
+        }
+        System.err.println("HTTP request failed: " + cause);
+        return Response.error(500, "Internal server error");
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.putAll(response.headers);
+        if (response.rows != null) {
+            sendStreamed(exchange, response);
+            return;
+        }
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+
+        byte[] body = response.body;
+        headers.set("Content-Type", response.contentType);
+        boolean cacheable = response.status == 200 && "GET".equals(exchange.getRequestMethod());
+        boolean gzip = body.length >= GZIP_MIN_BYTES && acceptsGzip(exchange.getRequestHeaders());
+        if (body.length >= GZIP_MIN_BYTES) {
+            headers.add("Vary", "Accept-Encoding");
+        }
+
+        if (cacheable) {
+            String etag = etag(body);
+            String sent = gzip ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+            headers.set("ETag", sent);
+            headers.set("Cache-Control", "no-cache");
+            if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            headers.set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Length 0 selects chunked transfer encoding; rows are encoded and flushed as the cursor
+    // advances. A failure after the headers have gone out can only cut the body short, which
+    // leaves the JSON unparseable rather than silently incomplete.
+    private static void sendStreamed(HttpExchange exchange, Response response) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        try (Stream<Media> rows = response.rows) {
+            headers.set("Content-Type", response.contentType);
+            headers.add("Vary", "Accept-Encoding");
+            boolean gzip = acceptsGzip(exchange.getRequestHeaders());
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(response.status, 0);
+            try (OutputStream body = gzip ? new GZIPOutputStream(exchange.getResponseBody(), 8192)
+                    : exchange.getResponseBody()) {
+                if (MediaCodec.CONTENT_TYPE.equals(response.contentType)) {
+                    try (MediaBinaryWriter writer = MediaBinaryWriter.to(body)) {
+                        writer.writeAll(rows);
+                    }
+                } else {
+                    MediaJsonSerializer.writeAll(rows, body);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("HTTP response aborted: " + e.getMessage());
+                throw new IOException("Streamed response aborted", e);
+            }
+        }
+    }
+
+    // Content hash of the uncompressed body; the gzip variant gets a suffix so caches keep them apart.
+    private static String etag(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String gzipped = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipped)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(Headers requestHeaders) {
+        List<String> values = requestHeaders.get("Accept-Encoding");
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String trimmed = coding.trim();
+                if (trimmed.equals("gzip") || (trimmed.startsWith("gzip;") && !trimmed.replace(" ", "").endsWith("q=0"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("'" + name + "' is not a number: " + value);
+        }
+    }
+
+    private interface Route {
+        Response handle(Request request) throws IOException;
+    }
+
+    private static class Request {
+        private final HttpExchange exchange;
+        private final String method;
+        private final String rawPath;
+        private final String[] path;
+        private Map<String, String> query;
+
+        Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            this.rawPath = exchange.getRequestURI().getPath();
+            String trimmed = rawPath.replaceAll("^/+|/+$", "");
+            this.path = trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+        }
+
+        boolean accepts(String contentType) {
+            List<String> values = exchange.getRequestHeaders().get("Accept");
+            if (values != null) {
+                for (String value : values) {
+                    if (value.contains(contentType)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        boolean is(String expected) {
+            return expected.equals(method);
+        }
+
+        void allow(String expected) {
+            if (!is(expected)) {
+                throw new MethodNotAllowed(expected);
+            }
+        }
+
+        int intSegment(int index) {
+            return parseInt("id", path[index]);
+        }
+
+        int intField(Map<String, String> fields, String name) {
+            String value = fields.get(name);
+            if (value == null) {
+                throw new InvalidInputException("Missing required field '" + name + "'");
+            }
+            return parseInt(name, value);
+        }
+
+        String query(String name) {
+            if (query == null) {
+                query = new HashMap<>();
+                String raw = exchange.getRequestURI().getRawQuery();
+                if (raw != null) {
+                    for (String pair : raw.split("&")) {
+                        int eq = pair.indexOf('=');
+                        String key = eq < 0 ? pair : pair.substring(0, eq);
+                        String value = eq < 0 ? "" : pair.substring(eq + 1);
+                        query.putIfAbsent(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                                URLDecoder.decode(value, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            return query.get(name);
+        }
+
+        String body() throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new PayloadTooLarge("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+                }
+                if (bytes.length == 0) {
+                    throw new InvalidInputException("Request body is required");
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final byte[] body;
+        private final Stream<Media> rows;
+        private final String contentType;
+        private final Map<String, List<String>> headers = new HashMap<>();
+
+        Response(int status, byte[] body) {
+            this(status, body, JSON);
+        }
+
+        Response(int status, byte[] body, String contentType) {
+            this(status, body, null, contentType);
+        }
+
+        private Response(int status, byte[] body, Stream<Media> rows, String contentType) {
+            this.status = status;
+            this.body = body;
+            this.rows = rows;
+            this.contentType = contentType;
+        }
+
+        // Rows are written by send() as they are read; see sendStreamed.
+        static Response stream(Request request, Stream<Media> rows) {
+            String contentType = request.accepts(MediaCodec.CONTENT_TYPE) ? MediaCodec.CONTENT_TYPE : JSON;
+            return new Response(200, null, rows, contentType).header("Vary", "Accept");
+        }
+
+        static Response ok(Request request, Media media) {
+            return ok(request, List.of(media), true);
+        }
+
+        static Response ok(Request request, List<Media> media) {
+            return ok(request, media, false);
+        }
+
+        // Media can also be sent in the MediaCodec binary form to clients that ask for it.
+        private static Response ok(Request request, List<Media> media, boolean single) {
+            Response response;
+            if (request.accepts(MediaCodec.CONTENT_TYPE)) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+                try (MediaBinaryWriter writer = MediaBinaryWriter.to(body)) {
+                    writer.writeAll(media);
+                }
+                response = new Response(200, body.toByteArray(), MediaCodec.CONTENT_TYPE);
+            } else if (single) {
+                response = ok(json -> MediaJsonSerializer.writeMedia(json, media.get(0)));
+            } else {
+                response = ok(json -> MediaJsonSerializer.writeMediaArray(json, media));
+            }
+            return response.header("Vary", "Accept");
+        }
+
+        static Response ok(Consumer<JsonOutput> writer) {
+            return json(200, writer);
+        }
+
+        static Response json(int status, Consumer<JsonOutput> writer) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+            try (JsonOutput json = JsonOutput.to(body)) {
+                writer.accept(json);
+            }
+            return new Response(status, body.toByteArray());
+        }
+
+        static Response accepted() {
+            return new Response(202, null);
+        }
+
+        static Response noContent() {
+            return new Response(204, null);
+        }
+
+        static Response error(int status, String message) {
+            return json(status, json -> MediaJson.error(json, status, message));
+        }
+
+        Response header(String name, String value) {
+            headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+            return this;
+        }
+    }
+
+    private static class MethodNotAllowed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowed(String allowed) {
+            super(allowed);
+        }
+    }
+
+    private static class PayloadTooLarge extends InvalidInputException {
+        private static final long serialVersionUID = 1L;
+
+        PayloadTooLarge(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.musiclibrary.http;
+
+import com.musiclibrary.catalog.ColumnarCatalog;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.ratings.MediaRating;
+import com.musiclibrary.ratings.RatingStore;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.serialization.JsonName;
+import com.musiclibrary.serialization.JsonOutput;
+import com.musiclibrary.serialization.MediaJsonSerializer;
+
+import java.util.List;
+import java.util.Map;
+
+// JSON shapes of the API resources other than plain media and playlists, which come from
+// MediaJsonSerializer.
+final class MediaJson {
+    private static final JsonName KEY = JsonName.of("key");
+    private static final JsonName COUNT = JsonName.of("count");
+    private static final JsonName TOTAL_DURATION = JsonName.of("total_duration");
+    private static final JsonName AVERAGE_DURATION = JsonName.of("average_duration");
+    private static final JsonName MIN_DURATION = JsonName.of("min_duration");
+    private static final JsonName MAX_DURATION = JsonName.of("max_duration");
+
+    private MediaJson() {
+    }
+
+    // A lazily loaded playlist: header fields plus tracks in playlist order.
+    static void playlist(JsonOutput json, int id, String name, String description, List<Media> tracks) {
+        long totalDuration = 0;
+        for (Media track : tracks) {
+            totalDuration += track.getDuration();
+        }
+        json.beginObject()
+                .field("id", id)
+                .field("name", name)
+                .field("description", description)
+                .field("track_count", tracks.size())
+                .field("total_duration", totalDuration)
+                .name("tracks");
+        MediaJsonSerializer.writeMediaArray(json, tracks);
+        json.endObject();
+    }
+
+    static void groupStats(JsonOutput json, List<GroupStats> groups) {
+        json.beginArray();
+        for (GroupStats group : groups) {
+            json.beginObject()
+                    .field(KEY, group.getKey())
+                    .field(COUNT, group.getCount())
+                    .field(TOTAL_DURATION, group.getTotalDuration())
+                    .field(AVERAGE_DURATION, group.getAverageDuration())
+                    .field(MIN_DURATION, group.getMinDuration())
+                    .field(MAX_DURATION, group.getMaxDuration())
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    static void counts(JsonOutput json, Map<String, Long> counts) {
+        json.beginObject();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            json.field(entry.getKey(), entry.getValue());
+        }
+        json.endObject();
+    }
+
+    // rating is null for media nobody has rated yet.
+    static void rating(JsonOutput json, int mediaId, MediaRating rating) {
+        json.beginObject()
+                .field("media_id", mediaId)
+                .field("count", rating != null ? rating.getCount() : 0)
+                .field("average", rating != null ? rating.getAverage() : 0.0)
+                .name("histogram")
+                .beginArray();
+        for (long stars : rating != null ? rating.getHistogram() : new long[RatingStore.MAX_STARS]) {
+            json.value(stars);
+        }
+        json.endArray().endObject();
+    }
+
+    // catalog is null while none is loaded.
+    static void catalog(JsonOutput json, ColumnarCatalog catalog) {
+        json.beginObject().field("loaded", catalog != null);
+        if (catalog != null) {
+            json.field("rows", catalog.size()).field("bytes", catalog.getByteSize());
+        }
+        json.endObject();
+    }
+
+    static void error(JsonOutput json, int status, String message) {
+        json.beginObject()
+                .field("status", status)
+                .field("error", message)
+                .endObject();
+    }
+}
@@ -0,0 +1,325 @@
+package com.musiclibrary.ingest;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+import com.musiclibrary.exception.InvalidInputException;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.utils.DatabaseConnection;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams a CSV or JSONL catalog file into the media table.
+//   reader thread -> parse workers (parallel, chunked) -> this thread -> batched inserts
+// Chunks are consumed in file order. Each commit covers commitSize rows in one transaction;
+// rows that fail parsing, validation or a constraint go to the dead-letter file with the reason.
+public class BulkMediaImporter {
+    private static final long PROGRESS_INTERVAL = 100_000;
+    private static final int MAX_RECORD_CHARS = 1 << 20;
+
+    private final DatabaseConnection dbConnection;
+    private final int parseWorkers;
+    private final int batchSize;
+    private final int commitSize;
+
+    public BulkMediaImporter(int parseWorkers, int batchSize, int commitSize) {
+        if (parseWorkers <= 0 || batchSize <= 0 || commitSize < batchSize) {
+            throw new IllegalArgumentException("Invalid importer settings: workers=" + parseWorkers +
+                    ", batchSize=" + batchSize + ", commitSize=" + commitSize);
+        }
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.parseWorkers = parseWorkers;
+        this.batchSize = batchSize;
+        this.commitSize = commitSize;
+    }
+
+    public BulkMediaImporter() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 500, 10_000);
+    }
+
+    public ImportReport importFile(Path input, Path deadLetterFile) throws IOException {
+        long start = System.nanoTime();
+        long rowsRead = 0;
+        long imported = 0;
+        long rejected = 0;
+        long nextProgress = PROGRESS_INTERVAL;
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parseWorkers, r -> {
+            Thread t = new Thread(r, "import-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<Future<ParsedChunk>> pending = new ArrayBlockingQueue<>(parseWorkers * 2);
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+        Thread reader = new Thread(() -> readChunks(input, parsers, pending, readerFailure), "import-reader");
+        reader.setDaemon(true);
+
+        try (BufferedWriter deadLetters = Files.newBufferedWriter(deadLetterFile, StandardCharsets.UTF_8)) {
+            reader.start();
+            List<ParsedRow> buffer = new ArrayList<>(commitSize);
+
+            while (true) {
+                ParsedChunk chunk = take(pending);
+                if (chunk == ParsedChunk.END) {
+                    break;
+                }
+                rowsRead += chunk.lineCount;
+                for (Rejected row : chunk.rejected) {
+                    writeDeadLetter(deadLetters, row);
+                    rejected++;
+                }
+                for (ParsedRow row : chunk.rows) {
+                    buffer.add(row);
+                    if (buffer.size() >= commitSize) {
+                        int failed = commit(buffer, deadLetters);
+                        imported += buffer.size() - failed;
+                        rejected += failed;
+                        buffer.clear();
+                    }
+                }
+                if (imported >= nextProgress) {
+                    printProgress(imported, start);
+                    nextProgress += PROGRESS_INTERVAL;
+                }
+            }
+            if (!buffer.isEmpty()) {
+                int failed = commit(buffer, deadLetters);
+                imported += buffer.size() - failed;
+                rejected += failed;
+            }
+        } finally {
+            reader.interrupt();
+            parsers.shutdownNow();
+        }
+
+        Throwable failure = readerFailure.get();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new DatabaseOperationException("Import aborted: " + failure.getMessage(), failure);
+        }
+
+        ImportReport report = new ImportReport(rowsRead, imported, rejected, System.nanoTime() - start);
+        System.out.println("Import finished: " + report);
+        return report;
+    }
+
+    private void readChunks(Path input, ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> pending,
+                            AtomicReference<Throwable> failure) {
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            MediaRecordParser parser;
+            if (input.getFileName().toString().toLowerCase().endsWith(".csv")) {
+                String header = in.readLine();
+                lineNumber++;
+                if (header == null) {
+                    return;
+                }
+                parser = MediaRecordParser.csv(header);
+            } else {
+                parser = MediaRecordParser.jsonLines();
+            }
+
+            boolean csv = parser.getFormat() == MediaRecordParser.Format.CSV;
+            List<String> lines = new ArrayList<>(batchSize);
+            long[] lineNumbers = new long[batchSize];
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                long recordStart = lineNumber;
+                if (csv && MediaRecordParser.endsInsideQuotes(line, false)) {
+                    // A quoted CSV field may contain line breaks; keep reading until it closes.
+                    // A stray quote must not swallow the rest of the file, so the record is cut
+                    // off at MAX_RECORD_CHARS; either way the open quote is left for the parser
+                    // to reject.
+                    StringBuilder record = new StringBuilder(line);
+                    boolean open = true;
+                    while (open && record.length() < MAX_RECORD_CHARS && (line = in.readLine()) != null) {
+                        lineNumber++;
+                        record.append('\n').append(line);
+                        open = MediaRecordParser.endsInsideQuotes(line, true);
+                    }
+                    line = record.toString();
+                }
+                lineNumbers[lines.size()] = recordStart;
+                lines.add(line);
+                if (lines.size() == batchSize) {
+                    submit(parsers, pending, parser, lines, lineNumbers);
+                    lines = new ArrayList<>(batchSize);
+                    lineNumbers = new long[batchSize];
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(parsers, pending, parser, lines, lineNumbers);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            failure.set(t);
+        } finally {
+            try {
+                pending.put(CompletableFuture.completedFuture(ParsedChunk.END));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void submit(ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> pending,
+                        MediaRecordParser parser, List<String> lines, long[] lineNumbers) throws InterruptedException {
+        pending.put(parsers.submit(() -> {
+            ParsedChunk chunk = new ParsedChunk(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                try {
+                    chunk.rows.add(new ParsedRow(lineNumbers[i], line, parser.parse(line)));
+                } catch (InvalidInputException | IllegalArgumentException e) {
+                    chunk.rejected.add(new Rejected(lineNumbers[i], line, e.getMessage()));
+                }
+            }
+            return chunk;
+        }));
+    }
+
+    private ParsedChunk take(BlockingQueue<Future<ParsedChunk>> pending) {
+        try {
+            return pending.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new DatabaseOperationException("Parse worker failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Returns the number of rows that could not be inserted.
+    private int commit(List<ParsedRow> rows, BufferedWriter deadLetters) throws IOException {
+        List<Rejected> failed;
+        try {
+            failed = dbConnection.executeWrite(conn -> {
+                conn.setAutoCommit(false);
+                try (PreparedStatement ps = conn.prepareStatement(MediaRepositoryImpl.INSERT_SQL)) {
+                    try {
+                        insertBatched(ps, rows);
+                        conn.commit();
+                        return new ArrayList<Rejected>();
+                    } catch (SQLException batchFailure) {
+                        conn.rollback();
+                        // The rollback undid the whole chunk. Replay it row by row in a new
+                        // transaction: a failing row only aborts its own statement, so the
+                        // offenders are skipped and everything else still commits together.
+                        List<Rejected> offenders = insertIndividually(ps, rows);
+                        conn.commit();
+                        return offenders;
+                    }
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            });
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error importing media batch: " + e.getMessage(), e);
+        }
+
+        for (Rejected row : failed) {
+            writeDeadLetter(deadLetters, row);
+        }
+        return failed.size();
+    }
+
+    private void insertBatched(PreparedStatement ps, List<ParsedRow> rows) throws SQLException {
+        int pendingInBatch = 0;
+        for (ParsedRow row : rows) {
+            MediaRepositoryImpl.bindInsertParameters(ps, row.media);
+            ps.addBatch();
+            if (++pendingInBatch == batchSize) {
+                ps.executeBatch();
+                pendingInBatch = 0;
+            }
+        }
+        if (pendingInBatch > 0) {
+            ps.executeBatch();
+        }
+    }
+
+    private List<Rejected> insertIndividually(PreparedStatement ps, List<ParsedRow> rows) throws SQLException {
+        ps.clearBatch();
+        List<Rejected> offenders = new ArrayList<>();
+        for (ParsedRow row : rows) {
+            try {
+                MediaRepositoryImpl.bindInsertParameters(ps, row.media);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                offenders.add(new Rejected(row.lineNumber, row.line, e.getMessage()));
+            }
+        }
+        return offenders;
+    }
+
+    private static void writeDeadLetter(BufferedWriter out, Rejected row) throws IOException {
+        // One rejected record per line; line breaks inside a quoted CSV field are escaped.
+        out.write(row.lineNumber + "\t" + row.reason.replace('\t', ' ').replace('\n', ' ') + "\t"
+                + row.line.replace("\r", "\\r").replace("\n", "\\n"));
+        out.newLine();
+    }
+
+    private static void printProgress(long imported, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        System.out.printf("Imported %d rows (%.0f rows/s)%n", imported, imported / Math.max(seconds, 1e-9));
+    }
+
+    private static class ParsedRow {
+        private final long lineNumber;
+        private final String line;
+        private final Media media;
+
+        ParsedRow(long lineNumber, String line, Media media) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.media = media;
+        }
+    }
+
+    private static class Rejected {
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        Rejected(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason != null ? reason : "unknown error";
+        }
+    }
+
+    private static class ParsedChunk {
+        private static final ParsedChunk END = new ParsedChunk(0);
+
+        private final int lineCount;
+        private final List<ParsedRow> rows = new ArrayList<>();
+        private final List<Rejected> rejected = new ArrayList<>();
+
+        ParsedChunk(int lineCount) {
+            this.lineCount = lineCount;
+        }
+    }
+}
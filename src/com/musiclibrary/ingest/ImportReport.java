@@ -0,0 +1,34 @@
+package com.musiclibrary.ingest;
+
+public class ImportReport {
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsRejected;
+    private final long elapsedNanos;
+
+    public ImportReport(long rowsRead, long rowsImported, long rowsRejected, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsImported() { return rowsImported; }
+    public long getRowsRejected() { return rowsRejected; }
+
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0.0 : rowsImported / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Import[read=%d, imported=%d, rejected=%d, %.1fs, %.0f rows/s]",
+                rowsRead, rowsImported, rowsRejected, getElapsedSeconds(), getRowsPerSecond());
+    }
+}
@@ -0,0 +1,151 @@
+package com.musiclibrary.ingest;
+
+import com.musiclibrary.exception.InvalidInputException;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.utils.JsonObjectParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Turns one CSV record or JSONL line into a validated Media. Field names follow the media table
+// columns: media_type, title, artist, duration, release_year, album, genre, track_number,
+// host, category, episode_number, description.
+public class MediaRecordParser {
+    public enum Format { CSV, JSONL }
+
+    private final Format format;
+    private final String[] csvHeader;
+
+    private MediaRecordParser(Format format, String[] csvHeader) {
+        this.format = format;
+        this.csvHeader = csvHeader;
+    }
+
+    public static MediaRecordParser jsonLines() {
+        return new MediaRecordParser(Format.JSONL, null);
+    }
+
+    public static MediaRecordParser csv(String headerLine) {
+        List<String> header = splitCsv(headerLine);
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = header.get(i).trim().toLowerCase(Locale.ROOT);
+        }
+        return new MediaRecordParser(Format.CSV, columns);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Media parse(String line) {
+        Map<String, String> fields = format == Format.JSONL ? JsonObjectParser.parse(line) : csvFields(line);
+        Media media = toMedia(fields);
+        if (!media.validate()) {
+            throw new InvalidInputException("Invalid media data: " + media.getValidationMessage());
+        }
+        return media;
+    }
+
+    private Map<String, String> csvFields(String line) {
+        List<String> values = splitCsv(line);
+        if (values.size() != csvHeader.length) {
+            throw new InvalidInputException("Expected " + csvHeader.length + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < csvHeader.length; i++) {
+            String value = values.get(i);
+            fields.put(csvHeader[i], value.isEmpty() ? null : value);
+        }
+        return fields;
+    }
+
+    private static Media toMedia(Map<String, String> fields) {
+        String type = required(fields, "media_type");
+        String title = required(fields, "title");
+        String artist = required(fields, "artist");
+        int duration = integer(fields, "duration", true);
+        int releaseYear = integer(fields, "release_year", true);
+
+        if ("song".equalsIgnoreCase(type)) {
+            return new Song(0, title, artist, duration, releaseYear,
+                    fields.get("album"), fields.get("genre"), integer(fields, "track_number", false));
+        }
+        if ("podcast".equalsIgnoreCase(type)) {
+            return new Podcast(0, title, artist, duration, releaseYear,
+                    fields.get("host"), fields.get("category"),
+                    integer(fields, "episode_number", false), fields.get("description"));
+        }
+        throw new InvalidInputException("Unknown media_type '" + type + "'");
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidInputException("Missing required field '" + name + "'");
+        }
+        return value;
+    }
+
+    private static int integer(Map<String, String> fields, String name, boolean required) {
+        String value = required ? required(fields, name) : fields.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException("Field '" + name + "' is not a number: " + value);
+        }
+    }
+
+    // Whether a quoted field is still open at the end of this physical line, given whether one
+    // was open at its start. "" inside quotes flips the state twice, so counting quotes is enough.
+    static boolean endsInsideQuotes(String line, boolean openAtStart) {
+        boolean open = openAtStart;
+        for (int i = line.indexOf('"'); i >= 0; i = line.indexOf('"', i + 1)) {
+            open = !open;
+        }
+        return open;
+    }
+
+    // RFC 4180 style: comma separated, fields may be quoted, "" inside quotes is a literal quote,
+    // and a quoted field may span lines (the importer joins them with '\n' before parsing).
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidInputException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,37 @@
+package com.musiclibrary.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wraps any interface implementation so that every call is timed and counted under
+// "<name>.<method>". Used for the repository layer, where every interface method counts.
+public final class Instrumented {
+    private Instrumented() {
+    }
+
+    public static <T> T wrap(Class<T> type, T target, String name) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        Map<Method, OperationMetrics> byMethod = new ConcurrentHashMap<>();
+
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, args);
+            }
+            OperationMetrics operation = byMethod.computeIfAbsent(method,
+                    m -> registry.operation(name + "." + m.getName()));
+            long start = System.nanoTime();
+            try {
+                Object result = method.invoke(target, args);
+                operation.recordSuccess(start, MetricsRegistry.rowsOf(result));
+                return result;
+            } catch (InvocationTargetException e) {
+                operation.recordFailure(start, e.getCause());
+                throw e.getCause();
+            }
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,152 @@
+package com.musiclibrary.metrics;
+
+import com.musiclibrary.repository.query.Page;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Process-wide registry of per-operation metrics. Operations are published as MBeans under
+// com.musiclibrary:type=Operation and can be dumped periodically as text or JSON:
+//   -Dmusiclibrary.metrics.reportIntervalMs=60000 -Dmusiclibrary.metrics.format=json
+public class MetricsRegistry {
+    public enum Format { TEXT, JSON }
+
+    private static volatile MetricsRegistry instance;
+
+    private static final boolean JMX_ENABLED =
+            Boolean.parseBoolean(System.getProperty("musiclibrary.metrics.jmx", "true"));
+    private static final long REPORT_INTERVAL_MS = Long.getLong("musiclibrary.metrics.reportIntervalMs", 0L);
+    private static final Format REPORT_FORMAT =
+            Format.valueOf(System.getProperty("musiclibrary.metrics.format", "TEXT").toUpperCase());
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reporter;
+    private ScheduledFuture<?> reportTask;
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        MetricsRegistry result = instance;
+        if (result == null) {
+            synchronized (MetricsRegistry.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new MetricsRegistry();
+                    if (REPORT_INTERVAL_MS > 0) {
+                        result.startReporter(REPORT_INTERVAL_MS, REPORT_FORMAT);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Look the operation up once and keep the reference; recording is then lock-free.
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, key -> {
+            OperationMetrics created = new OperationMetrics(key);
+            register(created);
+            return created;
+        });
+    }
+
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparing(OperationMetrics::getName));
+        return sorted;
+    }
+
+    public <T> T time(OperationMetrics operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            operation.recordSuccess(start, rowsOf(result));
+            return result;
+        } catch (RuntimeException | Error e) {
+            operation.recordFailure(start, e);
+            throw e;
+        }
+    }
+
+    public static long rowsOf(Object result) {
+        if (result == null) return 0;
+        if (result instanceof Collection) return ((Collection<?>) result).size();
+        if (result instanceof Map) return ((Map<?, ?>) result).size();
+        if (result instanceof Page) return ((Page<?>) result).getItems().size();
+        if (result instanceof Optional) return ((Optional<?>) result).isPresent() ? 1 : 0;
+        if (result instanceof Boolean || result instanceof Number) return 0;
+        return 1;
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder("=== Operation metrics ===");
+        for (OperationMetrics operation : getOperations()) {
+            text.append(System.lineSeparator()).append(operation);
+        }
+        return text.toString();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"timestamp\":").append(System.currentTimeMillis())
+                .append(",\"operations\":[");
+        boolean first = true;
+        for (OperationMetrics operation : getOperations()) {
+            if (!first) json.append(',');
+            json.append(operation.toJson());
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    public synchronized void startReporter(long intervalMillis, Format format) {
+        stopReporter();
+        if (reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-reporter");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        reportTask = reporter.scheduleAtFixedRate(
+                () -> System.out.println(format == Format.JSON ? toJson() : toText()),
+                intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopReporter() {
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+    }
+
+    private void register(OperationMetrics operation) {
+        if (!JMX_ENABLED) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.musiclibrary:type=Operation,name="
+                    + ObjectName.quote(operation.getName()));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(operation, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            System.err.println("Could not register metrics MBean for " + operation.getName() + ": " + e.getMessage());
+        }
+    }
+}
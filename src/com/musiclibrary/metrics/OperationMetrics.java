@@ -0,0 +1,131 @@
+package com.musiclibrary.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationMetrics implements OperationMetricsMBean {
+    private final String name;
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Map<Class<?>, LongAdder> errorsByType = new ConcurrentHashMap<>();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public void recordSuccess(long startNanos, long rowCount) {
+        latency.record(System.nanoTime() - startNanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    public void recordFailure(long startNanos, Throwable error) {
+        latency.record(System.nanoTime() - startNanos);
+        errors.increment();
+        errorsByType.computeIfAbsent(error.getClass(), type -> new LongAdder()).increment();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> result = new TreeMap<>();
+        errorsByType.forEach((type, count) -> result.put(type.getSimpleName(), count.sum()));
+        return result;
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMeanNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentileNanos(50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latency.getPercentileNanos(90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentileNanos(99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.getPercentileNanos(99.9) / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMaxNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getCallsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds <= 0 ? 0.0 : getCalls() / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[calls=%d (%.1f/s), errors=%d %s, rows=%d, mean=%.1fus, " +
+                        "p50=%.1fus, p90=%.1fus, p99=%.1fus, p99.9=%.1fus, max=%.1fus]",
+                name, getCalls(), getCallsPerSecond(), getErrors(), getErrorsByType(), getRows(),
+                getMeanMicros(), getP50Micros(), getP90Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"name\":\"").append(name).append('"')
+                .append(",\"calls\":").append(getCalls())
+                .append(",\"errors\":").append(getErrors())
+                .append(",\"errorsByType\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : getErrorsByType().entrySet()) {
+            if (!first) json.append(',');
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            first = false;
+        }
+        json.append('}')
+                .append(",\"rows\":").append(getRows())
+                .append(",\"meanUs\":").append(round(getMeanMicros()))
+                .append(",\"p50Us\":").append(round(getP50Micros()))
+                .append(",\"p90Us\":").append(round(getP90Micros()))
+                .append(",\"p99Us\":").append(round(getP99Micros()))
+                .append(",\"p999Us\":").append(round(getP999Micros()))
+                .append(",\"maxUs\":").append(round(getMaxMicros()))
+                .append('}');
+        return json.toString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
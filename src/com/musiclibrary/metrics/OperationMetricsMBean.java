@@ -0,0 +1,18 @@
+package com.musiclibrary.metrics;
+
+import java.util.Map;
+
+public interface OperationMetricsMBean {
+    String getName();
+    long getCalls();
+    long getErrors();
+    Map<String, Long> getErrorsByType();
+    long getRows();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP90Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+    double getCallsPerSecond();
+}
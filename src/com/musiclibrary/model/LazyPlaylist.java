@@ -0,0 +1,91 @@
+package com.musiclibrary.model;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Playlist header plus the ordered media ids only. Tracks are fetched a page at a time
+// through the loader, so opening a huge playlist costs one small query.
+public class LazyPlaylist {
+    private final int id;
+    private final String name;
+    private final String description;
+    private final int[] mediaIds;
+    private final int[] positions;
+    private final Function<Collection<Integer>, Map<Integer, Media>> loader;
+
+    public LazyPlaylist(int id, String name, String description, int[] mediaIds, int[] positions,
+                        Function<Collection<Integer>, Map<Integer, Media>> loader) {
+        if (mediaIds.length != positions.length) {
+            throw new IllegalArgumentException("Media ids and positions must have the same length");
+        }
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.mediaIds = mediaIds;
+        this.positions = positions;
+        this.loader = loader;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+
+    public int size() {
+        return mediaIds.length;
+    }
+
+    public int getMediaId(int index) {
+        return mediaIds[index];
+    }
+
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    // Read-only window onto the id array; nothing is copied.
+    public IntBuffer getMediaIds(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        return IntBuffer.wrap(mediaIds, fromIndex, toIndex - fromIndex).slice().asReadOnlyBuffer();
+    }
+
+    public List<Playlist.PlaylistItem> getItems(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        List<Integer> ids = new ArrayList<>(toIndex - fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) {
+            ids.add(mediaIds[i]);
+        }
+        Map<Integer, Media> loaded = loader.apply(ids);
+
+        List<Playlist.PlaylistItem> items = new ArrayList<>(ids.size());
+        for (int i = fromIndex; i < toIndex; i++) {
+            Media media = loaded.get(mediaIds[i]);
+            if (media != null) {
+                items.add(new Playlist.PlaylistItem(media, positions[i]));
+            }
+        }
+        return items;
+    }
+
+    public List<Playlist.PlaylistItem> getPage(int pageNumber, int pageSize) {
+        int from = Math.min(size(), pageNumber * pageSize);
+        return getItems(from, Math.min(size(), from + pageSize));
+    }
+
+    public Playlist toPlaylist() {
+        Playlist playlist = new Playlist(id, name, description);
+        for (Playlist.PlaylistItem item : getItems(0, size())) {
+            playlist.addMedia(item.getMedia());
+        }
+        return playlist;
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > mediaIds.length || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") out of bounds for size " + mediaIds.length);
+        }
+    }
+}
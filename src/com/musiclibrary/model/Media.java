@@ -22,10 +22,13 @@ public abstract class Media implements Validatable {
 
     public abstract Map<String, String> getMetadata();
 
+    // Detached copy, for holders (caches, indexes) that must not share instances with callers.
+    public abstract Media copy();
+
     public String getDurationFormatted() {
         int minutes = duration / 60;
         int seconds = duration % 60;
-        return String.format("%d:%02d", minutes, seconds);
+        return minutes + (seconds >= 0 && seconds < 10 ? ":0" : ":") + seconds;
     }
 
     public int getId() { return id; }
@@ -72,6 +75,6 @@ public abstract class Media implements Validatable {
     }
 
     public String getBasicInfo() {
-        return String.format("%s by %s (%d)", title, artist, releaseYear);
+        return title + " by " + artist + " (" + releaseYear + ")";
     }
 }
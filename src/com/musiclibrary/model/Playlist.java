@@ -1,6 +1,7 @@
 package com.musiclibrary.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Playlist {
@@ -45,7 +46,7 @@ public class Playlist {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public List<PlaylistItem> getItems() { return new ArrayList<>(items); }
+    public List<PlaylistItem> getItems() { return Collections.unmodifiableList(items); }
 
     public static class PlaylistItem {
         private Media media;
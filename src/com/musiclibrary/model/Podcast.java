@@ -24,12 +24,11 @@ public class Podcast extends Media {
 
     @Override
     public String getAdditionalInfo() {
-        return String.format("Host: %s | Category: %s | Episode: %d",
-                host, category, episodeNumber);
+        return "Host: " + host + " | Category: " + category + " | Episode: " + episodeNumber;
     }
     @Override
     public Map<String, String> getMetadata() {
-        Map<String, String> metadata = new HashMap<>();
+        Map<String, String> metadata = new HashMap<>(8);
         metadata.put("type", "Podcast");
         metadata.put("host", host);
         metadata.put("category", category);
@@ -39,6 +38,12 @@ public class Podcast extends Media {
         return metadata;
     }
 
+    @Override
+    public Podcast copy() {
+        return new Podcast(getId(), getTitle(), getArtist(), getDuration(), getReleaseYear(),
+                host, category, episodeNumber, description);
+    }
+
     public String getHost() { return host; }
     public void setHost(String host) { this.host = host; }
 
@@ -57,8 +62,7 @@ public class Podcast extends Media {
     public void setDescription(String description) { this.description = description; }
     @Override
     public String toString() {
-        return super.toString() + String.format(" | Host: %s | Episode: %d",
-                host, episodeNumber);
+        return super.toString() + " | Host: " + host + " | Episode: " + episodeNumber;
     }
 
     @Override
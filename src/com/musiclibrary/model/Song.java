@@ -22,11 +22,11 @@ public class Song extends Media {
 
     @Override
     public String getAdditionalInfo() {
-        return String.format("Album: %s | Genre: %s | Track: %d", album, genre, trackNumber);
+        return "Album: " + album + " | Genre: " + genre + " | Track: " + trackNumber;
     }
     @Override
     public Map<String, String> getMetadata() {
-        Map<String, String> metadata = new HashMap<>();
+        Map<String, String> metadata = new HashMap<>(8);
         metadata.put("type", "Song");
         metadata.put("album", album);
         metadata.put("genre", genre);
@@ -34,6 +34,11 @@ public class Song extends Media {
         metadata.put("duration", getDurationFormatted());
         return metadata;
     }
+
+    @Override
+    public Song copy() {
+        return new Song(getId(), getTitle(), getArtist(), getDuration(), getReleaseYear(), album, genre, trackNumber);
+    }
     public String getAlbum() { return album; }
     public void setAlbum(String album) { this.album = album; }
 
@@ -49,6 +54,6 @@ public class Song extends Media {
     }
     @Override
     public String toString() {
-        return super.toString() + String.format(" | Album: %s | Genre: %s", album, genre);
+        return super.toString() + " | Album: " + album + " | Genre: " + genre;
     }
 }
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.musiclibrary.playback;
+
+import com.musiclibrary.exception.ResourceNotFoundException;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.utils.VirtualThreads;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Session-scoped playback. Each listener gets a PlaybackSession with its own track, queue
+// and position. Nothing runs per session while a track plays: one scheduler thread holds an
+// end-of-track deadline per playing session and hands the advance to a worker, and workers
+// (virtual threads where available) also load metadata for the next PREFETCH queued tracks
+// so that advancing rarely waits on the database. Idle sessions are closed by a sweep,
+// except pinned ones, which live until the engine is closed.
+//   -Dmusiclibrary.playback.prefetch=3 -Dmusiclibrary.playback.idleTimeoutMs=1800000
+public class PlaybackEngine implements AutoCloseable {
+    private static final int PREFETCH = Integer.getInteger("musiclibrary.playback.prefetch", 3);
+    private static final long IDLE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("musiclibrary.playback.idleTimeoutMs", 30 * 60 * 1000L));
+
+    private final SearchableRepository<Media, Integer> repository;
+    private final Map<String, PlaybackSession> sessions = new ConcurrentHashMap<>();
+    private final Set<String> pinned = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    // A null repository limits the engine to media passed in directly.
+    public PlaybackEngine(SearchableRepository<Media, Integer> repository) {
+        this.repository = repository;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "playback-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers = VirtualThreads.newExecutor("playback-worker");
+        long sweepNanos = Math.max(IDLE_TIMEOUT_NANOS / 4, TimeUnit.SECONDS.toNanos(1));
+        scheduler.scheduleWithFixedDelay(this::closeIdleSessions, sweepNanos, sweepNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public PlaybackSession openSession() {
+        return session(UUID.randomUUID().toString());
+    }
+
+    // Returns the existing session with this id or creates it.
+    public PlaybackSession session(String sessionId) {
+        PlaybackSession session = sessions.computeIfAbsent(sessionId, PlaybackSession::new);
+        session.touch();
+        return session;
+    }
+
+    // Like session(), but the idle sweep never closes it.
+    public PlaybackSession pin(String sessionId) {
+        pinned.add(sessionId);
+        return session(sessionId);
+    }
+
+    public Optional<PlaybackSession> findSession(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId));
+    }
+
+    public void closeSession(String sessionId) {
+        PlaybackSession session = sessions.remove(sessionId);
+        if (session != null) {
+            synchronized (session) {
+                session.cancelEndOfTrack();
+                session.state = PlaybackState.STOPPED;
+            }
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // Makes media the session's current track, stopped at position zero.
+    public void select(String sessionId, Media media) {
+        PlaybackSession session = session(sessionId);
+        synchronized (session) {
+            session.cancelEndOfTrack();
+            session.current = media;
+            session.state = PlaybackState.STOPPED;
+            session.positionNanos = 0;
+        }
+    }
+
+    public void play(String sessionId, Media media) {
+        select(sessionId, media);
+        play(sessionId);
+    }
+
+    // Resumes the current track, or starts the next queued one when nothing is selected.
+    // Returns false when there is nothing to play.
+    public boolean play(String sessionId) {
+        PlaybackSession session = session(sessionId);
+        synchronized (session) {
+            if (session.state == PlaybackState.PLAYING) {
+                return true;
+            }
+            if (session.current != null) {
+                startLocked(session);
+                return true;
+            }
+            if (session.queue.isEmpty()) {
+                return false;
+            }
+        }
+        workers.execute(() -> advance(session, -1));
+        return true;
+    }
+
+    public void pause(String sessionId) {
+        PlaybackSession session = touch(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (session.state != PlaybackState.PLAYING) {
+                return;
+            }
+            session.cancelEndOfTrack();
+            session.positionNanos = session.positionNanos(System.nanoTime());
+            session.state = PlaybackState.PAUSED;
+        }
+    }
+
+    public void stop(String sessionId) {
+        PlaybackSession session = touch(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            session.cancelEndOfTrack();
+            session.state = PlaybackState.STOPPED;
+            session.positionNanos = 0;
+        }
+    }
+
+    public void seek(String sessionId, long positionMillis) {
+        PlaybackSession session = touch(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (session.current == null) {
+                return;
+            }
+            long length = TimeUnit.SECONDS.toNanos(session.current.getDuration());
+            session.positionNanos = Math.max(0, Math.min(length, TimeUnit.MILLISECONDS.toNanos(positionMillis)));
+            if (session.state == PlaybackState.PLAYING) {
+                session.cancelEndOfTrack();
+                startLocked(session);
+            }
+        }
+    }
+
+    // Moves to the next queued track; stops when the queue is empty.
+    public void skip(String sessionId) {
+        PlaybackSession session = touch(sessionId);
+        if (session == null) {
+            return;
+        }
+        long generation;
+        synchronized (session) {
+            session.cancelEndOfTrack();
+            generation = session.generation;
+        }
+        workers.execute(() -> advance(session, generation));
+    }
+
+    public void enqueue(String sessionId, Collection<Integer> mediaIds) {
+        PlaybackSession session = session(sessionId);
+        synchronized (session) {
+            session.queue.addAll(mediaIds);
+        }
+        prefetch(session);
+    }
+
+    public void clearQueue(String sessionId) {
+        PlaybackSession session = touch(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            session.queue.clear();
+            session.prefetched.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        for (String id : new ArrayList<>(sessions.keySet())) {
+            closeSession(id);
+        }
+    }
+
+    // Control calls on an unknown session are no-ops rather than creating it.
+    private PlaybackSession touch(String sessionId) {
+        PlaybackSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    private void startLocked(PlaybackSession session) {
+        long now = System.nanoTime();
+        long remaining = TimeUnit.SECONDS.toNanos(session.current.getDuration()) - session.positionNanos;
+        session.state = PlaybackState.PLAYING;
+        session.resumedAtNanos = now;
+        long generation = session.generation;
+        session.endOfTrack = scheduler.schedule(() -> workers.execute(() -> advance(session, generation)),
+                Math.max(0, remaining), TimeUnit.NANOSECONDS);
+    }
+
+    // expectedGeneration -1 advances unconditionally; otherwise only if nothing changed since.
+    private void advance(PlaybackSession session, long expectedGeneration) {
+        while (true) {
+            Integer nextId;
+            Media next;
+            synchronized (session) {
+                if (expectedGeneration >= 0 && session.generation != expectedGeneration) {
+                    return;
+                }
+                session.cancelEndOfTrack();
+                expectedGeneration = session.generation;
+                nextId = session.queue.poll();
+                if (nextId == null) {
+                    session.state = PlaybackState.STOPPED;
+                    session.positionNanos = 0;
+                    return;
+                }
+                next = session.prefetched.remove(nextId);
+            }
+            if (next == null) {
+                next = load(nextId);
+            }
+            synchronized (session) {
+                if (session.generation != expectedGeneration) {
+                    return;
+                }
+                if (next == null) {
+                    // Deleted since it was queued; try the one after it.
+                    continue;
+                }
+                session.current = next;
+                session.positionNanos = 0;
+                startLocked(session);
+            }
+            prefetch(session);
+            return;
+        }
+    }
+
+    private void prefetch(PlaybackSession session) {
+        if (repository == null) {
+            return;
+        }
+        List<Integer> missing = new ArrayList<>(PREFETCH);
+        synchronized (session) {
+            Iterator<Integer> ids = session.queue.iterator();
+            for (int i = 0; i < PREFETCH && ids.hasNext(); i++) {
+                Integer id = ids.next();
+                if (!session.prefetched.containsKey(id)) {
+                    missing.add(id);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        workers.execute(() -> {
+            Map<Integer, Media> loaded;
+            try {
+                loaded = repository.findAllById(missing);
+            } catch (RuntimeException e) {
+                System.err.println("Prefetch failed for session " + session.getId() + ": " + e.getMessage());
+                return;
+            }
+            synchronized (session) {
+                for (Map.Entry<Integer, Media> entry : loaded.entrySet()) {
+                    if (session.queue.contains(entry.getKey())) {
+                        session.prefetched.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        });
+    }
+
+    private Media load(int mediaId) {
+        if (repository == null) {
+            return null;
+        }
+        try {
+            return repository.findById(mediaId).orElse(null);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void closeIdleSessions() {
+        long now = System.nanoTime();
+        for (PlaybackSession session : sessions.values()) {
+            if (session.getState() != PlaybackState.PLAYING && now - session.lastActiveNanos > IDLE_TIMEOUT_NANOS
+                    && !pinned.contains(session.getId())) {
+                closeSession(session.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.musiclibrary.playback;
+
+import com.musiclibrary.model.Media;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// State of one listener. All fields are guarded by the session's own monitor, so sessions
+// never contend with each other. Position comes from System.nanoTime(), which is immune to
+// wall-clock adjustments.
+public class PlaybackSession {
+    private final String id;
+
+    Media current;
+    PlaybackState state = PlaybackState.STOPPED;
+    long positionNanos;
+    long resumedAtNanos;
+    // Bumped on every transition so that a stale end-of-track task can tell it is outdated.
+    long generation;
+    ScheduledFuture<?> endOfTrack;
+    final ArrayDeque<Integer> queue = new ArrayDeque<>();
+    final Map<Integer, Media> prefetched = new HashMap<>();
+    volatile long lastActiveNanos = System.nanoTime();
+
+    PlaybackSession(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized PlaybackState getState() {
+        return state;
+    }
+
+    public synchronized Media getCurrentMedia() {
+        return current;
+    }
+
+    public synchronized long getPositionMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(positionNanos(System.nanoTime()));
+    }
+
+    public synchronized List<Integer> getQueue() {
+        return new ArrayList<>(queue);
+    }
+
+    long positionNanos(long now) {
+        return state == PlaybackState.PLAYING ? positionNanos + (now - resumedAtNanos) : positionNanos;
+    }
+
+    void touch() {
+        lastActiveNanos = System.nanoTime();
+    }
+
+    void cancelEndOfTrack() {
+        generation++;
+        if (endOfTrack != null) {
+            endOfTrack.cancel(false);
+            endOfTrack = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Session " + id + ": " + state
+                + (current != null ? " '" + current.getTitle() + "' at " + getPositionMillis() / 1000 + "s" : "")
+                + ", " + queue.size() + " queued";
+    }
+}
@@ -0,0 +1,7 @@
+package com.musiclibrary.playback;
+
+public enum PlaybackState {
+    STOPPED,
+    PLAYING,
+    PAUSED
+}
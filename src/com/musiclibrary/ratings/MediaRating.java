@@ -0,0 +1,58 @@
+package com.musiclibrary.ratings;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Running rating aggregate for one media item. Only the 1-5 histogram is stored; count and
+// sum are derived from it, so a reader never sees a count that disagrees with the sum.
+public class MediaRating {
+    private final int mediaId;
+    private final LongAdder[] histogram = new LongAdder[RatingStore.MAX_STARS];
+
+    MediaRating(int mediaId) {
+        this.mediaId = mediaId;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+    }
+
+    void add(int stars, long times) {
+        histogram[stars - 1].add(times);
+    }
+
+    public int getMediaId() {
+        return mediaId;
+    }
+
+    // Index 0 holds one-star ratings.
+    public long[] getHistogram() {
+        long[] counts = new long[histogram.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram[i].sum();
+        }
+        return counts;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (long n : getHistogram()) {
+            count += n;
+        }
+        return count;
+    }
+
+    public double getAverage() {
+        long[] counts = getHistogram();
+        long count = 0;
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            sum += counts[i] * (i + 1);
+        }
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("media %d: %.2f from %d ratings", mediaId, getAverage(), getCount());
+    }
+}
@@ -0,0 +1,310 @@
+package com.musiclibrary.ratings;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+import com.musiclibrary.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-media ratings. rate() only bumps in-memory counters and queues the rating; a
+// background thread drains the queue in batches of up to BATCH_SIZE and inserts each batch
+// in one transaction through the database write queue. A full queue blocks raters, which
+// bounds memory when the database falls behind. Aggregates are rebuilt from the ratings
+// table on startup.
+//   -Dmusiclibrary.ratings.flushIntervalMs=200 -Dmusiclibrary.ratings.queueCapacity=100000
+public class RatingStore implements AutoCloseable {
+    public static final int MIN_STARS = 1;
+    public static final int MAX_STARS = 5;
+
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("musiclibrary.ratings.flushIntervalMs", 200L);
+    private static final int QUEUE_CAPACITY = Integer.getInteger("musiclibrary.ratings.queueCapacity", 100_000);
+    private static final int BATCH_SIZE = 5_000;
+    private static final String INSERT_SQL =
+            "INSERT INTO ratings (media_id, stars, rated_at) SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM media WHERE id = ?)";
+
+    private static volatile RatingStore instance;
+
+    private final DatabaseConnection dbConnection;
+    private final Map<Integer, MediaRating> ratings = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingRating> pending;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Pass null for a memory-only store.
+    public RatingStore(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        if (dbConnection == null) {
+            this.pending = null;
+            this.flusher = null;
+            return;
+        }
+        this.pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        load();
+        this.flusher = new Thread(this::flushLoop, "ratings-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static RatingStore getInstance() {
+        RatingStore result = instance;
+        if (result == null) {
+            synchronized (RatingStore.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new RatingStore(DatabaseConnection.getInstance());
+                    Runtime.getRuntime().addShutdownHook(new Thread(result::close, "ratings-shutdown"));
+                }
+            }
+        }
+        return result;
+    }
+
+    public void rate(int mediaId, int stars) {
+        if (stars < MIN_STARS || stars > MAX_STARS) {
+            throw new IllegalArgumentException("Rating must be between " + MIN_STARS + " and " + MAX_STARS);
+        }
+        ratings.computeIfAbsent(mediaId, MediaRating::new).add(stars, 1);
+        if (pending == null) {
+            return;
+        }
+        if (!running) {
+            throw new DatabaseOperationException("Rating store is closed");
+        }
+        try {
+            pending.put(new PendingRating(mediaId, stars, System.currentTimeMillis()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Interrupted while queueing a rating", e);
+        }
+    }
+
+    // Null when the media has never been rated.
+    public MediaRating get(int mediaId) {
+        return ratings.get(mediaId);
+    }
+
+    public long getCount(int mediaId) {
+        MediaRating rating = ratings.get(mediaId);
+        return rating != null ? rating.getCount() : 0;
+    }
+
+    public double getAverage(int mediaId) {
+        MediaRating rating = ratings.get(mediaId);
+        return rating != null ? rating.getAverage() : 0.0;
+    }
+
+    // Highest averages among media with at least minRatings ratings; ties go to the more-rated
+    // item, then the lower id. A bounded heap keeps this O(n log limit).
+    public List<MediaRating> topRated(int limit, long minRatings) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Ranked> order = Comparator.comparingDouble((Ranked r) -> r.average)
+                .thenComparingLong(r -> r.count)
+                .thenComparing(r -> -r.rating.getMediaId());
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(limit + 1, order);
+        for (MediaRating rating : ratings.values()) {
+            long count = rating.getCount();
+            if (count < Math.max(1, minRatings)) {
+                continue;
+            }
+            heap.offer(new Ranked(rating, rating.getAverage(), count));
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<Ranked> best = new ArrayList<>(heap);
+        best.sort(order.reversed());
+        List<MediaRating> result = new ArrayList<>(best.size());
+        for (Ranked ranked : best) {
+            result.add(ranked.rating);
+        }
+        return result;
+    }
+
+    // For media that was deleted: the table rows go with it through ON DELETE CASCADE.
+    public void forget(int mediaId) {
+        ratings.remove(mediaId);
+    }
+
+    // Drops a media item's ratings from memory and the table.
+    public void remove(int mediaId) {
+        ratings.remove(mediaId);
+        if (dbConnection == null) {
+            return;
+        }
+        flush();
+        try {
+            dbConnection.executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM ratings WHERE media_id = ?")) {
+                    ps.setInt(1, mediaId);
+                    return ps.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error deleting ratings: " + e.getMessage(), e);
+        }
+    }
+
+    public int getPendingRatings() {
+        return pending != null ? pending.size() : 0;
+    }
+
+    public long getPersistedRatings() {
+        return persisted.get();
+    }
+
+    // Ratings that could not be stored, either because the media no longer exists or because a batch failed.
+    public long getDroppedRatings() {
+        return dropped.get();
+    }
+
+    // Writes everything queued so far before returning.
+    public synchronized void flush() {
+        if (pending == null) {
+            return;
+        }
+        List<PendingRating> batch = new ArrayList<>(BATCH_SIZE);
+        while (pending.drainTo(batch, BATCH_SIZE) > 0) {
+            persist(batch);
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher == null || !running) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushLoop() {
+        List<PendingRating> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                PendingRating first = pending.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, BATCH_SIZE - 1);
+                synchronized (this) {
+                    persist(batch);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+        // Anything taken off the queue but not yet written goes out with the final flush.
+        if (!batch.isEmpty()) {
+            synchronized (this) {
+                persist(batch);
+            }
+        }
+    }
+
+    // Each batch commits or rolls back as a whole. Ratings that were not stored, because their
+    // media no longer exists or the batch failed, are taken back out of the in-memory aggregates
+    // that rate() already counted them in.
+    private void persist(List<PendingRating> batch) {
+        int[] counts;
+        try {
+            counts = dbConnection.executeInTransaction(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+                    for (PendingRating rating : batch) {
+                        ps.setInt(1, rating.mediaId);
+                        ps.setInt(2, rating.stars);
+                        ps.setLong(3, rating.ratedAt);
+                        ps.setInt(4, rating.mediaId);
+                        ps.addBatch();
+                    }
+                    return ps.executeBatch();
+                }
+            });
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error persisting " + batch.size() + " ratings: " + e.getMessage());
+            counts = new int[batch.size()];
+        }
+
+        int stored = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < counts.length && counts[i] > 0) {
+                stored++;
+            } else {
+                PendingRating rating = batch.get(i);
+                MediaRating aggregate = ratings.get(rating.mediaId);
+                if (aggregate != null) {
+                    aggregate.add(rating.stars, -1);
+                }
+            }
+        }
+        persisted.addAndGet(stored);
+        dropped.addAndGet(batch.size() - stored);
+    }
+
+    private void load() {
+        String sql = "SELECT media_id, stars, COUNT(*) FROM ratings GROUP BY media_id, stars";
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int stars = rs.getInt(2);
+                if (stars >= MIN_STARS && stars <= MAX_STARS) {
+                    ratings.computeIfAbsent(rs.getInt(1), MediaRating::new).add(stars, rs.getLong(3));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error loading ratings: " + e.getMessage(), e);
+        }
+    }
+
+    private static class PendingRating {
+        private final int mediaId;
+        private final int stars;
+        private final long ratedAt;
+
+        PendingRating(int mediaId, int stars, long ratedAt) {
+            this.mediaId = mediaId;
+            this.stars = stars;
+            this.ratedAt = ratedAt;
+        }
+    }
+
+    private static class Ranked {
+        private final MediaRating rating;
+        private final double average;
+        private final long count;
+
+        Ranked(MediaRating rating, double average, long count) {
+            this.rating = rating;
+            this.average = average;
+            this.count = count;
+        }
+    }
+}
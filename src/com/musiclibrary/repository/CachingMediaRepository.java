@@ -0,0 +1,349 @@
+package com.musiclibrary.repository;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.MediaProjection;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QuerySpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Read-through cache in front of another media repository. Lookups by id are served
+// from a size-bounded map; every write goes to the delegate first and then drops the
+// cached entry, so the next read loads what was actually stored.
+// Entries are private copies and callers always get a copy of their own, so mutating a
+// returned Media (or an argument to save/update) never changes what the cache serves.
+// Ids are spread over independently locked segments, each an LRU map holding its share of
+// maxSize, so concurrent hits on different ids rarely contend; eviction is LRU per segment.
+// Each write bumps its segment's generation; a fill is only kept when the segment has not
+// moved since the load started, so a read racing a write cannot cache the row it saw before
+// that write. Writes made by other processes are not seen until the entry's TTL runs out.
+public class CachingMediaRepository implements SearchableRepository<Media, Integer> {
+    private static final int MAX_SEGMENTS = 256;
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    private final SearchableRepository<Media, Integer> delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CachingMediaRepository(SearchableRepository<Media, Integer> delegate, int maxSize,
+                                  long ttl, TimeUnit ttlUnit) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl > 0 ? ttlUnit.toNanos(ttl) : 0;
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_SIZE <= maxSize) {
+            count *= 2;
+        }
+        int segmentSize = (maxSize + count - 1) / count;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+        this.segmentMask = count - 1;
+    }
+
+    public CachingMediaRepository(SearchableRepository<Media, Integer> delegate, int maxSize) {
+        this(delegate, maxSize, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Media> findById(Integer id) {
+        Entry cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached.media.copy());
+        }
+        misses.increment();
+
+        long generation = generation(id);
+        Optional<Media> loaded = delegate.findById(id);
+        loaded.ifPresent(media -> fill(media, generation, true));
+        return loaded;
+    }
+
+    @Override
+    public Map<Integer, Media> findAllById(Collection<Integer> ids) {
+        Map<Integer, Media> result = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            Entry cached = lookup(id);
+            if (cached != null) {
+                hits.increment();
+                result.put(id, cached.media.copy());
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long[] stamp = stamp();
+            Map<Integer, Media> loaded = delegate.findAllById(missing);
+            for (Media media : loaded.values()) {
+                fill(media, stamp[segmentIndex(media.getId())], true);
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        if (lookup(id) != null) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public List<Media> findAll() {
+        long[] stamp = stamp();
+        return refresh(delegate.findAll(), stamp);
+    }
+
+    @Override
+    public List<Media> findByTitle(String title) {
+        long[] stamp = stamp();
+        return refresh(delegate.findByTitle(title), stamp);
+    }
+
+    @Override
+    public List<Media> findByArtist(String artist) {
+        long[] stamp = stamp();
+        return refresh(delegate.findByArtist(artist), stamp);
+    }
+
+    @Override
+    public List<Media> findByYear(int year) {
+        long[] stamp = stamp();
+        return refresh(delegate.findByYear(year), stamp);
+    }
+
+    @Override
+    public List<Media> search(String keyword) {
+        long[] stamp = stamp();
+        return refresh(delegate.search(keyword), stamp);
+    }
+
+    @Override
+    public List<Media> query(QuerySpec spec) {
+        long[] stamp = stamp();
+        List<Media> result = delegate.query(spec);
+        // Narrow projections return partial entities, which must never replace complete ones.
+        return spec.getProjection() == MediaProjection.FULL ? refresh(result, stamp) : result;
+    }
+
+    @Override
+    public List<String> findDistinct(MediaField field, QuerySpec spec) {
+        return delegate.findDistinct(field, spec);
+    }
+
+    @Override
+    public List<GroupStats> aggregate(MediaField groupBy, QuerySpec spec) {
+        return delegate.aggregate(groupBy, spec);
+    }
+
+    @Override
+    public Page<Media> findPage(QuerySpec spec, PageCursor after, int pageSize) {
+        long[] stamp = stamp();
+        Page<Media> page = delegate.findPage(spec, after, pageSize);
+        if (spec.getProjection() == MediaProjection.FULL) {
+            refresh(page.getItems(), stamp);
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Media> stream(QuerySpec spec, int fetchSize) {
+        return delegate.stream(spec, fetchSize);
+    }
+
+    @Override
+    public Media save(Media entity) {
+        Media saved = delegate.save(entity);
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Media update(Media entity) {
+        try {
+            return delegate.update(entity);
+        } finally {
+            invalidate(entity.getId());
+        }
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    public void invalidate(int id) {
+        Segment segment = segmentFor(id);
+        segment.lock.lock();
+        try {
+            segment.entries.remove(id);
+            segment.generation++;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.entries.clear();
+                segment.generation++;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size, maxSize);
+    }
+
+    private Entry lookup(int id) {
+        Segment segment = segmentFor(id);
+        segment.lock.lock();
+        try {
+            Entry entry = segment.entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (ttlNanos > 0 && System.nanoTime() - entry.loadedNanos > ttlNanos) {
+                segment.entries.remove(id);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    private long generation(int id) {
+        return segmentFor(id).generation;
+    }
+
+    // Generations of every segment, taken before a bulk read.
+    private long[] stamp() {
+        long[] stamp = new long[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            stamp[i] = segments[i].generation;
+        }
+        return stamp;
+    }
+
+    // Caches a copy of a row read from the delegate unless its segment was written since the
+    // read began. Without admit, only ids that are already cached are refreshed.
+    private void fill(Media media, long generation, boolean admit) {
+        if (media == null || media.getId() <= 0) {
+            return;
+        }
+        int id = media.getId();
+        Segment segment = segmentFor(id);
+        segment.lock.lock();
+        try {
+            if (segment.generation == generation && (admit || segment.entries.containsKey(id))) {
+                segment.entries.put(id, new Entry(media.copy()));
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    // Bulk reads refresh entries already in the cache but never flood it with a full scan.
+    private List<Media> refresh(List<Media> mediaList, long[] stamp) {
+        for (Media media : mediaList) {
+            fill(media, stamp[segmentIndex(media.getId())], false);
+        }
+        return mediaList;
+    }
+
+    private Segment segmentFor(int id) {
+        return segments[segmentIndex(id)];
+    }
+
+    // Mixes the high bits in so that ids sharing low bits still spread across segments.
+    private int segmentIndex(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+
+    private class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Integer, Entry> entries;
+        // Written under lock; volatile so stamps can be read without it.
+        private volatile long generation;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private static class Entry {
+        private final Media media;
+        private final long loadedNanos = System.nanoTime();
+
+        Entry(Media media) {
+            this.media = media;
+        }
+    }
+}
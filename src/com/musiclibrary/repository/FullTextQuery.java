@@ -0,0 +1,131 @@
+package com.musiclibrary.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Turns user search text into an FTS5 MATCH expression.
+//   rock            -> prefix match on every indexed column
+//   artist:queen    -> prefix match on the artist column only
+//   "bohemian rha"  -> phrase match, last word as prefix
+//   title:"a day"   -> phrase match scoped to the title column
+// Every clause must match (implicit AND).
+public class FullTextQuery {
+    public static final List<String> COLUMNS = List.of("title", "artist", "album", "genre", "host", "category");
+    private static final Set<String> FIELDS = Set.copyOf(COLUMNS);
+
+    private final List<String> clauses = new ArrayList<>();
+
+    private FullTextQuery() {
+    }
+
+    public static FullTextQuery parse(String text) {
+        FullTextQuery query = new FullTextQuery();
+        if (text == null) {
+            return query;
+        }
+
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+            if (i >= length) break;
+
+            String field = null;
+            int colon = findFieldSeparator(text, i);
+            if (colon > i) {
+                String candidate = text.substring(i, colon).toLowerCase(Locale.ROOT);
+                if (FIELDS.contains(candidate)) {
+                    field = candidate;
+                    i = colon + 1;
+                }
+            }
+
+            String value;
+            boolean phrase = i < length && text.charAt(i) == '"';
+            if (phrase) {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) end = length;
+                value = text.substring(i + 1, end);
+                i = Math.min(length, end + 1);
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(text.charAt(end))) end++;
+                value = text.substring(i, end);
+                i = end;
+            }
+
+            query.addClause(field, value, phrase);
+        }
+        return query;
+    }
+
+    public static FullTextQuery phrase(String field, String value) {
+        FullTextQuery query = new FullTextQuery();
+        query.addClause(field, value, true);
+        return query;
+    }
+
+    private static int findFieldSeparator(String text, int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ':') return i;
+            if (!Character.isLetter(c)) return -1;
+        }
+        return -1;
+    }
+
+    private void addClause(String field, String value, boolean phrase) {
+        boolean prefix = !phrase || value.endsWith("*");
+        List<String> words = words(value);
+        if (words.isEmpty()) {
+            return;
+        }
+
+        String scope = field != null ? field + " : " : "";
+        if (phrase) {
+            clauses.add(scope + quote(String.join(" ", words)) + (prefix ? "*" : ""));
+        } else {
+            // unicode61 splits "ac/dc" into two tokens, so each piece becomes its own term.
+            for (String word : words) {
+                clauses.add(scope + quote(word) + "*");
+            }
+        }
+    }
+
+    private static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                words.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            words.add(current.toString());
+        }
+        return words;
+    }
+
+    private static String quote(String term) {
+        return '"' + term.replace("\"", "\"\"") + '"';
+    }
+
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    public String toMatchExpression() {
+        return String.join(" AND ", clauses);
+    }
+
+    @Override
+    public String toString() {
+        return toMatchExpression();
+    }
+}
@@ -1,6 +1,12 @@
 package com.musiclibrary.repository;
 
 import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.MediaProjection;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QuerySpec;
 import java.util.Optional;
 import java.util.ArrayList;
 
@@ -10,8 +16,21 @@ import com.musiclibrary.utils.DatabaseConnection;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MediaRepositoryImpl implements SearchableRepository<Media, Integer> {
+    private static final int DEFAULT_SEARCH_LIMIT = 200;
+    private static final int NO_LIMIT = -1;
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    public static final String INSERT_SQL = "INSERT INTO media (title, artist, duration, release_year, media_type, " +
+            "album, genre, track_number, host, category, episode_number, description) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_FULL = "SELECT " + MediaRowMapper.columns(MediaProjection.FULL, null) + " FROM media";
+
     private final DatabaseConnection dbConnection;
 
     public MediaRepositoryImpl() {
@@ -20,56 +39,24 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
 
     @Override
     public Media save(Media media) throws DatabaseOperationException {
-        String sql = "INSERT INTO media (title, artist, duration, release_year, media_type, " +
-                "album, genre, track_number, host, category, episode_number, description) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        Connection conn = null;
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-
         try {
-            conn = dbConnection.getConnection();
-            ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-
-            ps.setString(1, media.getTitle());
-            ps.setString(2, media.getArtist());
-            ps.setInt(3, media.getDuration());
-            ps.setInt(4, media.getReleaseYear());
-
-            if (media instanceof Song) {
-                Song song = (Song) media;
-                ps.setString(5, "Song");
-                ps.setString(6, song.getAlbum());
-                ps.setString(7, song.getGenre());
-                ps.setInt(8, song.getTrackNumber());
-                ps.setNull(9, Types.VARCHAR); // host
-                ps.setNull(10, Types.VARCHAR); // category
-                ps.setNull(11, Types.INTEGER); // episode_number
-                ps.setNull(12, Types.VARCHAR); // description
-            } else if (media instanceof Podcast) {
-                Podcast podcast = (Podcast) media;
-                ps.setString(5, "Podcast");
-                ps.setNull(6, Types.VARCHAR); // album
-                ps.setNull(7, Types.VARCHAR); // genre
-                ps.setNull(8, Types.INTEGER); // track_number
-                ps.setString(9, podcast.getHost());
-                ps.setString(10, podcast.getCategory());
-                ps.setInt(11, podcast.getEpisodeNumber());
-                ps.setString(12, podcast.getDescription());
-            }
-
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseOperationException("Creating media failed, no rows affected.");
-            }
-
-            rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                media.setId(rs.getInt(1));
-            }
-
-            return media;
+            return dbConnection.executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    bindInsertParameters(ps, media);
+
+                    int affectedRows = ps.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new DatabaseOperationException("Creating media failed, no rows affected.");
+                    }
+
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            media.setId(rs.getInt(1));
+                        }
+                    }
+                    return media;
+                }
+            });
 
         } catch (SQLException e) {
             if (e.getMessage().contains("UNIQUE constraint failed")) {
@@ -77,71 +64,39 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
                         "Media with same title, artist, and album already exists");
             }
             throw new DatabaseOperationException("Error creating media: " + e.getMessage(), e);
-        } finally {
-            dbConnection.closeResources(rs, ps);
         }
     }
 
     public Media create(Media media) throws DatabaseOperationException {
-        String sql = "INSERT INTO media (title, artist, duration, release_year, media_type, " +
-                "album, genre, track_number, host, category, episode_number, description) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        Connection conn = null;
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-
-        try {
-            conn = dbConnection.getConnection();
-            ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-
-            ps.setString(1, media.getTitle());
-            ps.setString(2, media.getArtist());
-            ps.setInt(3, media.getDuration());
-            ps.setInt(4, media.getReleaseYear());
-
-            if (media instanceof Song) {
-                Song song = (Song) media;
-                ps.setString(5, "Song");
-                ps.setString(6, song.getAlbum());
-                ps.setString(7, song.getGenre());
-                ps.setInt(8, song.getTrackNumber());
-                ps.setNull(9, Types.VARCHAR); // host
-                ps.setNull(10, Types.VARCHAR); // category
-                ps.setNull(11, Types.INTEGER); // episode_number
-                ps.setNull(12, Types.VARCHAR); // description
-            } else if (media instanceof Podcast) {
-                Podcast podcast = (Podcast) media;
-                ps.setString(5, "Podcast");
-                ps.setNull(6, Types.VARCHAR); // album
-                ps.setNull(7, Types.VARCHAR); // genre
-                ps.setNull(8, Types.INTEGER); // track_number
-                ps.setString(9, podcast.getHost());
-                ps.setString(10, podcast.getCategory());
-                ps.setInt(11, podcast.getEpisodeNumber());
-                ps.setString(12, podcast.getDescription());
-            }
-
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseOperationException("Creating media failed, no rows affected.");
-            }
-
-            rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                media.setId(rs.getInt(1));
-            }
-
-            return save(media);
+        return save(media);
+    }
 
-        } catch (SQLException e) {
-            if (e.getMessage().contains("UNIQUE constraint failed")) {
-                throw new DuplicateResourceException(
-                        "Media with same title, artist, and album already exists");
-            }
-            throw new DatabaseOperationException("Error creating media: " + e.getMessage(), e);
-        } finally {
-            dbConnection.closeResources(rs, ps);
+    public static void bindInsertParameters(PreparedStatement ps, Media media) throws SQLException {
+        ps.setString(1, media.getTitle());
+        ps.setString(2, media.getArtist());
+        ps.setInt(3, media.getDuration());
+        ps.setInt(4, media.getReleaseYear());
+
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            ps.setString(5, "Song");
+            ps.setString(6, song.getAlbum());
+            ps.setString(7, song.getGenre());
+            ps.setInt(8, song.getTrackNumber());
+            ps.setNull(9, Types.VARCHAR); // host
+            ps.setNull(10, Types.VARCHAR); // category
+            ps.setNull(11, Types.INTEGER); // episode_number
+            ps.setNull(12, Types.VARCHAR); // description
+        } else if (media instanceof Podcast) {
+            Podcast podcast = (Podcast) media;
+            ps.setString(5, "Podcast");
+            ps.setNull(6, Types.VARCHAR); // album
+            ps.setNull(7, Types.VARCHAR); // genre
+            ps.setNull(8, Types.INTEGER); // track_number
+            ps.setString(9, podcast.getHost());
+            ps.setString(10, podcast.getCategory());
+            ps.setInt(11, podcast.getEpisodeNumber());
+            ps.setString(12, podcast.getDescription());
         }
     }
     @Override
@@ -154,7 +109,7 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
         }
     }
     public Media getById(int id) throws ResourceNotFoundException {
-        String sql = "SELECT * FROM media WHERE id = ?";
+        String sql = SELECT_FULL + " WHERE id = ?";
 
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -163,7 +118,7 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
             ResultSet rs = ps.executeQuery();
 
             if (rs.next()) {
-                return mapResultSetToMedia(rs);
+                return MediaRowMapper.FULL.map(rs);
             } else {
                 throw new ResourceNotFoundException("Media with ID " + id + " not found");
             }
@@ -172,12 +127,42 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
             throw new DatabaseOperationException("Error retrieving media: " + e.getMessage(), e);
         }
     }
+    @Override
+    public Map<Integer, Media> findAllById(Collection<Integer> ids) {
+        Map<Integer, Media> result = new HashMap<>();
+        List<Integer> idList = new ArrayList<>(ids);
+
+        try (Connection conn = dbConnection.getConnection()) {
+            for (int from = 0; from < idList.size(); from += MAX_IN_PARAMETERS) {
+                List<Integer> chunk = idList.subList(from, Math.min(idList.size(), from + MAX_IN_PARAMETERS));
+                String sql = SELECT_FULL + " WHERE id IN (" +
+                        String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            Media media = MediaRowMapper.FULL.map(rs);
+                            result.put(media.getId(), media);
+                        }
+                    }
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error retrieving media by ids: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<Media> findAll() {
         return getAll();
     }
     public List<Media> getAll() {
-        String sql = "SELECT * FROM media ORDER BY title";
+        String sql = SELECT_FULL + " ORDER BY title";
         List<Media> mediaList = new ArrayList<>();
 
         try (Connection conn = dbConnection.getConnection();
@@ -185,7 +170,7 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                mediaList.add(mapResultSetToMedia(rs));
+                mediaList.add(MediaRowMapper.FULL.map(rs));
             }
 
             return mediaList;
@@ -203,43 +188,45 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
                 "album = ?, genre = ?, track_number = ?, host = ?, category = ?, " +
                 "episode_number = ?, description = ? WHERE id = ?";
 
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, media.getTitle());
-            ps.setString(2, media.getArtist());
-            ps.setInt(3, media.getDuration());
-            ps.setInt(4, media.getReleaseYear());
-
-            if (media instanceof Song) {
-                Song song = (Song) media;
-                ps.setString(5, song.getAlbum());
-                ps.setString(6, song.getGenre());
-                ps.setInt(7, song.getTrackNumber());
-                ps.setNull(8, Types.VARCHAR);
-                ps.setNull(9, Types.VARCHAR);
-                ps.setNull(10, Types.INTEGER);
-                ps.setNull(11, Types.VARCHAR);
-            } else if (media instanceof Podcast) {
-                Podcast podcast = (Podcast) media;
-                ps.setNull(5, Types.VARCHAR);
-                ps.setNull(6, Types.VARCHAR);
-                ps.setNull(7, Types.INTEGER);
-                ps.setString(8, podcast.getHost());
-                ps.setString(9, podcast.getCategory());
-                ps.setInt(10, podcast.getEpisodeNumber());
-                ps.setString(11, podcast.getDescription());
-            }
-
-            ps.setInt(12, id);
-
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new ResourceNotFoundException("Media with ID " + id + " not found for update");
-            }
-
-            media.setId(id);
-            return media;
+        try {
+            return dbConnection.executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, media.getTitle());
+                    ps.setString(2, media.getArtist());
+                    ps.setInt(3, media.getDuration());
+                    ps.setInt(4, media.getReleaseYear());
+
+                    if (media instanceof Song) {
+                        Song song = (Song) media;
+                        ps.setString(5, song.getAlbum());
+                        ps.setString(6, song.getGenre());
+                        ps.setInt(7, song.getTrackNumber());
+                        ps.setNull(8, Types.VARCHAR);
+                        ps.setNull(9, Types.VARCHAR);
+                        ps.setNull(10, Types.INTEGER);
+                        ps.setNull(11, Types.VARCHAR);
+                    } else if (media instanceof Podcast) {
+                        Podcast podcast = (Podcast) media;
+                        ps.setNull(5, Types.VARCHAR);
+                        ps.setNull(6, Types.VARCHAR);
+                        ps.setNull(7, Types.INTEGER);
+                        ps.setString(8, podcast.getHost());
+                        ps.setString(9, podcast.getCategory());
+                        ps.setInt(10, podcast.getEpisodeNumber());
+                        ps.setString(11, podcast.getDescription());
+                    }
+
+                    ps.setInt(12, id);
+
+                    int affectedRows = ps.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new ResourceNotFoundException("Media with ID " + id + " not found for update");
+                    }
+
+                    media.setId(id);
+                    return media;
+                }
+            });
 
         } catch (SQLException e) {
             throw new DatabaseOperationException("Error updating media: " + e.getMessage(), e);
@@ -248,7 +235,7 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
     @Override
     public boolean delete(Integer id) {
         try {
-            delete(id);
+            delete(id.intValue());
             return true;
         } catch (Exception e) {
             return false;
@@ -257,11 +244,13 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
     public void delete(int id) throws ResourceNotFoundException {
         String sql = "DELETE FROM media WHERE id = ?";
 
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, id);
-            int affectedRows = ps.executeUpdate();
+        try {
+            int affectedRows = dbConnection.executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate();
+                }
+            });
 
             if (affectedRows == 0) {
                 throw new ResourceNotFoundException("Media with ID " + id + " not found for deletion");
@@ -291,47 +280,351 @@ public class MediaRepositoryImpl implements SearchableRepository<Media, Integer>
 
     @Override
     public List<Media> findByTitle(String title) {
-        return search("title:" + title);
+        return search(FullTextQuery.phrase("title", title), NO_LIMIT);
     }
 
     @Override
     public List<Media> findByArtist(String artist) {
-        return search("artist:" + artist);
+        return search(FullTextQuery.phrase("artist", artist), NO_LIMIT);
     }
 
     @Override
     public List<Media> findByYear(int year) {
+        return query(QuerySpec.all().releaseYear(year).orderBy(MediaField.TITLE));
+    }
+
+    @Override
+    public List<Media> query(QuerySpec spec) {
+        List<Object> params = new ArrayList<>();
+        MediaRowMapper mapper = MediaRowMapper.forProjection(spec.getProjection());
+        StringBuilder sql = new StringBuilder(selectFor(spec));
+        appendWhere(sql, spec, params);
+        appendOrderBy(sql, spec.getOrders());
+        appendLimit(sql, spec, params);
+
         List<Media> result = new ArrayList<>();
-        String sql = "SELECT * FROM media WHERE release_year = ?";
-        return result;
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            bindParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(mapper.map(rs));
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error querying media: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> findDistinct(MediaField field, QuerySpec spec) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT DISTINCT ").append(field.getColumn()).append(" FROM media");
+        appendWhere(sql, spec, params);
+        sql.append(spec.getPredicates().isEmpty() ? " WHERE " : " AND ").append(field.getColumn()).append(" IS NOT NULL");
+        appendOrderBy(sql, spec.getOrders());
+        appendLimit(sql, spec, params);
+
+        List<String> result = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            bindParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getString(1));
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error querying distinct " + field.getColumn() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<GroupStats> aggregate(MediaField groupBy, QuerySpec spec) {
+        List<Object> params = new ArrayList<>();
+        String column = groupBy.getColumn();
+        StringBuilder sql = new StringBuilder("SELECT ").append(column)
+                .append(", COUNT(*), SUM(duration), MIN(duration), MAX(duration) FROM media");
+        appendWhere(sql, spec, params);
+        sql.append(spec.getPredicates().isEmpty() ? " WHERE " : " AND ").append(column).append(" IS NOT NULL");
+        sql.append(" GROUP BY ").append(column).append(" ORDER BY ").append(column);
+        appendLimit(sql, spec, params);
+
+        List<GroupStats> result = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            bindParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new GroupStats(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getInt(4), rs.getInt(5)));
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error aggregating media by " + column + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Page<Media> findPage(QuerySpec spec, PageCursor after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new InvalidInputException("Page size must be positive");
+        }
+        List<QuerySpec.Order> orders = spec.getOrders().isEmpty()
+                ? QuerySpec.all().orderBy(MediaField.TITLE).getOrders()
+                : spec.getOrders();
+        for (QuerySpec.Order order : orders) {
+            if (!order.getField().isAlwaysPresent()) {
+                throw new InvalidInputException("Cannot page by optional field " + order.getField());
+            }
+        }
+
+        List<Object> params = new ArrayList<>();
+        MediaRowMapper mapper = MediaRowMapper.forProjection(spec.getProjection());
+        StringBuilder sql = new StringBuilder(selectFor(spec));
+        appendWhere(sql, spec, params);
+        if (after != null) {
+            sql.append(spec.getPredicates().isEmpty() ? " WHERE " : " AND ");
+            appendSeek(sql, orders, after, params);
+        }
+        appendOrderBy(sql, orders);
+        sql.append(orders.isEmpty() ? " ORDER BY id" : ", id");
+        sql.append(" LIMIT ?");
+        // One extra row tells whether there is a next page.
+        params.add(pageSize < Integer.MAX_VALUE ? pageSize + 1 : pageSize);
+
+        // Grown as rows arrive: pageSize is caller input and says nothing about how many rows exist.
+        List<Media> items = new ArrayList<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+
+            bindParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    items.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error retrieving media page: " + e.getMessage(), e);
+        }
+
+        PageCursor next = null;
+        if (items.size() > pageSize) {
+            items.remove(pageSize);
+            Media last = items.get(pageSize - 1);
+            List<Object> keys = new ArrayList<>(orders.size());
+            for (QuerySpec.Order order : orders) {
+                keys.add(order.getField().extract(last));
+            }
+            next = new PageCursor(keys, last.getId());
+        }
+        return new Page<>(items, next);
+    }
+
+    // Rows strictly after the cursor in (k1, k2, ..., id) order. When every key sorts the
+    // same way a row-value comparison is used, which SQLite can satisfy with a single index seek.
+    private void appendSeek(StringBuilder sql, List<QuerySpec.Order> orders, PageCursor after, List<Object> params) {
+        if (after.getKeys().size() != orders.size()) {
+            throw new InvalidInputException("Page cursor does not match the requested sort order");
+        }
+
+        boolean simple = orders.stream().allMatch(o -> o.isAscending() && !o.isIgnoreCase());
+        if (simple) {
+            sql.append("(");
+            for (QuerySpec.Order order : orders) {
+                sql.append(order.getField().getColumn()).append(", ");
+            }
+            sql.append("id) > (");
+            for (int i = 0; i < orders.size(); i++) {
+                sql.append("?, ");
+                params.add(after.getKeys().get(i));
+            }
+            sql.append("?)");
+            params.add(after.getLastId());
+            return;
+        }
+
+        sql.append("(");
+        for (int i = 0; i <= orders.size(); i++) {
+            if (i > 0) sql.append(" OR ");
+            sql.append("(");
+            for (int j = 0; j < i; j++) {
+                QuerySpec.Order order = orders.get(j);
+                sql.append(order.getField().getColumn()).append(" = ?");
+                if (order.isIgnoreCase()) sql.append(" COLLATE NOCASE");
+                sql.append(" AND ");
+                params.add(after.getKeys().get(j));
+            }
+            if (i < orders.size()) {
+                QuerySpec.Order order = orders.get(i);
+                sql.append(order.getField().getColumn()).append(order.isAscending() ? " > ?" : " < ?");
+                if (order.isIgnoreCase()) sql.append(" COLLATE NOCASE");
+                params.add(after.getKeys().get(i));
+            } else {
+                sql.append("id > ?");
+                params.add(after.getLastId());
+            }
+            sql.append(")");
+        }
+        sql.append(")");
+    }
+
+    @Override
+    public Stream<Media> stream(QuerySpec spec, int fetchSize) {
+        List<Object> params = new ArrayList<>();
+        MediaRowMapper mapper = MediaRowMapper.forProjection(spec.getProjection());
+        StringBuilder sql = new StringBuilder(selectFor(spec));
+        appendWhere(sql, spec, params);
+        appendOrderBy(sql, spec.getOrders());
+        appendLimit(sql, spec, params);
+
+        Connection conn = dbConnection.getDetachedConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(sql.toString());
+            ps.setFetchSize(fetchSize);
+            bindParameters(ps, params);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            dbConnection.closeResources(rs, ps, conn);
+            throw new DatabaseOperationException("Error streaming media: " + e.getMessage(), e);
+        }
+
+        ResultSet cursor = rs;
+        PreparedStatement statement = ps;
+        Spliterator<Media> rows = new Spliterators.AbstractSpliterator<Media>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Media> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DatabaseOperationException("Error streaming media: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false)
+                .onClose(() -> dbConnection.closeResources(cursor, statement, conn));
+    }
+
+    private void appendWhere(StringBuilder sql, QuerySpec spec, List<Object> params) {
+        String separator = " WHERE ";
+        for (QuerySpec.Predicate predicate : spec.getPredicates()) {
+            sql.append(separator).append(predicate.getField().getColumn());
+            switch (predicate.getOperator()) {
+                case EQUALS:
+                    sql.append(" = ?");
+                    break;
+                case EQUALS_IGNORE_CASE:
+                    sql.append(" = ? COLLATE NOCASE");
+                    break;
+                case GREATER_OR_EQUAL:
+                    sql.append(" >= ?");
+                    break;
+                case LESS_OR_EQUAL:
+                    sql.append(" <= ?");
+                    break;
+                case GREATER_THAN:
+                    sql.append(" > ?");
+                    break;
+                case LESS_THAN:
+                    sql.append(" < ?");
+                    break;
+            }
+            params.add(predicate.getValue());
+            separator = " AND ";
+        }
+    }
+
+    private void appendOrderBy(StringBuilder sql, List<QuerySpec.Order> orders) {
+        String separator = " ORDER BY ";
+        for (QuerySpec.Order order : orders) {
+            sql.append(separator).append(order.getField().getColumn());
+            if (order.isIgnoreCase()) {
+                sql.append(" COLLATE NOCASE");
+            }
+            if (!order.isAscending()) {
+                sql.append(" DESC");
+            }
+            separator = ", ";
+        }
+    }
+
+    private void appendLimit(StringBuilder sql, QuerySpec spec, List<Object> params) {
+        if (spec.hasLimit()) {
+            sql.append(" LIMIT ?");
+            params.add(spec.getLimit());
+        }
+    }
+
+    private void bindParameters(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object value = params.get(i);
+            if (value instanceof Integer) {
+                ps.setInt(i + 1, (Integer) value);
+            } else {
+                ps.setString(i + 1, value.toString());
+            }
+        }
     }
 
     @Override
     public List<Media> search(String keyword) {
+        return search(FullTextQuery.parse(keyword), DEFAULT_SEARCH_LIMIT);
+    }
+
+    public List<Media> search(FullTextQuery query, int limit) {
         List<Media> result = new ArrayList<>();
-        String sql = "SELECT * FROM media WHERE title LIKE ? OR artist LIKE ?";
-        return result;
+        if (query.isEmpty()) {
+            return result;
+        }
+
+        // bm25 weights follow FullTextQuery.COLUMNS: title and artist matches rank highest.
+        String sql = "SELECT " + MediaRowMapper.columns(MediaProjection.FULL, "m") +
+                " FROM media_fts f JOIN media m ON m.id = f.rowid " +
+                "WHERE media_fts MATCH ? " +
+                "ORDER BY bm25(media_fts, 10.0, 6.0, 3.0, 1.0, 4.0, 1.0), m.id " +
+                "LIMIT ?";
+
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, query.toMatchExpression());
+            ps.setInt(2, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    result.add(MediaRowMapper.FULL.map(rs));
+                }
+            }
+            return result;
+
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error searching media for '" + query + "': " + e.getMessage(), e);
+        }
     }
 
+    // Slow path for result sets whose column order is not known up front: resolves the
+    // indices on every call. Queries in this class use MediaRowMapper directly.
     public Media mapResultSetToMedia(ResultSet rs) throws SQLException {
-        String mediaType = rs.getString("media_type");
-        int id = rs.getInt("id");
-        String title = rs.getString("title");
-        String artist = rs.getString("artist");
-        int duration = rs.getInt("duration");
-        int releaseYear = rs.getInt("release_year");
-
-        if ("Song".equals(mediaType)) {
-            return new Song(id, title, artist, duration, releaseYear,
-                    rs.getString("album"),
-                    rs.getString("genre"),
-                    rs.getInt("track_number"));
-        } else {
-            return new Podcast(id, title, artist, duration, releaseYear,
-                    rs.getString("host"),
-                    rs.getString("category"),
-                    rs.getInt("episode_number"),
-                    rs.getString("description"));
-        }
+        return MediaRowMapper.resolve(rs.getMetaData()).map(rs);
+    }
+
+    private static String selectFor(QuerySpec spec) {
+        return "SELECT " + MediaRowMapper.columns(spec.getProjection(), null) + " FROM media";
     }
 }
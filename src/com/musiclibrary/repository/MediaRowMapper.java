@@ -0,0 +1,127 @@
+package com.musiclibrary.repository;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.repository.query.MediaProjection;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Maps media rows by column index. Queries select an explicit column list in a fixed
+// order, so the indices are known when the SQL is built and no per-row name lookups happen
+// (sqlite-jdbc lower-cases and hashes the label on every by-name getter call).
+// Low-cardinality text (genre, category, host) is interned so a full scan keeps one
+// String per distinct value instead of one per row.
+public final class MediaRowMapper {
+    private static final String[] COLUMNS = {
+            "id", "title", "artist", "duration", "release_year", "media_type", "album", "genre",
+            "track_number", "host", "category", "episode_number", "description"
+    };
+    private static final int ID = 0, TITLE = 1, ARTIST = 2, DURATION = 3, RELEASE_YEAR = 4, MEDIA_TYPE = 5,
+            ALBUM = 6, GENRE = 7, TRACK_NUMBER = 8, HOST = 9, CATEGORY = 10, EPISODE_NUMBER = 11, DESCRIPTION = 12;
+
+    private static final int MAX_INTERNED = 4_096;
+    private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    public static final MediaRowMapper FULL = at(MediaProjection.FULL, 1);
+    public static final MediaRowMapper LIST = at(MediaProjection.LIST, 1);
+
+    // 1-based JDBC index per column, 0 when the column is not part of the result.
+    private final int[] index;
+
+    private MediaRowMapper(int[] index) {
+        this.index = index;
+    }
+
+    public static MediaRowMapper forProjection(MediaProjection projection) {
+        return projection == MediaProjection.LIST ? LIST : FULL;
+    }
+
+    // For joins: the media columns start at firstIndex in the select list.
+    public static MediaRowMapper at(MediaProjection projection, int firstIndex) {
+        int[] index = new int[COLUMNS.length];
+        int selected = columnCount(projection);
+        for (int i = 0; i < selected; i++) {
+            index[i] = firstIndex + i;
+        }
+        return new MediaRowMapper(index);
+    }
+
+    // For result sets built elsewhere: resolve the indices from the metadata once and
+    // reuse the mapper for every row of that shape.
+    public static MediaRowMapper resolve(ResultSetMetaData metaData) throws SQLException {
+        int[] index = new int[COLUMNS.length];
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            String label = metaData.getColumnLabel(i).toLowerCase(Locale.ROOT);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                if (COLUMNS[c].equals(label)) {
+                    index[c] = i;
+                }
+            }
+        }
+        return new MediaRowMapper(index);
+    }
+
+    // "id, title, ..." or, with an alias, "m.id, m.title, ..." in mapper order.
+    public static String columns(MediaProjection projection, String alias) {
+        String prefix = alias != null ? alias + "." : "";
+        StringBuilder select = new StringBuilder();
+        for (int i = 0; i < columnCount(projection); i++) {
+            if (i > 0) select.append(", ");
+            select.append(prefix).append(COLUMNS[i]);
+        }
+        return select.toString();
+    }
+
+    private static int columnCount(MediaProjection projection) {
+        return projection == MediaProjection.LIST ? DESCRIPTION : COLUMNS.length;
+    }
+
+    public Media map(ResultSet rs) throws SQLException {
+        int id = rs.getInt(index[ID]);
+        String title = rs.getString(index[TITLE]);
+        String artist = rs.getString(index[ARTIST]);
+        int duration = rs.getInt(index[DURATION]);
+        int releaseYear = number(rs, RELEASE_YEAR);
+
+        if ("Song".equals(rs.getString(index[MEDIA_TYPE]))) {
+            return new Song(id, title, artist, duration, releaseYear,
+                    text(rs, ALBUM),
+                    intern(text(rs, GENRE)),
+                    number(rs, TRACK_NUMBER));
+        }
+        return new Podcast(id, title, artist, duration, releaseYear,
+                intern(text(rs, HOST)),
+                intern(text(rs, CATEGORY)),
+                number(rs, EPISODE_NUMBER),
+                text(rs, DESCRIPTION));
+    }
+
+    private String text(ResultSet rs, int column) throws SQLException {
+        return index[column] > 0 ? rs.getString(index[column]) : null;
+    }
+
+    private int number(ResultSet rs, int column) throws SQLException {
+        return index[column] > 0 ? rs.getInt(index[column]) : 0;
+    }
+
+    static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = INTERNED.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return value;
+        }
+        canonical = INTERNED.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+}
@@ -1,9 +1,17 @@
 package com.musiclibrary.repository;
 
+import com.musiclibrary.metrics.MetricsRegistry;
+import com.musiclibrary.metrics.OperationMetrics;
 import com.musiclibrary.repository.interfaces.CrudRepository;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.MediaProjection;
 import java.util.Optional;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.musiclibrary.model.*;
 import com.musiclibrary.exception.*;
@@ -12,242 +20,412 @@ import com.musiclibrary.utils.DatabaseConnection;
 import java.sql.*;
 
 public class PlaylistRepositoryImpl implements CrudRepository<Playlist, Integer> {
+    private static final int FIRST_MEDIA_COLUMN = 4;
+    private static final MediaRowMapper PLAYLIST_MEDIA = MediaRowMapper.at(MediaProjection.FULL, FIRST_MEDIA_COLUMN);
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final OperationMetrics SAVE_OP = metrics.operation("PlaylistRepository.save");
+    private static final OperationMetrics FIND_BY_ID_OP = metrics.operation("PlaylistRepository.findById");
+    private static final OperationMetrics GET_BY_ID_OP = metrics.operation("PlaylistRepository.getById");
+    private static final OperationMetrics GET_LAZY_BY_ID_OP = metrics.operation("PlaylistRepository.getLazyById");
+    private static final OperationMetrics FIND_ALL_OP = metrics.operation("PlaylistRepository.findAll");
+    private static final OperationMetrics UPDATE_OP = metrics.operation("PlaylistRepository.update");
+    private static final OperationMetrics DELETE_OP = metrics.operation("PlaylistRepository.delete");
+    private static final OperationMetrics EXISTS_BY_ID_OP = metrics.operation("PlaylistRepository.existsById");
+    private static final OperationMetrics COUNT_OP = metrics.operation("PlaylistRepository.count");
+    private static final OperationMetrics ADD_MEDIA_TO_PLAYLIST_OP = metrics.operation("PlaylistRepository.addMediaToPlaylist");
+
     private final DatabaseConnection dbConnection;
+    private final SearchableRepository<Media, Integer> mediaRepository;
 
     public PlaylistRepositoryImpl() {
         this.dbConnection = DatabaseConnection.getInstance();
+        this.mediaRepository = new MediaRepositoryImpl();
     }
 
-@Override
-    public Playlist save (Playlist playlist) {
-        String sql = "INSERT INTO playlists (name, description) VALUES (?, ?)";
+    // Lazy playlists fetch their tracks through mediaRepository, e.g. a CachingMediaRepository.
+    public PlaylistRepositoryImpl(SearchableRepository<Media, Integer> mediaRepository) {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.mediaRepository = mediaRepository;
+    }
 
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    @Override
+    public Playlist save(Playlist playlist) {
+        return metrics.time(SAVE_OP, () -> {
+            String sql = "INSERT INTO playlists (name, description) VALUES (?, ?)";
+
+            try {
+                return dbConnection.executeInTransaction(conn -> {
+                    try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                        ps.setString(1, playlist.getName());
+                        ps.setString(2, playlist.getDescription());
+
+                        int affectedRows = ps.executeUpdate();
+                        if (affectedRows == 0) {
+                            throw new DatabaseOperationException("Creating playlist failed");
+                        }
+
+                        try (ResultSet rs = ps.getGeneratedKeys()) {
+                            if (rs.next()) {
+                                playlist.setId(rs.getInt(1));
+                            }
+                        }
+                    }
+
+                    List<Playlist.PlaylistItem> items = playlist.getItems();
+                    int[] mediaIds = new int[items.size()];
+                    int[] positions = new int[items.size()];
+                    for (int i = 0; i < items.size(); i++) {
+                        mediaIds[i] = items.get(i).getMedia().getId();
+                        positions[i] = items.get(i).getPosition();
+                    }
+                    insertItems(conn, playlist.getId(), mediaIds, positions, items.size());
+
+                    return playlist;
+                });
+
+            } catch (SQLException e) {
+                throw translateWriteError(e, playlist, "Error creating playlist");
+            }
+        });
+    }
 
-            ps.setString(1, playlist.getName());
-            ps.setString(2, playlist.getDescription());
+    public Playlist create(Playlist playlist) {
+        return save(playlist);
+    }
 
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseOperationException("Creating playlist failed");
+    @Override
+    public Optional<Playlist> findById(Integer id) {
+        return metrics.time(FIND_BY_ID_OP, () -> {
+            try {
+                Playlist playlist = getById(id);
+                return Optional.ofNullable(playlist);
+            } catch (ResourceNotFoundException e) {
+                return Optional.empty();
             }
+        });
+    }
+    public Playlist getById(int id) throws ResourceNotFoundException {
+        return metrics.time(GET_BY_ID_OP, () -> {
+            // Playlists and media both have id and description columns, so the columns are listed
+            // explicitly and the media part is read by position.
+            String sql = "SELECT p.id, p.name, p.description, " + MediaRowMapper.columns(MediaProjection.FULL, "m") + " " +
+                    "FROM playlists p " +
+                    "LEFT JOIN playlist_items pi ON p.id = pi.playlist_id " +
+                    "LEFT JOIN media m ON pi.media_id = m.id " +
+                    "WHERE p.id = ? " +
+                    "ORDER BY pi.position";
+
+            try (Connection conn = dbConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setInt(1, id);
+                ResultSet rs = ps.executeQuery();
+
+                if (!rs.next()) {
+                    throw new ResourceNotFoundException("Playlist with ID " + id + " not found");
+                }
 
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                playlist.setId(rs.getInt(1));
-            }
+                Playlist playlist = new Playlist(
+                        rs.getInt(1),
+                        rs.getString(2),
+                        rs.getString(3)
+                );
 
-            for (Playlist.PlaylistItem item : playlist.getItems()) {
-                addMediaToPlaylist(playlist.getId(), item.getMedia().getId(), item.getPosition());
-            }
+                do {
+                    if (rs.getInt(FIRST_MEDIA_COLUMN) != 0) {
+                        playlist.addMedia(PLAYLIST_MEDIA.map(rs));
+                    }
+                } while (rs.next());
 
-            return playlist;
+                return playlist;
 
-        } catch (SQLException e) {
-            if (e.getMessage().contains("UNIQUE constraint failed")) {
-                throw new DuplicateResourceException(
-                        "Playlist with name '" + playlist.getName() + "' already exists");
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error retrieving playlist: " + e.getMessage(), e);
             }
-            throw new DatabaseOperationException("Error creating playlist: " + e.getMessage(), e);
-        }
+        });
     }
-    public Playlist create(Playlist playlist) {
-        String sql = "INSERT INTO playlists (name, description) VALUES (?, ?)";
+    public LazyPlaylist getLazyById(int id) throws ResourceNotFoundException {
+        return metrics.time(GET_LAZY_BY_ID_OP, () -> {
+            String headerSql = "SELECT id, name, description FROM playlists WHERE id = ?";
+            String itemsSql = "SELECT media_id, position FROM playlist_items WHERE playlist_id = ? ORDER BY position";
+
+            try (Connection conn = dbConnection.getConnection()) {
+                String name;
+                String description;
+                try (PreparedStatement ps = conn.prepareStatement(headerSql)) {
+                    ps.setInt(1, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new ResourceNotFoundException("Playlist with ID " + id + " not found");
+                        }
+                        name = rs.getString("name");
+                        description = rs.getString("description");
+                    }
+                }
 
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int[] mediaIds = new int[16];
+                int[] positions = new int[16];
+                int count = 0;
+                try (PreparedStatement ps = conn.prepareStatement(itemsSql)) {
+                    ps.setInt(1, id);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            if (count == mediaIds.length) {
+                                mediaIds = Arrays.copyOf(mediaIds, count * 2);
+                                positions = Arrays.copyOf(positions, count * 2);
+                            }
+                            mediaIds[count] = rs.getInt(1);
+                            positions[count++] = rs.getInt(2);
+                        }
+                    }
+                }
 
-            ps.setString(1, playlist.getName());
-            ps.setString(2, playlist.getDescription());
+                return new LazyPlaylist(id, name, description,
+                        Arrays.copyOf(mediaIds, count), Arrays.copyOf(positions, count),
+                        mediaRepository::findAllById);
 
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new DatabaseOperationException("Creating playlist failed");
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error retrieving playlist: " + e.getMessage(), e);
             }
+        });
+    }
 
-            ResultSet rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                playlist.setId(rs.getInt(1));
-            }
+    @Override
+    public List<Playlist> findAll() {
+        return metrics.time(FIND_ALL_OP, () -> {
+            List<Playlist> playlists = new ArrayList<>();
+            String sql = "SELECT * FROM playlists ORDER BY name";
+
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
+
+                while (rs.next()) {
+                    Playlist playlist = new Playlist(
+                            rs.getInt("id"),
+                            rs.getString("name"),
+                            rs.getString("description")
+                    );
+                    playlists.add(playlist);
+                }
 
-            for (Playlist.PlaylistItem item : playlist.getItems()) {
-                addMediaToPlaylist(playlist.getId(), item.getMedia().getId(), item.getPosition());
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error retrieving all playlists", e);
             }
 
-            return save(playlist);
+            return playlists;
+        });
+    }
 
-        } catch (SQLException e) {
-            if (e.getMessage().contains("UNIQUE constraint failed")) {
-                throw new DuplicateResourceException(
-                        "Playlist with name '" + playlist.getName() + "' already exists");
+    // Writes the header and only the item rows that changed: removed tracks are deleted,
+    // new tracks inserted and tracks whose position moved are updated, all in one transaction.
+    @Override
+    public Playlist update(Playlist playlist) {
+        return metrics.time(UPDATE_OP, () -> {
+            String sql = "UPDATE playlists SET name = ?, description = ? WHERE id = ?";
+
+            try {
+                return dbConnection.executeInTransaction(conn -> {
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setString(1, playlist.getName());
+                        ps.setString(2, playlist.getDescription());
+                        ps.setInt(3, playlist.getId());
+
+                        int affectedRows = ps.executeUpdate();
+                        if (affectedRows == 0) {
+                            throw new ResourceNotFoundException("Playlist with ID " + playlist.getId() + " not found");
+                        }
+                    }
+
+                    Map<Integer, Integer> stored = loadItemPositions(conn, playlist.getId());
+                    List<Playlist.PlaylistItem> items = playlist.getItems();
+
+                    int[] addedIds = new int[items.size()];
+                    int[] addedPositions = new int[items.size()];
+                    int added = 0;
+                    int[] movedIds = new int[items.size()];
+                    int[] movedPositions = new int[items.size()];
+                    int moved = 0;
+
+                    for (Playlist.PlaylistItem item : items) {
+                        int mediaId = item.getMedia().getId();
+                        Integer storedPosition = stored.remove(mediaId);
+                        if (storedPosition == null) {
+                            addedIds[added] = mediaId;
+                            addedPositions[added++] = item.getPosition();
+                        } else if (storedPosition != item.getPosition()) {
+                            movedIds[moved] = mediaId;
+                            movedPositions[moved++] = item.getPosition();
+                        }
+                    }
+
+                    deleteItems(conn, playlist.getId(), stored.keySet());
+                    updateItemPositions(conn, playlist.getId(), movedIds, movedPositions, moved);
+                    insertItems(conn, playlist.getId(), addedIds, addedPositions, added);
+
+                    return playlist;
+                });
+
+            } catch (SQLException e) {
+                throw translateWriteError(e, playlist, "Error updating playlist");
             }
-            throw new DatabaseOperationException("Error creating playlist: " + e.getMessage(), e);
-        }
+        });
     }
 
-    @Override
-    public Optional<Playlist> findById(Integer id) {
-        try {
-            Playlist playlist = getById(id);
-            return Optional.ofNullable(playlist);
-        } catch (ResourceNotFoundException e) {
-            return Optional.empty();
+    private Map<Integer, Integer> loadItemPositions(Connection conn, int playlistId) throws SQLException {
+        String sql = "SELECT media_id, position FROM playlist_items WHERE playlist_id = ?";
+        Map<Integer, Integer> positions = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, playlistId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    positions.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
         }
+        return positions;
     }
-    public Playlist getById(int id) throws ResourceNotFoundException {
-        String sql = "SELECT p.*, pi.media_id, pi.position, m.* " +
-                "FROM playlists p " +
-                "LEFT JOIN playlist_items pi ON p.id = pi.playlist_id " +
-                "LEFT JOIN media m ON pi.media_id = m.id " +
-                "WHERE p.id = ? " +
-                "ORDER BY pi.position";
-
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-
-            if (!rs.next()) {
-                throw new ResourceNotFoundException("Playlist with ID " + id + " not found");
+    private void insertItems(Connection conn, int playlistId, int[] mediaIds, int[] positions, int count)
+            throws SQLException {
+        if (count == 0) return;
+        String sql = "INSERT INTO playlist_items (playlist_id, media_id, position) VALUES (?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                ps.setInt(1, playlistId);
+                ps.setInt(2, mediaIds[i]);
+                ps.setInt(3, positions[i]);
+                ps.addBatch();
             }
-
-            Playlist playlist = new Playlist(
-                    rs.getInt("id"),
-                    rs.getString("name"),
-                    rs.getString("description")
-            );
-
-            do {
-                if (rs.getInt("media_id") != 0) {
-                    Media media = new MediaRepositoryImpl().mapResultSetToMedia(rs);
-                    playlist.addMedia(media);
-                }
-            } while (rs.next());
-
-            return playlist;
-
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error retrieving playlist: " + e.getMessage(), e);
+            ps.executeBatch();
         }
     }
-    @Override
-    public List<Playlist> findAll() {
-        List<Playlist> playlists = new ArrayList<>();
-        String sql = "SELECT * FROM playlists ORDER BY name";
-
-        try (Connection conn = dbConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Playlist playlist = new Playlist(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("description")
-                );
-                playlists.add(playlist);
+    private void updateItemPositions(Connection conn, int playlistId, int[] mediaIds, int[] positions, int count)
+            throws SQLException {
+        if (count == 0) return;
+        String sql = "UPDATE playlist_items SET position = ? WHERE playlist_id = ? AND media_id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                ps.setInt(1, positions[i]);
+                ps.setInt(2, playlistId);
+                ps.setInt(3, mediaIds[i]);
+                ps.addBatch();
             }
-
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error retrieving all playlists", e);
+            ps.executeBatch();
         }
-
-        return playlists;
     }
 
-    @Override
-    public Playlist update(Playlist playlist) {
-        String sql = "UPDATE playlists SET name = ?, description = ? WHERE id = ?";
-
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, playlist.getName());
-            ps.setString(2, playlist.getDescription());
-            ps.setInt(3, playlist.getId());
-
-            int affectedRows = ps.executeUpdate();
-            if (affectedRows == 0) {
-                throw new ResourceNotFoundException("Playlist with ID " + playlist.getId() + " not found");
+    private void deleteItems(Connection conn, int playlistId, Collection<Integer> mediaIds) throws SQLException {
+        if (mediaIds.isEmpty()) return;
+        String sql = "DELETE FROM playlist_items WHERE playlist_id = ? AND media_id = ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int mediaId : mediaIds) {
+                ps.setInt(1, playlistId);
+                ps.setInt(2, mediaId);
+                ps.addBatch();
             }
+            ps.executeBatch();
+        }
+    }
 
-            return playlist;
-
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error updating playlist", e);
+    private RuntimeException translateWriteError(SQLException e, Playlist playlist, String context) {
+        String message = String.valueOf(e.getMessage());
+        if (message.contains("UNIQUE constraint failed")) {
+            if (message.contains("playlist_items")) {
+                return new DuplicateResourceException("Media already exists in this playlist");
+            }
+            return new DuplicateResourceException(
+                    "Playlist with name '" + playlist.getName() + "' already exists");
+        }
+        if (message.contains("FOREIGN KEY constraint failed")) {
+            return new ResourceNotFoundException("Media or playlist not found");
         }
+        return new DatabaseOperationException(context + ": " + message, e);
     }
 
     @Override
     public boolean delete(Integer id) {
-        String sql = "DELETE FROM playlists WHERE id = ?";
-
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, id);
-            int affectedRows = ps.executeUpdate();
-            return affectedRows > 0;
-
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error deleting playlist", e);
-        }
+        return metrics.time(DELETE_OP, () -> {
+            String sql = "DELETE FROM playlists WHERE id = ?";
+
+            try {
+                int affectedRows = dbConnection.executeWrite(conn -> {
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setInt(1, id);
+                        return ps.executeUpdate();
+                    }
+                });
+                return affectedRows > 0;
+
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error deleting playlist", e);
+            }
+        });
     }
 
     @Override
     public boolean existsById(Integer id) {
-        String sql = "SELECT 1 FROM playlists WHERE id = ?";
+        return metrics.time(EXISTS_BY_ID_OP, () -> {
+            String sql = "SELECT 1 FROM playlists WHERE id = ?";
 
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+            try (Connection conn = dbConnection.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            return rs.next();
+                ps.setInt(1, id);
+                ResultSet rs = ps.executeQuery();
+                return rs.next();
 
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error checking playlist existence", e);
-        }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error checking playlist existence", e);
+            }
+        });
     }
 
     @Override
     public long count() {
-        String sql = "SELECT COUNT(*) FROM playlists";
+        return metrics.time(COUNT_OP, () -> {
+            String sql = "SELECT COUNT(*) FROM playlists";
 
-        try (Connection conn = dbConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+            try (Connection conn = dbConnection.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(sql)) {
 
-            return rs.next() ? rs.getLong(1) : 0;
+                return rs.next() ? rs.getLong(1) : 0;
 
-        } catch (SQLException e) {
-            throw new DatabaseOperationException("Error counting playlists", e);
-        }
+            } catch (SQLException e) {
+                throw new DatabaseOperationException("Error counting playlists", e);
+            }
+        });
     }
 
     public void addMediaToPlaylist(int playlistId, int mediaId, int position) {
-        String sql = "INSERT INTO playlist_items (playlist_id, media_id, position) VALUES (?, ?, ?)";
-
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, playlistId);
-            ps.setInt(2, mediaId);
-            ps.setInt(3, position);
-            ps.executeUpdate();
-
-        } catch (SQLException e) {
-            if (e.getMessage().contains("UNIQUE constraint failed")) {
-                throw new DuplicateResourceException(
-                        "Media already exists in this playlist");
-            }
-            if (e.getMessage().contains("FOREIGN KEY constraint failed")) {
-                throw new ResourceNotFoundException("Media or playlist not found");
+        metrics.time(ADD_MEDIA_TO_PLAYLIST_OP, () -> {
+            String sql = "INSERT INTO playlist_items (playlist_id, media_id, position) VALUES (?, ?, ?)";
+
+            try {
+                dbConnection.executeWrite(conn -> {
+                    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                        ps.setInt(1, playlistId);
+                        ps.setInt(2, mediaId);
+                        ps.setInt(3, position);
+                        return ps.executeUpdate();
+                    }
+                });
+
+            } catch (SQLException e) {
+                if (e.getMessage().contains("UNIQUE constraint failed")) {
+                    throw new DuplicateResourceException(
+                            "Media already exists in this playlist");
+                }
+                if (e.getMessage().contains("FOREIGN KEY constraint failed")) {
+                    throw new ResourceNotFoundException("Media or playlist not found");
+                }
+                throw new DatabaseOperationException("Error adding media to playlist: " + e.getMessage(), e);
             }
-            throw new DatabaseOperationException("Error adding media to playlist: " + e.getMessage(), e);
-        }
+            return null;
+        });
     }
 
 }
\ No newline at end of file
@@ -1,10 +1,33 @@
 package com.musiclibrary.repository.interfaces;
 
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QuerySpec;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface SearchableRepository<T, ID> extends CrudRepository<T, ID> {
     List<T> findByTitle(String title);
     List<T> findByArtist(String artist);
     List<T> findByYear(int year);
     List<T> search(String keyword);
+
+    Map<ID, T> findAllById(Collection<ID> ids);
+
+    List<T> query(QuerySpec spec);
+    List<String> findDistinct(MediaField field, QuerySpec spec);
+
+    // Count and duration totals per distinct non-NULL value of groupBy, ordered by that value.
+    List<GroupStats> aggregate(MediaField groupBy, QuerySpec spec);
+
+    // Keyset pagination: pass null for the first page, then the previous page's next cursor.
+    Page<T> findPage(QuerySpec spec, PageCursor after, int pageSize);
+
+    // Rows are mapped lazily as the stream is consumed; close it to release the connection.
+    Stream<T> stream(QuerySpec spec, int fetchSize);
 }
@@ -0,0 +1,48 @@
+package com.musiclibrary.repository.query;
+
+// Row count and duration totals for one group of an aggregate query.
+public class GroupStats {
+    private final String key;
+    private final long count;
+    private final long totalDuration;
+    private final int minDuration;
+    private final int maxDuration;
+
+    public GroupStats(String key, long count, long totalDuration, int minDuration, int maxDuration) {
+        this.key = key;
+        this.count = count;
+        this.totalDuration = totalDuration;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    public double getAverageDuration() {
+        return count == 0 ? 0 : (double) totalDuration / count;
+    }
+
+    public int getMinDuration() {
+        return minDuration;
+    }
+
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d, total=%ds, avg=%.1fs, min=%ds, max=%ds",
+                key, count, totalDuration, getAverageDuration(), minDuration, maxDuration);
+    }
+}
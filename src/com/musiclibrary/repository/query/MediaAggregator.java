@@ -0,0 +1,77 @@
+package com.musiclibrary.repository.query;
+
+import com.musiclibrary.model.Media;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+// In-memory GROUP BY for stores without SQL: one pass over the rows with a mutable
+// accumulator per group, so a parallel stream aggregates per thread and merges maps once
+// at the end. Groups come back ordered by key like the SQL version; NULL keys are skipped.
+public final class MediaAggregator {
+    private MediaAggregator() {
+    }
+
+    public static List<GroupStats> aggregate(Stream<Media> rows, MediaField groupBy, QuerySpec spec) {
+        Predicate<Media> filter = QueryEvaluator.predicate(spec);
+        Map<Object, Accumulator> groups = rows
+                .filter(filter)
+                .collect(Collector.of(
+                        HashMap<Object, Accumulator>::new,
+                        (map, media) -> {
+                            Object key = groupBy.extract(media);
+                            if (key != null) {
+                                map.computeIfAbsent(key, k -> new Accumulator()).add(media.getDuration());
+                            }
+                        },
+                        (left, right) -> {
+                            right.forEach((key, acc) -> left.merge(key, acc, Accumulator::combine));
+                            return left;
+                        }));
+        return toStats(groups, spec);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<GroupStats> toStats(Map<Object, Accumulator> groups, QuerySpec spec) {
+        List<Object> keys = new ArrayList<>(groups.keySet());
+        keys.sort((a, b) -> ((Comparable) a).compareTo(b));
+        int limit = spec.hasLimit() ? Math.min(spec.getLimit(), keys.size()) : keys.size();
+        List<GroupStats> result = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            Object key = keys.get(i);
+            result.add(groups.get(key).toStats(key.toString()));
+        }
+        return result;
+    }
+
+    private static class Accumulator {
+        private long count;
+        private long total;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        void add(int duration) {
+            count++;
+            total += duration;
+            min = Math.min(min, duration);
+            max = Math.max(max, duration);
+        }
+
+        Accumulator combine(Accumulator other) {
+            count += other.count;
+            total += other.total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        GroupStats toStats(String key) {
+            return new GroupStats(key, count, total, min, max);
+        }
+    }
+}
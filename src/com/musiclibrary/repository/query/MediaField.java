@@ -0,0 +1,57 @@
+package com.musiclibrary.repository.query;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+public enum MediaField {
+    ID("id", false, true),
+    TITLE("title", true, true),
+    ARTIST("artist", true, true),
+    DURATION("duration", false, true),
+    RELEASE_YEAR("release_year", false, true),
+    MEDIA_TYPE("media_type", true, true),
+    ALBUM("album", true, false),
+    GENRE("genre", true, false),
+    HOST("host", true, false),
+    CATEGORY("category", true, false);
+
+    private final String column;
+    private final boolean text;
+    private final boolean alwaysPresent;
+
+    MediaField(String column, boolean text, boolean alwaysPresent) {
+        this.column = column;
+        this.text = text;
+        this.alwaysPresent = alwaysPresent;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isText() {
+        return text;
+    }
+
+    // Only fields every row has can serve as keyset pagination keys; NULLs break the seek predicate.
+    public boolean isAlwaysPresent() {
+        return alwaysPresent;
+    }
+
+    public Object extract(Media media) {
+        switch (this) {
+            case ID: return media.getId();
+            case TITLE: return media.getTitle();
+            case ARTIST: return media.getArtist();
+            case DURATION: return media.getDuration();
+            case RELEASE_YEAR: return media.getReleaseYear();
+            case MEDIA_TYPE: return media.getMediaType();
+            case ALBUM: return media instanceof Song ? ((Song) media).getAlbum() : null;
+            case GENRE: return media instanceof Song ? ((Song) media).getGenre() : null;
+            case HOST: return media instanceof Podcast ? ((Podcast) media).getHost() : null;
+            case CATEGORY: return media instanceof Podcast ? ((Podcast) media).getCategory() : null;
+            default: throw new IllegalStateException("Unknown field " + this);
+        }
+    }
+}
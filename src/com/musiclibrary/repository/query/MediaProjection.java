@@ -0,0 +1,9 @@
+package com.musiclibrary.repository.query;
+
+// Which media columns a listing needs. LIST leaves out the podcast description, the only
+// unbounded text column, so list views and scans read far less per row. Entities loaded
+// with LIST have a null description and must not be written back or cached as complete.
+public enum MediaProjection {
+    FULL,
+    LIST
+}
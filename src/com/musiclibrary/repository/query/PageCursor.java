@@ -0,0 +1,51 @@
+package com.musiclibrary.repository.query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+// Position after the last row of a page: its sort key values plus its id as tie-breaker.
+public class PageCursor {
+    private final List<Object> keys;
+    private final int lastId;
+
+    public PageCursor(List<Object> keys, int lastId) {
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        this.lastId = lastId;
+    }
+
+    public List<Object> getKeys() {
+        return keys;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    // Opaque, URL-safe form for handing cursors to clients.
+    public String toToken() {
+        StringBuilder sb = new StringBuilder();
+        for (Object key : keys) {
+            sb.append(key instanceof Integer ? 'i' : 's').append(key).append('\u0000');
+        }
+        sb.append(lastId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor fromToken(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\u0000", -1);
+            List<Object> keys = new ArrayList<>();
+            for (int i = 0; i < parts.length - 1; i++) {
+                String part = parts[i];
+                keys.add(part.charAt(0) == 'i' ? (Object) Integer.valueOf(part.substring(1)) : part.substring(1));
+            }
+            return new PageCursor(keys, Integer.parseInt(parts[parts.length - 1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.musiclibrary.repository.query;
+
+import com.musiclibrary.model.Media;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Evaluates a QuerySpec against in-memory entities with the same semantics as the SQL
+// translation: BINARY comparisons by default, NOCASE (ASCII-only folding) for
+// EQUALS_IGNORE_CASE and ignore-case orders, NULL never matches a predicate and sorts
+// first in ascending order.
+public final class QueryEvaluator {
+    public static final Comparator<String> NOCASE = (a, b) -> {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (x >= 'A' && x <= 'Z') x += 32;
+                if (y >= 'A' && y <= 'Z') y += 32;
+                if (x != y) return x - y;
+            }
+        }
+        return a.length() - b.length();
+    };
+
+    private QueryEvaluator() {
+    }
+
+    public static Predicate<Media> predicate(QuerySpec spec) {
+        List<QuerySpec.Predicate> predicates = spec.getPredicates();
+        return media -> {
+            for (QuerySpec.Predicate predicate : predicates) {
+                if (!matches(predicate, predicate.getField().extract(media))) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static boolean matches(QuerySpec.Predicate predicate, Object value) {
+        if (value == null) {
+            return false;
+        }
+        int cmp = predicate.getOperator() == QuerySpec.Operator.EQUALS_IGNORE_CASE
+                ? NOCASE.compare(value.toString(), predicate.getValue().toString())
+                : compareValues(value, predicate.getValue());
+        switch (predicate.getOperator()) {
+            case EQUALS:
+            case EQUALS_IGNORE_CASE:
+                return cmp == 0;
+            case GREATER_OR_EQUAL:
+                return cmp >= 0;
+            case LESS_OR_EQUAL:
+                return cmp <= 0;
+            case GREATER_THAN:
+                return cmp > 0;
+            case LESS_THAN:
+                return cmp < 0;
+            default:
+                throw new IllegalStateException("Unknown operator " + predicate.getOperator());
+        }
+    }
+
+    // Orders plus id as the final tie-breaker, as keyset pagination requires.
+    public static Comparator<Media> comparator(List<QuerySpec.Order> orders) {
+        return (a, b) -> {
+            for (QuerySpec.Order order : orders) {
+                int cmp = compareKey(order, order.getField().extract(a), order.getField().extract(b));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(a.getId(), b.getId());
+        };
+    }
+
+    public static List<Media> apply(QuerySpec spec, Iterable<Media> source) {
+        Predicate<Media> filter = predicate(spec);
+        List<Media> result = new ArrayList<>();
+        for (Media media : source) {
+            if (filter.test(media)) {
+                result.add(media);
+            }
+        }
+        if (!spec.getOrders().isEmpty()) {
+            result.sort(comparator(spec.getOrders()));
+        }
+        if (spec.hasLimit() && result.size() > spec.getLimit()) {
+            return new ArrayList<>(result.subList(0, spec.getLimit()));
+        }
+        return result;
+    }
+
+    // Keyset page over rows already filtered and sorted with comparator(orders).
+    public static Page<Media> page(List<Media> sorted, List<QuerySpec.Order> orders, PageCursor after, int pageSize) {
+        int start = 0;
+        if (after != null) {
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareToCursor(sorted.get(mid), orders, after) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            start = low;
+        }
+        int end = Math.min(sorted.size(), start + pageSize);
+        List<Media> items = new ArrayList<>(sorted.subList(start, end));
+
+        PageCursor next = null;
+        if (end < sorted.size() && !items.isEmpty()) {
+            Media last = items.get(items.size() - 1);
+            List<Object> keys = new ArrayList<>(orders.size());
+            for (QuerySpec.Order order : orders) {
+                keys.add(order.getField().extract(last));
+            }
+            next = new PageCursor(keys, last.getId());
+        }
+        return new Page<>(items, next);
+    }
+
+    private static int compareToCursor(Media media, List<QuerySpec.Order> orders, PageCursor cursor) {
+        for (int i = 0; i < orders.size(); i++) {
+            QuerySpec.Order order = orders.get(i);
+            int cmp = compareKey(order, order.getField().extract(media), cursor.getKeys().get(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(media.getId(), cursor.getLastId());
+    }
+
+    private static int compareKey(QuerySpec.Order order, Object a, Object b) {
+        int cmp;
+        if (a == null || b == null) {
+            cmp = a == b ? 0 : (a == null ? -1 : 1);
+        } else if (order.isIgnoreCase() && a instanceof String) {
+            cmp = NOCASE.compare((String) a, (String) b);
+        } else {
+            cmp = compareValues(a, b);
+        }
+        return order.isAscending() ? cmp : -cmp;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+}
@@ -0,0 +1,120 @@
+package com.musiclibrary.repository.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Storage-neutral description of a filtered, ordered media listing. Repositories
+// translate it into their own query language (SQL for MediaRepositoryImpl).
+public class QuerySpec {
+    public enum Operator { EQUALS, EQUALS_IGNORE_CASE, GREATER_OR_EQUAL, LESS_OR_EQUAL, GREATER_THAN, LESS_THAN }
+
+    private final List<Predicate> predicates = new ArrayList<>();
+    private final List<Order> orders = new ArrayList<>();
+    private int limit = -1;
+    private MediaProjection projection = MediaProjection.FULL;
+
+    public static QuerySpec all() {
+        return new QuerySpec();
+    }
+
+    public QuerySpec where(MediaField field, Operator operator, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Predicate value for " + field + " cannot be null");
+        }
+        if (field.isText() != (value instanceof String)) {
+            throw new IllegalArgumentException("Value " + value + " does not match the type of " + field);
+        }
+        predicates.add(new Predicate(field, operator, value));
+        return this;
+    }
+
+    public QuerySpec durationAtLeast(int seconds) {
+        return where(MediaField.DURATION, Operator.GREATER_OR_EQUAL, seconds);
+    }
+
+    public QuerySpec mediaType(String type) {
+        return where(MediaField.MEDIA_TYPE, Operator.EQUALS_IGNORE_CASE, type);
+    }
+
+    public QuerySpec releaseYear(int year) {
+        return where(MediaField.RELEASE_YEAR, Operator.EQUALS, year);
+    }
+
+    public QuerySpec orderBy(MediaField field) {
+        orders.add(new Order(field, true, false));
+        return this;
+    }
+
+    public QuerySpec orderByDescending(MediaField field) {
+        orders.add(new Order(field, false, false));
+        return this;
+    }
+
+    public QuerySpec orderByIgnoreCase(MediaField field) {
+        orders.add(new Order(field, true, true));
+        return this;
+    }
+
+    public QuerySpec limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public QuerySpec project(MediaProjection projection) {
+        this.projection = projection;
+        return this;
+    }
+
+    public List<Predicate> getPredicates() {
+        return Collections.unmodifiableList(predicates);
+    }
+
+    public List<Order> getOrders() {
+        return Collections.unmodifiableList(orders);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit >= 0;
+    }
+
+    public MediaProjection getProjection() {
+        return projection;
+    }
+
+    public static class Predicate {
+        private final MediaField field;
+        private final Operator operator;
+        private final Object value;
+
+        Predicate(MediaField field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public MediaField getField() { return field; }
+        public Operator getOperator() { return operator; }
+        public Object getValue() { return value; }
+    }
+
+    public static class Order {
+        private final MediaField field;
+        private final boolean ascending;
+        private final boolean ignoreCase;
+
+        Order(MediaField field, boolean ascending, boolean ignoreCase) {
+            this.field = field;
+            this.ascending = ascending;
+            this.ignoreCase = ignoreCase;
+        }
+
+        public MediaField getField() { return field; }
+        public boolean isAscending() { return ascending; }
+        public boolean isIgnoreCase() { return ignoreCase; }
+    }
+}
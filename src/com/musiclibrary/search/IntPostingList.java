@@ -0,0 +1,177 @@
+package com.musiclibrary.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Sorted, duplicate-free list of ints backed by a growable primitive array.
+public class IntPostingList {
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public IntPostingList() {
+        this.values = EMPTY;
+    }
+
+    private IntPostingList(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    public boolean add(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public IntPostingList intersect(IntPostingList other) {
+        int[] result = new int[Math.min(size, other.size)];
+        int i = 0, j = 0, n = 0;
+        while (i < size && j < other.size) {
+            int a = values[i];
+            int b = other.values[j];
+            if (a == b) {
+                result[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new IntPostingList(result, n);
+    }
+
+    public IntPostingList union(IntPostingList other) {
+        int[] result = new int[size + other.size];
+        int i = 0, j = 0, n = 0;
+        while (i < size && j < other.size) {
+            int a = values[i];
+            int b = other.values[j];
+            if (a == b) {
+                result[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                result[n++] = a;
+                i++;
+            } else {
+                result[n++] = b;
+                j++;
+            }
+        }
+        while (i < size) result[n++] = values[i++];
+        while (j < other.size) result[n++] = other.values[j++];
+        return new IntPostingList(result, n);
+    }
+
+    // One k-way merge over every list: O(total * log k) with a single result array, where
+    // folding union() over the lists would copy the growing result once per list.
+    public static IntPostingList unionAll(List<IntPostingList> lists) {
+        if (lists.isEmpty()) {
+            return new IntPostingList();
+        }
+        if (lists.size() == 1) {
+            IntPostingList only = lists.get(0);
+            return new IntPostingList(Arrays.copyOf(only.values, only.size), only.size);
+        }
+        int total = 0;
+        for (IntPostingList list : lists) {
+            total += list.size;
+        }
+        int[] result = new int[total];
+        int[] positions = new int[lists.size()];
+        // Min-heap of list indexes ordered by each list's current head.
+        int[] heap = new int[lists.size()];
+        int heapSize = 0;
+        for (int k = 0; k < lists.size(); k++) {
+            if (lists.get(k).size > 0) {
+                heap[heapSize++] = k;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, lists, positions);
+        }
+
+        int n = 0;
+        while (heapSize > 0) {
+            int k = heap[0];
+            IntPostingList list = lists.get(k);
+            int value = list.values[positions[k]];
+            if (n == 0 || result[n - 1] != value) {
+                result[n++] = value;
+            }
+            if (++positions[k] == list.size) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, lists, positions);
+        }
+        return new IntPostingList(result, n);
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int i, List<IntPostingList> lists, int[] positions) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && head(heap[left], lists, positions) < head(heap[smallest], lists, positions)) {
+                smallest = left;
+            }
+            if (right < heapSize && head(heap[right], lists, positions) < head(heap[smallest], lists, positions)) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            int swap = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = swap;
+            i = smallest;
+        }
+    }
+
+    private static int head(int k, List<IntPostingList> lists, int[] positions) {
+        return lists.get(k).values[positions[k]];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,391 @@
+package com.musiclibrary.search;
+
+import com.musiclibrary.interfaces.Searchable;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Song;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over title/artist/album/genre.
+// Each query word matches exactly, as a prefix, or (when nothing else matches) through
+// trigram similarity, so "beatels" still finds "Beatles". All words must match.
+// The index keeps its own copies of the media it is given and hands out copies of those.
+public class MediaSearchIndex implements Searchable<Media> {
+    public enum Field { TITLE, ARTIST, ALBUM, GENRE }
+
+    private static final int FIELD_COUNT = Field.values().length;
+    private static final int ANY_FIELD = FIELD_COUNT;
+    private static final int DEFAULT_LIMIT = 200;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Media> documents = new HashMap<>();
+    private final Map<Integer, int[][]> documentTerms = new HashMap<>();
+
+    private final NavigableMap<String, Integer> termIds = new TreeMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<Integer> termGramCounts = new ArrayList<>();
+    private final List<IntPostingList[]> postings = new ArrayList<>();
+    private final Map<String, IntPostingList> trigramIndex = new HashMap<>();
+    // Ids of terms that lost their last document; termId() hands them out again.
+    private final Deque<Integer> freeTermIds = new ArrayDeque<>();
+
+    public void rebuild(Collection<Media> mediaList) {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            documentTerms.clear();
+            termIds.clear();
+            terms.clear();
+            termGramCounts.clear();
+            postings.clear();
+            trigramIndex.clear();
+            freeTermIds.clear();
+            for (Media media : mediaList) {
+                addDocument(media);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Media media) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(media.getId());
+            addDocument(media);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int mediaId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(mediaId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Media> search(String keyword) {
+        return search(keyword, DEFAULT_LIMIT);
+    }
+
+    public List<Media> search(String keyword, int limit) {
+        List<Clause> clauses = parse(keyword);
+        if (clauses.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            IntPostingList candidates = null;
+            List<ClauseMatch> matches = new ArrayList<>(clauses.size());
+            for (Clause clause : clauses) {
+                ClauseMatch match = match(clause);
+                matches.add(match);
+                candidates = candidates == null ? match.all : candidates.intersect(match.all);
+                if (candidates.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            List<ScoredMedia> scored = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                int id = candidates.get(i);
+                int score = 0;
+                for (ClauseMatch match : matches) {
+                    score += match.score(id);
+                }
+                scored.add(new ScoredMedia(documents.get(id), score));
+            }
+            scored.sort(Comparator.comparingInt((ScoredMedia s) -> -s.score)
+                    .thenComparing(s -> s.media.getTitle(), String.CASE_INSENSITIVE_ORDER));
+
+            List<Media> result = new ArrayList<>(Math.min(limit, scored.size()));
+            for (int i = 0; i < scored.size() && result.size() < limit; i++) {
+                result.add(scored.get(i).media.copy());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ClauseMatch match(Clause clause) {
+        int slot = clause.field != null ? clause.field.ordinal() : ANY_FIELD;
+        IntPostingList exact = new IntPostingList();
+        IntPostingList fuzzy = new IntPostingList();
+
+        Integer exactId = termIds.get(clause.word);
+        if (exactId != null) {
+            exact = postingsFor(exactId, slot);
+        }
+
+        List<IntPostingList> prefixLists = new ArrayList<>();
+        for (Integer termId : termIds.subMap(clause.word, false, clause.word + Character.MAX_VALUE, false).values()) {
+            IntPostingList list = postings.get(termId)[slot];
+            if (list != null && !list.isEmpty()) {
+                prefixLists.add(list);
+            }
+        }
+        IntPostingList prefix = IntPostingList.unionAll(prefixLists);
+
+        if (exact.isEmpty() && prefix.isEmpty() && clause.word.length() >= 3) {
+            List<IntPostingList> fuzzyLists = new ArrayList<>();
+            for (int termId : similarTerms(clause.word)) {
+                IntPostingList list = postings.get(termId)[slot];
+                if (list != null && !list.isEmpty()) {
+                    fuzzyLists.add(list);
+                }
+            }
+            fuzzy = IntPostingList.unionAll(fuzzyLists);
+        }
+        return new ClauseMatch(exact, prefix, fuzzy);
+    }
+
+    private IntPostingList postingsFor(int termId, int slot) {
+        IntPostingList list = postings.get(termId)[slot];
+        return list != null ? list : new IntPostingList();
+    }
+
+    private List<Integer> similarTerms(String word) {
+        Set<String> queryGrams = trigrams(word);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            IntPostingList termList = trigramIndex.get(gram);
+            if (termList == null) continue;
+            for (int i = 0; i < termList.size(); i++) {
+                shared.merge(termList.get(i), 1, Integer::sum);
+            }
+        }
+
+        List<Integer> similar = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            int termGramCount = termGramCounts.get(entry.getKey());
+            double dice = 2.0 * entry.getValue() / (queryGrams.size() + termGramCount);
+            if (dice >= MIN_SIMILARITY) {
+                similar.add(entry.getKey());
+            }
+        }
+        return similar;
+    }
+
+    private void addDocument(Media media) {
+        int id = media.getId();
+        String[] values = fieldValues(media);
+        int[][] perField = new int[FIELD_COUNT][];
+
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            List<String> words = words(values[field]);
+            int[] ids = new int[words.size()];
+            for (int i = 0; i < words.size(); i++) {
+                int termId = termId(words.get(i));
+                ids[i] = termId;
+                IntPostingList[] slots = postings.get(termId);
+                if (slots[field] == null) slots[field] = new IntPostingList();
+                if (slots[ANY_FIELD] == null) slots[ANY_FIELD] = new IntPostingList();
+                slots[field].add(id);
+                slots[ANY_FIELD].add(id);
+            }
+            perField[field] = ids;
+        }
+
+        documents.put(id, media.copy());
+        documentTerms.put(id, perField);
+    }
+
+    private void removeDocument(int id) {
+        int[][] perField = documentTerms.remove(id);
+        documents.remove(id);
+        if (perField == null) {
+            return;
+        }
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            for (int termId : perField[field]) {
+                IntPostingList[] slots = postings.get(termId);
+                if (slots == null) {
+                    continue;
+                }
+                slots[field].remove(id);
+                slots[ANY_FIELD].remove(id);
+                if (slots[ANY_FIELD].isEmpty()) {
+                    dropTerm(termId);
+                }
+            }
+        }
+    }
+
+    // Keeps the term and trigram dictionaries proportional to the live documents under churn.
+    private void dropTerm(int termId) {
+        String word = terms.get(termId);
+        termIds.remove(word);
+        for (String gram : trigrams(word)) {
+            IntPostingList termList = trigramIndex.get(gram);
+            if (termList != null && termList.remove(termId) && termList.isEmpty()) {
+                trigramIndex.remove(gram);
+            }
+        }
+        terms.set(termId, null);
+        postings.set(termId, null);
+        freeTermIds.push(termId);
+    }
+
+    private int termId(String word) {
+        Integer existing = termIds.get(word);
+        if (existing != null) {
+            return existing;
+        }
+        Set<String> grams = trigrams(word);
+        Integer free = freeTermIds.poll();
+        int id;
+        if (free != null) {
+            id = free;
+            terms.set(id, word);
+            postings.set(id, new IntPostingList[FIELD_COUNT + 1]);
+            termGramCounts.set(id, grams.size());
+        } else {
+            id = terms.size();
+            terms.add(word);
+            postings.add(new IntPostingList[FIELD_COUNT + 1]);
+            termGramCounts.add(grams.size());
+        }
+        termIds.put(word, id);
+        for (String gram : grams) {
+            trigramIndex.computeIfAbsent(gram, g -> new IntPostingList()).add(id);
+        }
+        return id;
+    }
+
+    private static String[] fieldValues(Media media) {
+        String[] values = new String[FIELD_COUNT];
+        values[Field.TITLE.ordinal()] = media.getTitle();
+        values[Field.ARTIST.ordinal()] = media.getArtist();
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            values[Field.ALBUM.ordinal()] = song.getAlbum();
+            values[Field.GENRE.ordinal()] = song.getGenre();
+        }
+        return values;
+    }
+
+    // "$" marks word boundaries so that short words and word starts still produce trigrams.
+    private static Set<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return words;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static List<Clause> parse(String keyword) {
+        List<Clause> clauses = new ArrayList<>();
+        if (keyword == null) {
+            return clauses;
+        }
+        for (String token : keyword.trim().split("\\s+")) {
+            Field field = null;
+            int colon = token.indexOf(':');
+            if (colon > 0) {
+                try {
+                    field = Field.valueOf(token.substring(0, colon).toUpperCase(Locale.ROOT));
+                    token = token.substring(colon + 1);
+                } catch (IllegalArgumentException e) {
+                    field = null;
+                }
+            }
+            for (String word : words(token)) {
+                clauses.add(new Clause(field, word));
+            }
+        }
+        return clauses;
+    }
+
+    private static class Clause {
+        private final Field field;
+        private final String word;
+
+        Clause(Field field, String word) {
+            this.field = field;
+            this.word = word;
+        }
+    }
+
+    private static class ClauseMatch {
+        private final IntPostingList exact;
+        private final IntPostingList prefix;
+        private final IntPostingList all;
+
+        ClauseMatch(IntPostingList exact, IntPostingList prefix, IntPostingList fuzzy) {
+            this.exact = exact;
+            this.prefix = prefix;
+            this.all = exact.union(prefix).union(fuzzy);
+        }
+
+        int score(int id) {
+            if (exact.contains(id)) return 3;
+            if (prefix.contains(id)) return 2;
+            return 1;
+        }
+    }
+
+    private static class ScoredMedia {
+        private final Media media;
+        private final int score;
+
+        ScoredMedia(Media media, int score) {
+            this.media = media;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.musiclibrary.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fixed-size heap buffers recycled between writers, so encoding a response or a replication
+// batch does not allocate a fresh staging buffer each time. At most maxPooled idle buffers
+// are kept; extra releases are left to the garbage collector.
+//   -Dmusiclibrary.codec.bufferSize=65536 -Dmusiclibrary.codec.pooledBuffers=64
+public final class BufferPool {
+    public static final BufferPool DEFAULT = new BufferPool(
+            Integer.getInteger("musiclibrary.codec.bufferSize", 64 * 1024),
+            Integer.getInteger("musiclibrary.codec.pooledBuffers", 64));
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    // Cleared and ready for writing.
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    // The caller must not touch the buffer afterwards.
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize || buffer.isReadOnly()) {
+            return;
+        }
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        free.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getPooled() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.musiclibrary.serialization;
+
+import java.io.ByteArrayOutputStream;
+
+// A field name encoded once as the UTF-8 bytes of "name": so writers copy it instead of
+// escaping and encoding it on every record.
+public final class JsonName {
+    private final String name;
+    private final byte[] bytes;
+
+    private JsonName(String name, byte[] bytes) {
+        this.name = name;
+        this.bytes = bytes;
+    }
+
+    public static JsonName of(String name) {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(name.length() + 3);
+        try (JsonOutput out = JsonOutput.to(encoded)) {
+            out.value(name);
+        }
+        encoded.write(':');
+        return new JsonName(name, encoded.toByteArray());
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
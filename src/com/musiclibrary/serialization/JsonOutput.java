@@ -0,0 +1,343 @@
+package com.musiclibrary.serialization;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Streaming UTF-8 JSON writer. Strings are encoded char by char into a scratch buffer that
+// is flushed to the target when full, so no String, char[] or byte[] is created per value.
+// The scratch buffer is borrowed from the calling thread and handed back on close, which
+// makes a writer cheap to open per response; a second writer opened on the same thread
+// while the first is still open gets a buffer of its own.
+// A ByteBuffer target must have room for the whole output (BufferOverflowException otherwise).
+// close() flushes but never closes the target.
+public final class JsonOutput implements Flushable, Closeable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private final OutputStream stream;
+    private final ByteBuffer target;
+    private byte[] buf;
+    private int pos;
+    private boolean[] hasElements = new boolean[8];
+    private int depth;
+    private boolean afterName;
+
+    private JsonOutput(OutputStream stream, ByteBuffer target) {
+        this.stream = stream;
+        this.target = target;
+        byte[] scratch = SCRATCH.get();
+        if (scratch != null) {
+            SCRATCH.set(null);
+            this.buf = scratch;
+        } else {
+            this.buf = new byte[BUFFER_SIZE];
+        }
+    }
+
+    public static JsonOutput to(OutputStream out) {
+        return new JsonOutput(out, null);
+    }
+
+    public static JsonOutput to(ByteBuffer target) {
+        return new JsonOutput(null, target);
+    }
+
+    public JsonOutput beginObject() {
+        beforeValue();
+        put('{');
+        push();
+        return this;
+    }
+
+    public JsonOutput endObject() {
+        depth--;
+        put('}');
+        return this;
+    }
+
+    public JsonOutput beginArray() {
+        beforeValue();
+        put('[');
+        push();
+        return this;
+    }
+
+    public JsonOutput endArray() {
+        depth--;
+        put(']');
+        return this;
+    }
+
+    public JsonOutput name(JsonName name) {
+        beforeValue();
+        put(name.bytes());
+        afterName = true;
+        return this;
+    }
+
+    public JsonOutput name(String name) {
+        beforeValue();
+        string(name);
+        put(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonOutput value(String value) {
+        beforeValue();
+        if (value == null) {
+            put(NULL);
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    public JsonOutput value(long value) {
+        beforeValue();
+        number(value);
+        return this;
+    }
+
+    public JsonOutput value(double value) {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            put(NULL);
+        } else if (value == (long) value && Math.abs(value) < 1e15) {
+            number((long) value);
+            put('.');
+            put('0');
+        } else {
+            String text = Double.toString(value);
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buf[pos++] = (byte) text.charAt(i);
+            }
+        }
+        return this;
+    }
+
+    public JsonOutput value(boolean value) {
+        beforeValue();
+        put(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonOutput nullValue() {
+        beforeValue();
+        put(NULL);
+        return this;
+    }
+
+    public JsonOutput field(JsonName name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(JsonName name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(JsonName name, double value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    public JsonOutput field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (buf == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            SCRATCH.set(buf);
+            buf = null;
+        }
+    }
+
+    private void push() {
+        if (depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        hasElements[depth++] = false;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                put(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void string(String value) {
+        put('"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    if (pos == buf.length) {
+                        drain();
+                    }
+                    buf[pos++] = (byte) c;
+                } else {
+                    escape(c);
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (c == '\u2028' || c == '\u2029') {
+                escape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate has no UTF-8 form; write U+FFFD instead.
+                ensure(3);
+                buf[pos++] = (byte) 0xEF;
+                buf[pos++] = (byte) 0xBF;
+                buf[pos++] = (byte) 0xBD;
+            } else {
+                ensure(3);
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        put('"');
+    }
+
+    private void escape(char c) {
+        ensure(6);
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"': buf[pos++] = '"'; break;
+            case '\\': buf[pos++] = '\\'; break;
+            case '\n': buf[pos++] = 'n'; break;
+            case '\r': buf[pos++] = 'r'; break;
+            case '\t': buf[pos++] = 't'; break;
+            case '\b': buf[pos++] = 'b'; break;
+            case '\f': buf[pos++] = 'f'; break;
+            default:
+                buf[pos++] = 'u';
+                buf[pos++] = HEX[c >> 12];
+                buf[pos++] = HEX[(c >> 8) & 0xF];
+                buf[pos++] = HEX[(c >> 4) & 0xF];
+                buf[pos++] = HEX[c & 0xF];
+        }
+    }
+
+    private void number(long value) {
+        if (value == Long.MIN_VALUE) {
+            put(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+    }
+
+    private void put(char c) {
+        if (pos == buf.length) {
+            drain();
+        }
+        buf[pos++] = (byte) c;
+    }
+
+    private void put(byte[] bytes) {
+        if (bytes.length > buf.length - pos) {
+            drain();
+            if (bytes.length > buf.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void ensure(int bytes) {
+        if (buf.length - pos < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (pos > 0) {
+            write(buf, pos);
+            pos = 0;
+        }
+    }
+
+    private void write(byte[] bytes, int length) {
+        if (target != null) {
+            target.put(bytes, 0, length);
+            return;
+        }
+        try {
+            stream.write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.musiclibrary.serialization;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Cursor over a MediaCodec stream held in a ByteBuffer (heap, direct or mapped). next()
+// only walks the record: numbers are decoded, strings are remembered as offsets into the
+// buffer and turned into Strings when a getter asks for them, so filtering on id, duration
+// or year never decodes text. Dictionary entries are decoded at most once per reader.
+// Reads use absolute positions; the caller's buffer position and limit are left alone.
+public final class MediaBinaryReader {
+    private static final int TITLE = 0;
+    private static final int ARTIST = 1;
+    private static final int SHARED_1 = 2;  // album or host
+    private static final int SHARED_2 = 3;  // genre or category
+    private static final int DESCRIPTION = 4;
+    private static final int NULL_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final boolean useDictionary;
+    private int pos;
+    private boolean finished;
+
+    // Dictionary entries as (offset, length) into the buffer, decoded lazily.
+    private int[] dictOffsets = new int[64];
+    private int[] dictLengths = new int[64];
+    private String[] dictStrings = new String[64];
+    private int dictSize;
+
+    // Current record.
+    private int kind = -1;
+    private int id;
+    private int duration;
+    private int releaseYear;
+    private int number;
+    private final int[] offsets = new int[5];
+    private final int[] lengths = new int[5];
+    private final int[] entries = new int[5];
+
+    private MediaBinaryReader(ByteBuffer buffer, int pos, boolean useDictionary) {
+        this.buffer = buffer;
+        this.pos = pos;
+        this.useDictionary = useDictionary;
+    }
+
+    public static MediaBinaryReader of(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.limit() - start < 4 || buffer.get(start) != MediaCodec.MAGIC_0
+                || buffer.get(start + 1) != MediaCodec.MAGIC_1) {
+            throw new IllegalArgumentException("Not a media codec stream");
+        }
+        checkVersion(buffer.get(start + 2) & 0xFF);
+        boolean dictionary = (buffer.get(start + 3) & MediaCodec.FLAG_DICTIONARY) != 0;
+        return new MediaBinaryReader(buffer, start + 4, dictionary);
+    }
+
+    // Decodes a standalone value written by MediaCodec.encode.
+    static Media decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        checkVersion(buffer.get(start) & 0xFF);
+        MediaBinaryReader reader = new MediaBinaryReader(buffer, start + 1, false);
+        if (!reader.next()) {
+            throw new IllegalArgumentException("Empty media codec value");
+        }
+        return reader.toMedia();
+    }
+
+    public static List<Media> readAll(ByteBuffer buffer) {
+        MediaBinaryReader reader = of(buffer);
+        List<Media> media = new ArrayList<>();
+        while (reader.next()) {
+            media.add(reader.toMedia());
+        }
+        return media;
+    }
+
+    // Moves to the next record; false at the end marker or the end of the buffer.
+    public boolean next() {
+        if (finished || pos >= buffer.limit()) {
+            finished = true;
+            kind = -1;
+            return false;
+        }
+        int tag = buffer.get(pos++) & 0xFF;
+        if (tag == MediaCodec.END) {
+            finished = true;
+            kind = -1;
+            return false;
+        }
+        if (tag != MediaCodec.SONG && tag != MediaCodec.PODCAST) {
+            throw new IllegalArgumentException("Unknown record tag " + tag + " at offset " + (pos - 1));
+        }
+        kind = tag;
+        id = varint();
+        duration = varint();
+        releaseYear = varint();
+        string(TITLE, false);
+        string(ARTIST, true);
+        string(SHARED_1, true);
+        string(SHARED_2, true);
+        number = varint();
+        if (kind == MediaCodec.PODCAST) {
+            string(DESCRIPTION, false);
+        } else {
+            offsets[DESCRIPTION] = NULL_STRING;
+        }
+        return true;
+    }
+
+    public boolean isSong() {
+        return current() == MediaCodec.SONG;
+    }
+
+    public boolean isPodcast() {
+        return current() == MediaCodec.PODCAST;
+    }
+
+    public String getMediaType() {
+        return isSong() ? "Song" : "Podcast";
+    }
+
+    public int getId() {
+        current();
+        return id;
+    }
+
+    public int getDuration() {
+        current();
+        return duration;
+    }
+
+    public int getReleaseYear() {
+        current();
+        return releaseYear;
+    }
+
+    public String getTitle() {
+        return text(TITLE);
+    }
+
+    public String getArtist() {
+        return text(ARTIST);
+    }
+
+    public String getAlbum() {
+        return isSong() ? text(SHARED_1) : null;
+    }
+
+    public String getGenre() {
+        return isSong() ? text(SHARED_2) : null;
+    }
+
+    public int getTrackNumber() {
+        return isSong() ? number : 0;
+    }
+
+    public String getHost() {
+        return isPodcast() ? text(SHARED_1) : null;
+    }
+
+    public String getCategory() {
+        return isPodcast() ? text(SHARED_2) : null;
+    }
+
+    public int getEpisodeNumber() {
+        return isPodcast() ? number : 0;
+    }
+
+    public String getDescription() {
+        return isPodcast() ? text(DESCRIPTION) : null;
+    }
+
+    public Media toMedia() {
+        if (isSong()) {
+            return new Song(id, getTitle(), getArtist(), duration, releaseYear,
+                    text(SHARED_1), text(SHARED_2), number);
+        }
+        return new Podcast(id, getTitle(), getArtist(), duration, releaseYear,
+                text(SHARED_1), text(SHARED_2), number, text(DESCRIPTION));
+    }
+
+    private int current() {
+        if (kind < 0) {
+            throw new IllegalStateException("No current record; call next() first");
+        }
+        return kind;
+    }
+
+    private void string(int slot, boolean shared) {
+        int header = varint();
+        entries[slot] = -1;
+        if (header == 0) {
+            offsets[slot] = NULL_STRING;
+            return;
+        }
+        if ((header & 1) != 0) {
+            int entry = header >>> 1;
+            if (!shared || entry >= dictSize) {
+                throw new IllegalArgumentException("Bad dictionary reference " + entry + " at offset " + pos);
+            }
+            entries[slot] = entry;
+            offsets[slot] = dictOffsets[entry];
+            lengths[slot] = dictLengths[entry];
+            return;
+        }
+        int length = (header >>> 1) - 1;
+        if (length > buffer.limit() - pos) {
+            throw new IllegalArgumentException("String runs past the end of the buffer at offset " + pos);
+        }
+        offsets[slot] = pos;
+        lengths[slot] = length;
+        if (shared && useDictionary && dictSize < MediaCodec.MAX_DICTIONARY) {
+            if (dictSize == dictOffsets.length) {
+                int capacity = dictSize * 2;
+                dictOffsets = Arrays.copyOf(dictOffsets, capacity);
+                dictLengths = Arrays.copyOf(dictLengths, capacity);
+                dictStrings = Arrays.copyOf(dictStrings, capacity);
+            }
+            entries[slot] = dictSize;
+            dictOffsets[dictSize] = pos;
+            dictLengths[dictSize++] = length;
+        }
+        pos += length;
+    }
+
+    private String text(int slot) {
+        current();
+        int offset = offsets[slot];
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        int entry = entries[slot];
+        if (entry >= 0) {
+            String cached = dictStrings[entry];
+            if (cached == null) {
+                cached = decodeUtf8(offset, lengths[slot]);
+                dictStrings[entry] = cached;
+            }
+            return cached;
+        }
+        return decodeUtf8(offset, lengths[slot]);
+    }
+
+    private String decodeUtf8(int offset, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int varint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos >= buffer.limit()) {
+                throw new IllegalArgumentException("Truncated varint at offset " + pos);
+            }
+            byte b = buffer.get(pos++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 5 bytes at offset " + pos);
+    }
+
+    private static void checkVersion(int version) {
+        if (version != MediaCodec.VERSION) {
+            throw new IllegalArgumentException("Unsupported media codec version " + version);
+        }
+    }
+}
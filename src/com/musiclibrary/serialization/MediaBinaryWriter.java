@@ -0,0 +1,257 @@
+package com.musiclibrary.serialization;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Writes the MediaCodec stream format. Stream targets are written through a buffer taken
+// from a BufferPool and handed back on close; a ByteBuffer target is written in place and
+// must have room for the whole stream (BufferOverflowException otherwise).
+// close() writes the end marker and flushes but never closes the target.
+public final class MediaBinaryWriter implements Flushable, Closeable {
+    private final OutputStream stream;
+    private final BufferPool pool;
+    private final Map<String, Integer> dictionary;
+    private ByteBuffer buf;
+
+    private MediaBinaryWriter(OutputStream stream, ByteBuffer target, BufferPool pool, boolean useDictionary) {
+        this.stream = stream;
+        this.pool = pool;
+        this.buf = target != null ? target : pool.acquire();
+        this.dictionary = useDictionary ? new HashMap<>() : null;
+    }
+
+    public static MediaBinaryWriter to(OutputStream out) {
+        return to(out, BufferPool.DEFAULT, true);
+    }
+
+    public static MediaBinaryWriter to(OutputStream out, BufferPool pool, boolean useDictionary) {
+        return new MediaBinaryWriter(out, null, pool, useDictionary).streamHeader();
+    }
+
+    public static MediaBinaryWriter to(ByteBuffer target, boolean useDictionary) {
+        return new MediaBinaryWriter(null, target, null, useDictionary).streamHeader();
+    }
+
+    // Standalone single-record value, e.g. for a cache entry.
+    public static byte[] encode(Media media) {
+        ByteArrayOutputStream overflow = new ByteArrayOutputStream(0);
+        MediaBinaryWriter writer = new MediaBinaryWriter(overflow, null, BufferPool.DEFAULT, false);
+        try {
+            writer.buf.put((byte) MediaCodec.VERSION);
+            writer.record(media);
+            if (overflow.size() == 0) {
+                return Arrays.copyOf(writer.buf.array(), writer.buf.position());
+            }
+            writer.drain();
+            return overflow.toByteArray();
+        } finally {
+            BufferPool.DEFAULT.release(writer.buf);
+        }
+    }
+
+    public MediaBinaryWriter write(Media media) {
+        record(media);
+        return this;
+    }
+
+    public MediaBinaryWriter writeAll(Iterable<Media> media) {
+        return writeAll(media.iterator());
+    }
+
+    public MediaBinaryWriter writeAll(Stream<Media> media) {
+        return writeAll(media.iterator());
+    }
+
+    public MediaBinaryWriter writeAll(Iterator<Media> media) {
+        while (media.hasNext()) {
+            record(media.next());
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        drain();
+        if (stream != null) {
+            try {
+                stream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (buf == null) {
+            return;
+        }
+        try {
+            ensure(1);
+            buf.put((byte) MediaCodec.END);
+            drain();
+        } finally {
+            if (stream != null) {
+                pool.release(buf);
+            }
+            buf = null;
+        }
+    }
+
+    private MediaBinaryWriter streamHeader() {
+        ensure(4);
+        buf.put(MediaCodec.MAGIC_0)
+                .put(MediaCodec.MAGIC_1)
+                .put((byte) MediaCodec.VERSION)
+                .put((byte) (dictionary != null ? MediaCodec.FLAG_DICTIONARY : 0));
+        return this;
+    }
+
+    private void record(Media media) {
+        ensure(16);
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            buf.put((byte) MediaCodec.SONG);
+            header(song);
+            string(song.getAlbum(), true);
+            string(song.getGenre(), true);
+            ensure(5);
+            varint(song.getTrackNumber());
+        } else if (media instanceof Podcast) {
+            Podcast podcast = (Podcast) media;
+            buf.put((byte) MediaCodec.PODCAST);
+            header(podcast);
+            string(podcast.getHost(), true);
+            string(podcast.getCategory(), true);
+            ensure(5);
+            varint(podcast.getEpisodeNumber());
+            string(podcast.getDescription(), false);
+        } else {
+            throw new IllegalArgumentException("Unsupported media type " + media.getMediaType());
+        }
+    }
+
+    private void header(Media media) {
+        ensure(15);
+        varint(media.getId());
+        varint(media.getDuration());
+        varint(media.getReleaseYear());
+        string(media.getTitle(), false);
+        string(media.getArtist(), true);
+    }
+
+    private void string(String value, boolean shared) {
+        ensure(5);
+        if (value == null) {
+            buf.put((byte) 0);
+            return;
+        }
+        if (shared && dictionary != null) {
+            Integer entry = dictionary.get(value);
+            if (entry != null) {
+                varint(2 * entry + 1);
+                return;
+            }
+            if (dictionary.size() < MediaCodec.MAX_DICTIONARY) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+        int length = utf8Length(value);
+        varint(2 * (length + 1));
+        utf8(value);
+    }
+
+    // Encodes straight into the buffer; must agree byte for byte with utf8Length.
+    private void utf8(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (!buf.hasRemaining()) {
+                    drain();
+                }
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buf.put((byte) (0xC0 | (c >> 6)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buf.put((byte) (0xF0 | (codePoint >> 18)));
+                buf.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buf.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buf.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // An unpaired surrogate has no UTF-8 form; write U+FFFD instead.
+                ensure(3);
+                buf.put((byte) 0xEF).put((byte) 0xBF).put((byte) 0xBD);
+            } else {
+                ensure(3);
+                buf.put((byte) (0xE0 | (c >> 12)));
+                buf.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buf.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 2;
+                i++;
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    private void varint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private void ensure(int bytes) {
+        if (buf.remaining() < bytes && stream != null) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (stream == null || buf.position() == 0) {
+            return;
+        }
+        try {
+            stream.write(buf.array(), buf.arrayOffset(), buf.position());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buf.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package com.musiclibrary.serialization;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Playlist;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// JSON form of media and playlists, written field by field from the getters. Nothing goes
+// through getMetadata() or the String.format based display helpers. Field names match the
+// media table columns (and MediaRecordParser), so output can be re-imported as is.
+public final class MediaJsonSerializer {
+    private static final JsonName ID = JsonName.of("id");
+    private static final JsonName MEDIA_TYPE = JsonName.of("media_type");
+    private static final JsonName TITLE = JsonName.of("title");
+    private static final JsonName ARTIST = JsonName.of("artist");
+    private static final JsonName DURATION = JsonName.of("duration");
+    private static final JsonName RELEASE_YEAR = JsonName.of("release_year");
+    private static final JsonName ALBUM = JsonName.of("album");
+    private static final JsonName GENRE = JsonName.of("genre");
+    private static final JsonName TRACK_NUMBER = JsonName.of("track_number");
+    private static final JsonName HOST = JsonName.of("host");
+    private static final JsonName CATEGORY = JsonName.of("category");
+    private static final JsonName EPISODE_NUMBER = JsonName.of("episode_number");
+    private static final JsonName DESCRIPTION = JsonName.of("description");
+    private static final JsonName NAME = JsonName.of("name");
+    private static final JsonName TRACK_COUNT = JsonName.of("track_count");
+    private static final JsonName TOTAL_DURATION = JsonName.of("total_duration");
+    private static final JsonName TRACKS = JsonName.of("tracks");
+    private static final JsonName POSITION = JsonName.of("position");
+    private static final JsonName MEDIA = JsonName.of("media");
+
+    private MediaJsonSerializer() {
+    }
+
+    public static void writeMedia(JsonOutput out, Media media) {
+        out.beginObject()
+                .field(ID, media.getId())
+                .field(MEDIA_TYPE, media.getMediaType())
+                .field(TITLE, media.getTitle())
+                .field(ARTIST, media.getArtist())
+                .field(DURATION, media.getDuration())
+                .field(RELEASE_YEAR, media.getReleaseYear());
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            out.field(ALBUM, song.getAlbum())
+                    .field(GENRE, song.getGenre())
+                    .field(TRACK_NUMBER, song.getTrackNumber());
+        } else if (media instanceof Podcast) {
+            Podcast podcast = (Podcast) media;
+            out.field(HOST, podcast.getHost())
+                    .field(CATEGORY, podcast.getCategory())
+                    .field(EPISODE_NUMBER, podcast.getEpisodeNumber())
+                    .field(DESCRIPTION, podcast.getDescription());
+        }
+        out.endObject();
+    }
+
+    public static void writeMediaArray(JsonOutput out, Iterable<Media> media) {
+        writeMediaArray(out, media.iterator());
+    }
+
+    // Consumes the stream in encounter order; rows are written as they arrive.
+    public static void writeMediaArray(JsonOutput out, Stream<Media> media) {
+        writeMediaArray(out, media.iterator());
+    }
+
+    public static void writeMediaArray(JsonOutput out, Iterator<Media> media) {
+        out.beginArray();
+        while (media.hasNext()) {
+            writeMedia(out, media.next());
+        }
+        out.endArray();
+    }
+
+    // Name and counts only, for listings.
+    public static void writePlaylistSummary(JsonOutput out, Playlist playlist) {
+        out.beginObject()
+                .field(ID, playlist.getId())
+                .field(NAME, playlist.getName())
+                .field(DESCRIPTION, playlist.getDescription())
+                .field(TRACK_COUNT, playlist.getItems().size())
+                .endObject();
+    }
+
+    public static void writePlaylist(JsonOutput out, Playlist playlist) {
+        List<Playlist.PlaylistItem> items = playlist.getItems();
+        long totalDuration = 0;
+        for (Playlist.PlaylistItem item : items) {
+            totalDuration += item.getMedia().getDuration();
+        }
+        out.beginObject()
+                .field(ID, playlist.getId())
+                .field(NAME, playlist.getName())
+                .field(DESCRIPTION, playlist.getDescription())
+                .field(TRACK_COUNT, items.size())
+                .field(TOTAL_DURATION, totalDuration)
+                .name(TRACKS)
+                .beginArray();
+        for (Playlist.PlaylistItem item : items) {
+            out.beginObject().field(POSITION, item.getPosition()).name(MEDIA);
+            writeMedia(out, item.getMedia());
+            out.endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    public static void write(Media media, OutputStream target) {
+        try (JsonOutput out = JsonOutput.to(target)) {
+            writeMedia(out, media);
+        }
+    }
+
+    public static void write(Playlist playlist, OutputStream target) {
+        try (JsonOutput out = JsonOutput.to(target)) {
+            writePlaylist(out, playlist);
+        }
+    }
+
+    // Writes a JSON array of the stream's rows without collecting them first.
+    public static void writeAll(Stream<Media> media, OutputStream target) {
+        try (JsonOutput out = JsonOutput.to(target)) {
+            writeMediaArray(out, media);
+        }
+    }
+
+    // Returns the number of bytes written at the buffer's position.
+    public static int write(Media media, ByteBuffer target) {
+        int start = target.position();
+        try (JsonOutput out = JsonOutput.to(target)) {
+            writeMedia(out, media);
+        }
+        return target.position() - start;
+    }
+}
@@ -0,0 +1,271 @@
+package com.musiclibrary.service;
+
+import com.musiclibrary.model.LazyPlaylist;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.PlaylistRepositoryImpl;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.utils.DatabaseConnection;
+import com.musiclibrary.utils.QueryCancellation;
+import com.musiclibrary.utils.VirtualThreads;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Non-blocking facade over MediaService. Every call returns at once with a CompletableFuture.
+// At most maxConcurrency calls run at a time, by default one per pooled connection; the rest
+// wait in a queue instead of holding a thread, so tens of thousands of requests can be in
+// flight. Running calls use a virtual thread each where the runtime has them.
+// A call that times out or is cancelled cancels its running SQL through QueryCancellation.
+//   -Dmusiclibrary.async.timeoutMs=30000
+public class AsyncMediaService implements AutoCloseable {
+    private static final long DEFAULT_TIMEOUT_MS = Long.getLong("musiclibrary.async.timeoutMs", 30_000L);
+    private static final int PLAYLIST_CHUNK_SIZE = 200;
+
+    private final MediaService service;
+    private final PlaylistRepositoryImpl playlists;
+    private final int maxConcurrency;
+    private final Duration defaultTimeout;
+    private final ExecutorService executor;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final Queue<Admission> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncMediaService(MediaService service, PlaylistRepositoryImpl playlists,
+                             int maxConcurrency, Duration defaultTimeout) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.service = service;
+        this.playlists = playlists;
+        this.maxConcurrency = maxConcurrency;
+        this.defaultTimeout = defaultTimeout;
+        this.executor = VirtualThreads.newExecutor("async-media");
+    }
+
+    public AsyncMediaService(MediaService service, PlaylistRepositoryImpl playlists) {
+        this(service, playlists, DatabaseConnection.getInstance().getPoolMetrics().getMaxSize(),
+                Duration.ofMillis(DEFAULT_TIMEOUT_MS));
+    }
+
+    public CompletableFuture<Media> getMediaById(int id) {
+        return supply(() -> service.getMediaById(id));
+    }
+
+    public CompletableFuture<Map<Integer, Media>> getMediaByIds(Collection<Integer> ids) {
+        return supply(() -> service.getMediaByIds(ids));
+    }
+
+    public CompletableFuture<Media> createMedia(Media media) {
+        return supply(() -> service.createMedia(media));
+    }
+
+    public CompletableFuture<List<Media>> search(String keyword) {
+        return supply(() -> service.search(keyword));
+    }
+
+    public CompletableFuture<List<Media>> getAllMedia() {
+        return supply(service::getAllMedia);
+    }
+
+    public CompletableFuture<List<Media>> getAllMediaSortedByTitle() {
+        return supply(service::getAllMediaSortedByTitle);
+    }
+
+    public CompletableFuture<List<Media>> getAllMediaSortedByDuration() {
+        return supply(service::getAllMediaSortedByDuration);
+    }
+
+    public CompletableFuture<List<Media>> getAllMediaSortedByArtistThenTitle() {
+        return supply(service::getAllMediaSortedByArtistThenTitle);
+    }
+
+    public CompletableFuture<Page<Media>> getMediaPage(PageCursor after, int pageSize) {
+        return supply(() -> service.getMediaPage(after, pageSize));
+    }
+
+    // Loads the item list first, then the tracks in parallel chunks; the result keeps playlist order.
+    public CompletableFuture<List<Media>> getPlaylistTracks(int playlistId) {
+        return supply(() -> playlists.getLazyById(playlistId)).thenCompose(this::getPlaylistTracks);
+    }
+
+    public CompletableFuture<List<Media>> getPlaylistTracks(LazyPlaylist playlist) {
+        List<CompletableFuture<Map<Integer, Media>>> calls = new ArrayList<>();
+        for (int from = 0; from < playlist.size(); from += PLAYLIST_CHUNK_SIZE) {
+            int to = Math.min(playlist.size(), from + PLAYLIST_CHUNK_SIZE);
+            List<Integer> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(playlist.getMediaId(i));
+            }
+            calls.add(supply(() -> service.getMediaByIds(chunk)));
+        }
+        return allOf(calls).thenApply(loaded -> inPlaylistOrder(playlist, loaded));
+    }
+
+    // Runs loader once per key concurrently; fails as soon as any call fails and cancels the rest.
+    public <K, V> CompletableFuture<Map<K, V>> fanOut(Collection<K> keys, Function<K, V> loader) {
+        List<K> keyList = new ArrayList<>(keys);
+        List<CompletableFuture<V>> calls = new ArrayList<>(keyList.size());
+        for (K key : keyList) {
+            calls.add(supply(() -> loader.apply(key)));
+        }
+        return allOf(calls).thenApply(values -> {
+            Map<K, V> result = new HashMap<>();
+            for (int i = 0; i < keyList.size(); i++) {
+                result.put(keyList.get(i), values.get(i));
+            }
+            return result;
+        });
+    }
+
+    // Results in the order of the input futures.
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        CompletableFuture<List<T>> combined = CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> values = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> future : futures) {
+                        values.add(future.join());
+                    }
+                    return values;
+                });
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (error != null && combined.completeExceptionally(error)) {
+                    futures.forEach(other -> other.cancel(true));
+                }
+            });
+        }
+        combined.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                futures.forEach(other -> other.cancel(true));
+            }
+        });
+        return combined;
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return supply(work, defaultTimeout);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> work, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        QueryCancellation scope = new QueryCancellation();
+        admit(result, () -> {
+            if (result.isDone()) {
+                return;
+            }
+            QueryCancellation previous = scope.enter();
+            try {
+                result.complete(work.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                scope.exit(previous);
+            }
+        });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        result.whenComplete((value, error) -> {
+            if (error instanceof TimeoutException || error instanceof CancellationException) {
+                scope.cancel();
+            }
+        });
+        return result;
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getWaiting() {
+        return waiting.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private void admit(CompletableFuture<?> result, Runnable body) {
+        waiting.add(new Admission(result, body));
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int current = running.get();
+            if (current >= maxConcurrency) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Admission next = waiting.poll();
+            if (next == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        next.body.run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                next.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static List<Media> inPlaylistOrder(LazyPlaylist playlist, List<Map<Integer, Media>> loaded) {
+        Map<Integer, Media> byId = new HashMap<>();
+        loaded.forEach(byId::putAll);
+        List<Media> tracks = new ArrayList<>(playlist.size());
+        for (int i = 0; i < playlist.size(); i++) {
+            Media media = byId.get(playlist.getMediaId(i));
+            if (media != null) {
+                tracks.add(media);
+            }
+        }
+        return tracks;
+    }
+
+    private static class Admission {
+        private final CompletableFuture<?> result;
+        private final Runnable body;
+
+        Admission(CompletableFuture<?> result, Runnable body) {
+            this.result = result;
+            this.body = body;
+        }
+    }
+}
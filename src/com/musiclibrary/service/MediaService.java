@@ -1,109 +1,257 @@
 package com.musiclibrary.service;
 
+import com.musiclibrary.catalog.ColumnarCatalog;
 import com.musiclibrary.interfaces.Playable;
 import com.musiclibrary.interfaces.Rateable;
 import com.musiclibrary.interfaces.Searchable;
+import com.musiclibrary.metrics.MetricsRegistry;
+import com.musiclibrary.metrics.OperationMetrics;
 import com.musiclibrary.model.Media;
+import com.musiclibrary.playback.PlaybackEngine;
+import com.musiclibrary.playback.PlaybackState;
+import com.musiclibrary.ratings.MediaRating;
+import com.musiclibrary.ratings.RatingStore;
 import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.MediaProjection;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QuerySpec;
+import com.musiclibrary.search.MediaSearchIndex;
 import com.musiclibrary.utils.SortingUtils;
 import com.musiclibrary.exception.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-
-public class MediaService implements Playable, Rateable, Searchable<Media> {
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class MediaService implements Playable, Rateable, Searchable<Media>, AutoCloseable {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final OperationMetrics SEARCH_OP = metrics.operation("MediaService.search");
+    private static final OperationMetrics GET_ALL_MEDIA_SORTED_BY_TITLE_OP = metrics.operation("MediaService.getAllMediaSortedByTitle");
+    private static final OperationMetrics GET_ALL_MEDIA_SORTED_BY_DURATION_OP = metrics.operation("MediaService.getAllMediaSortedByDuration");
+    private static final OperationMetrics GET_ALL_MEDIA_SORTED_BY_ARTIST_THEN_TITLE_OP = metrics.operation("MediaService.getAllMediaSortedByArtistThenTitle");
+    private static final OperationMetrics GET_LONG_MEDIA_OP = metrics.operation("MediaService.getLongMedia");
+    private static final OperationMetrics GET_MEDIA_BY_TYPE_OP = metrics.operation("MediaService.getMediaByType");
+    private static final OperationMetrics GET_ALL_ARTISTS_OP = metrics.operation("MediaService.getAllArtists");
+    private static final OperationMetrics AGGREGATE_OP = metrics.operation("MediaService.aggregate");
+    private static final OperationMetrics GET_LONGEST_TRACKS_OP = metrics.operation("MediaService.getLongestTracks");
+    private static final OperationMetrics CREATE_MEDIA_OP = metrics.operation("MediaService.createMedia");
+    private static final OperationMetrics GET_MEDIA_BY_ID_OP = metrics.operation("MediaService.getMediaById");
+    private static final OperationMetrics GET_MEDIA_BY_IDS_OP = metrics.operation("MediaService.getMediaByIds");
+    private static final OperationMetrics GET_ALL_MEDIA_OP = metrics.operation("MediaService.getAllMedia");
+    private static final OperationMetrics GET_MEDIA_PAGE_OP = metrics.operation("MediaService.getMediaPage");
+    private static final OperationMetrics UPDATE_MEDIA_OP = metrics.operation("MediaService.updateMedia");
+    private static final OperationMetrics DELETE_MEDIA_OP = metrics.operation("MediaService.deleteMedia");
 
     private final SearchableRepository<Media, Integer> repository;
+    private final MediaSearchIndex searchIndex;
+    // Optional read snapshot for scans and sorts; dropped on the first write until refreshed.
+    private volatile ColumnarCatalog catalog;
 
-    private Media currentMedia;
-    private boolean isPlaying = false;
-    private List<Integer> ratings = new ArrayList<>();
+    // Playable/Rateable act on this session; concurrent listeners use getPlayback() with their own ids.
+    private static final String DEFAULT_SESSION = "default";
+    private final PlaybackEngine playback;
+    private final RatingStore ratings;
 
     public MediaService(SearchableRepository<Media, Integer> repository) {
+        this(repository, null, RatingStore.getInstance());
+    }
+
+    public MediaService(SearchableRepository<Media, Integer> repository, MediaSearchIndex searchIndex) {
+        this(repository, searchIndex, RatingStore.getInstance());
+    }
+
+    // searchIndex may be null. Pass a memory-only RatingStore to run without the database.
+    public MediaService(SearchableRepository<Media, Integer> repository, MediaSearchIndex searchIndex,
+                        RatingStore ratings) {
         this.repository = repository;
-        System.out.println("MediaService initialized with repository (DIP)");
+        this.searchIndex = searchIndex;
+        this.ratings = ratings;
+        this.playback = new PlaybackEngine(repository);
+        playback.pin(DEFAULT_SESSION);
+        if (searchIndex == null) {
+            System.out.println("MediaService initialized with repository (DIP)");
+            return;
+        }
+        if (searchIndex.size() == 0) {
+            searchIndex.rebuild(repository.findAll());
+        }
+        System.out.println("MediaService initialized with repository and in-memory search index ("
+                + searchIndex.size() + " items)");
     }
 
     public MediaService() {
         this.repository = null;
+        this.searchIndex = null;
+        this.ratings = new RatingStore(null);
+        this.playback = new PlaybackEngine(null);
+        playback.pin(DEFAULT_SESSION);
         System.out.println("Warning: Using default constructor without repository");
     }
 
     @Override
     public void play() {
-        if (currentMedia != null) {
-            isPlaying = true;
-            System.out.println("Playing: " + currentMedia.getTitle());
+        Media media = getCurrentMedia();
+        if (media == null) {
+            System.out.println("Nothing selected to play");
+            return;
         }
+        playback.play(DEFAULT_SESSION);
+        System.out.println("Playing: " + media.getTitle());
     }
 
     @Override
     public void pause() {
-        isPlaying = false;
-        System.out.println("Paused: " + currentMedia.getTitle());
+        Media media = getCurrentMedia();
+        playback.pause(DEFAULT_SESSION);
+        System.out.println(media != null ? "Paused: " + media.getTitle() : "Nothing is playing");
     }
 
     @Override
     public void stop() {
-        isPlaying = false;
-        System.out.println("Stopped: " + currentMedia.getTitle());
+        Media media = getCurrentMedia();
+        playback.stop(DEFAULT_SESSION);
+        System.out.println(media != null ? "Stopped: " + media.getTitle() : "Nothing is playing");
     }
 
     public String getCurrentStatus() {
-        return isPlaying ? "Playing" : "Stopped";
+        PlaybackState state = playback.session(DEFAULT_SESSION).getState();
+        return state.name().charAt(0) + state.name().substring(1).toLowerCase();
+    }
+
+    public PlaybackEngine getPlayback() {
+        return playback;
+    }
+
+    // Stops the playback engine's scheduler and workers. Ratings and the repository are shared
+    // and closed by their owners.
+    @Override
+    public void close() {
+        playback.close();
     }
 
+    // Rateable applies to the selected media item.
     @Override
     public void rate(int rating) {
-        if (rating < 1 || rating > 5) {
-            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        Media media = requireCurrentMedia();
+        ratings.rate(media.getId(), rating);
+        System.out.println("Rated " + media.getTitle() + ": " + rating + "/5");
+    }
+
+    public void rate(int mediaId, int rating) {
+        if (repository != null && !repository.existsById(mediaId)) {
+            throw new ResourceNotFoundException("Media with ID " + mediaId + " not found");
         }
-        ratings.add(rating);
-        System.out.println("Rated " + currentMedia.getTitle() + ": " + rating + "/5");
+        ratings.rate(mediaId, rating);
     }
 
     @Override
     public double getAverageRating() {
-        if (ratings.isEmpty()) return 0.0;
-        double average = ratings.stream()
-                .mapToInt(Integer::intValue)
-                .average()
-                .orElse(0.0);
-        return Math.round(average * 10.0) / 10.0;
+        Media media = getCurrentMedia();
+        if (media == null) return 0.0;
+        return Math.round(ratings.getAverage(media.getId()) * 10.0) / 10.0;
     }
 
     @Override
     public int getRatingCount() {
-        return ratings.size();
+        Media media = getCurrentMedia();
+        if (media == null) return 0;
+        return (int) ratings.getCount(media.getId());
+    }
+
+    public MediaRating getRating(int mediaId) {
+        return ratings.get(mediaId);
+    }
+
+    public List<MediaRating> getTopRatedStats(int limit, long minRatings) {
+        return ratings.topRated(limit, minRatings);
+    }
+
+    // Top-rated media in rank order; items deleted since being rated are skipped.
+    public List<Media> getTopRated(int limit, long minRatings) {
+        List<MediaRating> top = ratings.topRated(limit, minRatings);
+        if (repository == null || top.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = new ArrayList<>(top.size());
+        for (MediaRating rating : top) {
+            ids.add(rating.getMediaId());
+        }
+        Map<Integer, Media> found = repository.findAllById(ids);
+        List<Media> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Media media = found.get(id);
+            if (media != null) {
+                result.add(media);
+            }
+        }
+        return result;
+    }
+
+    private Media requireCurrentMedia() {
+        Media media = getCurrentMedia();
+        if (media == null) {
+            throw new IllegalStateException("No media selected");
+        }
+        return media;
     }
 
     public void setCurrentMedia(Media media) {
-        this.currentMedia = media;
+        playback.select(DEFAULT_SESSION, media);
         System.out.println("Selected: " + media.getTitle());
     }
 
     public Media getCurrentMedia() {
-        return currentMedia;
+        return playback.session(DEFAULT_SESSION).getCurrentMedia();
     }
 
     public void clearRatings() {
-        ratings.clear();
-        System.out.println("All ratings cleared");
+        Media media = requireCurrentMedia();
+        ratings.remove(media.getId());
+        System.out.println("Ratings cleared for " + media.getTitle());
     }
 
-    @Override
-    public List<Media> search(String keyword) {
+    public ColumnarCatalog refreshCatalog() {
         if (repository == null) {
-            System.out.println("Warning: Repository not initialized. Using fallback.");
-            return getFallbackSearchResults(keyword);
+            throw new DatabaseOperationException("Repository not initialized");
         }
+        ColumnarCatalog snapshot = ColumnarCatalog.load(repository);
+        catalog = snapshot;
+        System.out.println("Columnar catalog loaded: " + snapshot);
+        return snapshot;
+    }
 
-        if (keyword == null || keyword.trim().isEmpty()) {
-            throw new InvalidInputException("Search keyword cannot be empty");
-        }
+    public ColumnarCatalog getCatalog() {
+        return catalog;
+    }
 
-        return repository.search(keyword);
+    @Override
+    public List<Media> search(String keyword) {
+        return metrics.time(SEARCH_OP, () -> {
+            if (repository == null) {
+                System.out.println("Warning: Repository not initialized. Using fallback.");
+                return getFallbackSearchResults(keyword);
+            }
+
+            if (keyword == null || keyword.trim().isEmpty()) {
+                throw new InvalidInputException("Search keyword cannot be empty");
+            }
+
+            if (searchIndex != null) {
+                return searchIndex.search(keyword);
+            }
+            return repository.search(keyword);
+        });
     }
 
     public List<Media> searchByTitle(String title) {
@@ -111,152 +259,334 @@ public class MediaService implements Playable, Rateable, Searchable<Media> {
     }
 
     public List<Media> getAllMediaSortedByTitle() {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
-
-        List<Media> mediaList = repository.findAll();
-        SortingUtils.sortByTitle(mediaList);
-        return mediaList;
+        return metrics.time(GET_ALL_MEDIA_SORTED_BY_TITLE_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(SortingUtils.sortByTitle(snapshot), MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().orderBy(MediaField.TITLE).project(MediaProjection.LIST));
+        });
     }
 
     public List<Media> getAllMediaSortedByDuration() {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
-
-        List<Media> mediaList = repository.findAll();
-        SortingUtils.sortByDuration(mediaList);
-        return mediaList;
+        return metrics.time(GET_ALL_MEDIA_SORTED_BY_DURATION_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(SortingUtils.sortByDuration(snapshot), MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().orderBy(MediaField.DURATION).project(MediaProjection.LIST));
+        });
     }
 
     public List<Media> getAllMediaSortedByArtistThenTitle() {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
-
-        List<Media> mediaList = repository.findAll();
-        SortingUtils.sortByArtistThenTitle(mediaList);
-        return mediaList;
+        return metrics.time(GET_ALL_MEDIA_SORTED_BY_ARTIST_THEN_TITLE_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(SortingUtils.sortByArtistThenTitle(snapshot), MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().orderBy(MediaField.ARTIST).orderBy(MediaField.TITLE)
+                    .project(MediaProjection.LIST));
+        });
     }
 
     public List<Media> getLongMedia(int minDurationSeconds) {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
-
-        List<Media> allMedia = repository.findAll();
-        return allMedia.stream()
-                .filter(media -> media.getDuration() >= minDurationSeconds)
-                .collect(Collectors.toList());
+        return metrics.time(GET_LONG_MEDIA_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(SortingUtils.filterByMinDuration(snapshot, minDurationSeconds),
+                        MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().durationAtLeast(minDurationSeconds).project(MediaProjection.LIST));
+        });
     }
 
     public List<Media> getMediaByType(String type) {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
-
-        List<Media> allMedia = repository.findAll();
-        return allMedia.stream()
-                .filter(media -> media.getMediaType().equalsIgnoreCase(type))
-                .collect(Collectors.toList());
+        return metrics.time(GET_MEDIA_BY_TYPE_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(snapshot.rowsOfType(type), MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().mediaType(type).project(MediaProjection.LIST));
+        });
     }
 
     public List<String> getAllArtists() {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
+        return metrics.time(GET_ALL_ARTISTS_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.distinctArtists();
+            }
+            return repository.findDistinct(MediaField.ARTIST, QuerySpec.all().orderByIgnoreCase(MediaField.ARTIST));
+        });
+    }
 
-        List<Media> allMedia = repository.findAll();
-        return allMedia.stream()
-                .map(Media::getArtist)
-                .distinct()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .collect(Collectors.toList());
+    // Dashboard aggregates. With a columnar catalog loaded they are computed from its
+    // primitive columns; otherwise the repository pushes a GROUP BY down to SQLite (or
+    // aggregates in one parallel pass for stores without SQL).
+    public List<GroupStats> aggregate(MediaField groupBy, String mediaType) {
+        return metrics.time(AGGREGATE_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.aggregate(groupBy, mediaType);
+            }
+            QuerySpec spec = QuerySpec.all();
+            if (mediaType != null) {
+                spec.mediaType(mediaType);
+            }
+            return repository.aggregate(groupBy, spec);
+        });
     }
 
-    public Media createMedia(Media media) {
-        if (repository == null) {
-            throw new DatabaseOperationException("Repository not initialized");
-        }
+    public List<GroupStats> getDurationStatsByArtist() {
+        return aggregate(MediaField.ARTIST, null);
+    }
 
-        if (!media.validate()) {
-            throw new InvalidInputException("Invalid media data");
-        }
+    public List<GroupStats> getDurationStatsByGenre() {
+        return aggregate(MediaField.GENRE, "Song");
+    }
 
-        List<Media> existing = repository.findByTitle(media.getTitle());
-        if (!existing.isEmpty()) {
-            throw new DuplicateResourceException(
-                    "Media with title '" + media.getTitle() + "' already exists"
-            );
+    public List<GroupStats> getDurationStatsByYear() {
+        return aggregate(MediaField.RELEASE_YEAR, null);
+    }
+
+    public List<GroupStats> getPodcastCategoryStats() {
+        return aggregate(MediaField.CATEGORY, "Podcast");
+    }
+
+    public Map<String, Long> getCountByMediaType() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (GroupStats group : aggregate(MediaField.MEDIA_TYPE, null)) {
+            counts.put(group.getKey(), group.getCount());
         }
+        return counts;
+    }
 
-        return repository.save(media);
+    public List<Media> getLongestTracks(int limit) {
+        return metrics.time(GET_LONGEST_TRACKS_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            ColumnarCatalog snapshot = catalog;
+            if (snapshot != null) {
+                return snapshot.materialize(snapshot.topRowsByDuration(limit, "Song"), MediaProjection.LIST);
+            }
+            return repository.query(QuerySpec.all().mediaType("Song").orderByDescending(MediaField.DURATION)
+                    .limit(limit).project(MediaProjection.LIST));
+        });
+    }
+
+    public Media createMedia(Media media) {
+        return metrics.time(CREATE_MEDIA_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
+
+            if (!media.validate()) {
+                throw new InvalidInputException("Invalid media data");
+            }
+
+            boolean titleTaken = repository.findByTitle(media.getTitle()).stream()
+                    .anyMatch(m -> m.getTitle().equalsIgnoreCase(media.getTitle()));
+            if (titleTaken) {
+                throw new DuplicateResourceException(
+                        "Media with title '" + media.getTitle() + "' already exists"
+                );
+            }
+
+            Media saved = repository.save(media);
+            catalog = null;
+            if (searchIndex != null) {
+                searchIndex.index(saved);
+            }
+            return saved;
+        });
     }
 
     public Media getMediaById(int id) {
-        if (repository == null) {
-            throw new DatabaseOperationException("Repository not initialized");
-        }
+        return metrics.time(GET_MEDIA_BY_ID_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
+
+            Optional<Media> media = repository.findById(id);
+            return media.orElseThrow(() ->
+                    new ResourceNotFoundException("Media with ID " + id + " not found")
+            );
+        });
+    }
+
+    // Missing ids are simply absent from the result.
+    public Map<Integer, Media> getMediaByIds(Collection<Integer> ids) {
+        return metrics.time(GET_MEDIA_BY_IDS_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
 
-        Optional<Media> media = repository.findById(id);
-        return media.orElseThrow(() ->
-                new ResourceNotFoundException("Media with ID " + id + " not found")
-        );
+            return repository.findAllById(ids);
+        });
     }
 
     public List<Media> getAllMedia() {
-        if (repository == null) {
-            System.out.println("Repository not initialized. Returning empty list.");
-            return new ArrayList<>();
-        }
+        return metrics.time(GET_ALL_MEDIA_OP, () -> {
+            if (repository == null) {
+                System.out.println("Repository not initialized. Returning empty list.");
+                return new ArrayList<>();
+            }
+
+            return repository.findAll();
+        });
+    }
+
+    public Page<Media> getMediaPage(PageCursor after, int pageSize) {
+        return metrics.time(GET_MEDIA_PAGE_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
 
-        return repository.findAll();
+            return repository.findPage(QuerySpec.all().orderBy(MediaField.TITLE), after, pageSize);
+        });
     }
 
-    public Media updateMedia(int id, Media mediaUpdates) {
+    public Stream<Media> streamAllMedia() {
         if (repository == null) {
-            throw new DatabaseOperationException("Repository not initialized");
+            System.out.println("Repository not initialized. Returning empty stream.");
+            return Stream.empty();
         }
 
-        Media existing = getMediaById(id);
+        return repository.stream(QuerySpec.all().orderBy(MediaField.TITLE), STREAM_FETCH_SIZE);
+    }
 
-        if (mediaUpdates.getTitle() != null) {
-            existing.setTitle(mediaUpdates.getTitle());
-        }
-        if (mediaUpdates.getArtist() != null) {
-            existing.setArtist(mediaUpdates.getArtist());
-        }
-        if (mediaUpdates.getDuration() > 0) {
-            existing.setDuration(mediaUpdates.getDuration());
-        }
-        if (mediaUpdates.getReleaseYear() > 0) {
-            existing.setReleaseYear(mediaUpdates.getReleaseYear());
-        }
+    // Streaming forms of the list views above, for callers that write rows out as they go. Rows
+    // come from a database cursor, or are decoded from the catalog one at a time when it is loaded;
+    // the caller must close the stream.
+    public Stream<Media> streamAllMediaSortedByTitle() {
+        return streamListView(QuerySpec.all().orderBy(MediaField.TITLE), SortingUtils::sortByTitle);
+    }
 
-        if (!existing.validate()) {
-            throw new InvalidInputException("Invalid data after update");
-        }
+    public Stream<Media> streamAllMediaSortedByDuration() {
+        return streamListView(QuerySpec.all().orderBy(MediaField.DURATION), SortingUtils::sortByDuration);
+    }
 
-        return repository.update(existing);
+    public Stream<Media> streamAllMediaSortedByArtistThenTitle() {
+        return streamListView(QuerySpec.all().orderBy(MediaField.ARTIST).orderBy(MediaField.TITLE),
+                SortingUtils::sortByArtistThenTitle);
     }
 
-    public boolean deleteMedia(int id) {
+    public Stream<Media> streamLongMedia(int minDurationSeconds) {
+        return streamListView(QuerySpec.all().durationAtLeast(minDurationSeconds),
+                snapshot -> SortingUtils.filterByMinDuration(snapshot, minDurationSeconds));
+    }
+
+    public Stream<Media> streamMediaByType(String type) {
+        return streamListView(QuerySpec.all().mediaType(type), snapshot -> snapshot.rowsOfType(type));
+    }
+
+    private Stream<Media> streamListView(QuerySpec spec, Function<ColumnarCatalog, int[]> catalogRows) {
         if (repository == null) {
-            throw new DatabaseOperationException("Repository not initialized");
+            System.out.println("Repository not initialized. Returning empty stream.");
+            return Stream.empty();
         }
 
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException("Media with ID " + id + " not found");
+        ColumnarCatalog snapshot = catalog;
+        if (snapshot != null) {
+            return Arrays.stream(catalogRows.apply(snapshot)).mapToObj(row -> snapshot.get(row, MediaProjection.LIST));
         }
+        return repository.stream(spec.project(MediaProjection.LIST), STREAM_FETCH_SIZE);
+    }
 
-        return repository.delete(id);
+    public Media updateMedia(int id, Media mediaUpdates) {
+        return metrics.time(UPDATE_MEDIA_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
+
+            // Changes are applied to a copy, so a rejected update leaves nothing behind in
+            // whatever instance the repository handed out.
+            Media changed = getMediaById(id).copy();
+
+            if (mediaUpdates.getTitle() != null) {
+                changed.setTitle(mediaUpdates.getTitle());
+            }
+            if (mediaUpdates.getArtist() != null) {
+                changed.setArtist(mediaUpdates.getArtist());
+            }
+            if (mediaUpdates.getDuration() > 0) {
+                changed.setDuration(mediaUpdates.getDuration());
+            }
+            if (mediaUpdates.getReleaseYear() > 0) {
+                changed.setReleaseYear(mediaUpdates.getReleaseYear());
+            }
+
+            if (!changed.validate()) {
+                throw new InvalidInputException("Invalid data after update");
+            }
+
+            Media updated = repository.update(changed);
+            catalog = null;
+            if (searchIndex != null) {
+                searchIndex.index(updated);
+            }
+            return updated;
+        });
+    }
+
+    public boolean deleteMedia(int id) {
+        return metrics.time(DELETE_MEDIA_OP, () -> {
+            if (repository == null) {
+                throw new DatabaseOperationException("Repository not initialized");
+            }
+
+            if (!repository.existsById(id)) {
+                throw new ResourceNotFoundException("Media with ID " + id + " not found");
+            }
+
+            boolean deleted = repository.delete(id);
+            catalog = null;
+            if (deleted) {
+                ratings.forget(id);
+            }
+            if (deleted && searchIndex != null) {
+                searchIndex.remove(id);
+            }
+            return deleted;
+        });
     }
 
     public int getTotalMediaCount() {
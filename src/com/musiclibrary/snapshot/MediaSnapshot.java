@@ -0,0 +1,203 @@
+package com.musiclibrary.snapshot;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read side of the snapshot file. The file is mapped read-only, so opening it costs a
+// header check and every JVM on the host shares the same page-cache pages.
+//
+// Layout (little endian):
+//   header   72 bytes  magic, version, record count, record size, last change seq,
+//                      created millis, records offset, title order offset, heap offset, heap length,
+//                      heap garbage (bytes left behind by records an incremental refresh replaced)
+//   records  count * RECORD_SIZE, sorted by id
+//   order    count ints: record indices in (title, id) order
+//   heap     UTF-8 strings, referenced from records as (offset, length); length -1 is NULL
+public class MediaSnapshot {
+    static final int MAGIC = 0x4D4C534E; // "MLSN"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 72;
+
+    // Record fields.
+    static final int ID = 0;
+    static final int KIND = 4;
+    static final int DURATION = 8;
+    static final int YEAR = 12;
+    static final int NUMBER = 16;
+    static final int TITLE = 20;
+    static final int ARTIST = 28;
+    static final int ALBUM = 36;
+    static final int GENRE = 44;
+    static final int HOST = 52;
+    static final int CATEGORY = 60;
+    static final int DESCRIPTION = 68;
+    static final int RECORD_SIZE = 76;
+
+    static final byte SONG = 0;
+    static final byte PODCAST = 1;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long lastChangeSeq;
+    private final long createdMillis;
+    private final int recordsOffset;
+    private final int orderOffset;
+    private final int heapOffset;
+    private final int heapLength;
+    private final long heapGarbage;
+
+    private MediaSnapshot(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a media snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        if (buffer.getInt(12) != RECORD_SIZE) {
+            throw new IOException("Unexpected record size " + buffer.getInt(12) + " in " + file);
+        }
+        count = buffer.getInt(8);
+        lastChangeSeq = buffer.getLong(16);
+        createdMillis = buffer.getLong(24);
+        recordsOffset = (int) buffer.getLong(32);
+        orderOffset = (int) buffer.getLong(40);
+        heapOffset = (int) buffer.getLong(48);
+        heapLength = (int) buffer.getLong(56);
+        heapGarbage = buffer.getLong(64);
+        if ((long) heapOffset + heapLength != buffer.capacity()) {
+            throw new IOException("Truncated snapshot " + file);
+        }
+    }
+
+    public static MediaSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " exceeds the 2 GB single-mapping limit");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new MediaSnapshot(file, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    public Path getFile() { return file; }
+    public int size() { return count; }
+    public long getLastChangeSeq() { return lastChangeSeq; }
+    public long getCreatedMillis() { return createdMillis; }
+
+    public int getId(int index) {
+        return buffer.getInt(recordsOffset + index * RECORD_SIZE + ID);
+    }
+
+    public int getDuration(int index) {
+        return buffer.getInt(recordsOffset + index * RECORD_SIZE + DURATION);
+    }
+
+    public String getTitle(int index) {
+        return string(recordsOffset + index * RECORD_SIZE + TITLE);
+    }
+
+    // Record index in title order position.
+    public int indexInTitleOrder(int position) {
+        return buffer.getInt(orderOffset + position * Integer.BYTES);
+    }
+
+    // Binary search over the id-sorted records; -1 when absent.
+    public int indexOf(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = getId(mid);
+            if (midId < id) low = mid + 1;
+            else if (midId > id) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    public Media get(int index) {
+        int base = recordsOffset + index * RECORD_SIZE;
+        int id = buffer.getInt(base + ID);
+        String title = string(base + TITLE);
+        String artist = string(base + ARTIST);
+        int duration = buffer.getInt(base + DURATION);
+        int year = buffer.getInt(base + YEAR);
+        int number = buffer.getInt(base + NUMBER);
+        if (buffer.get(base + KIND) == SONG) {
+            return new Song(id, title, artist, duration, year, string(base + ALBUM), string(base + GENRE), number);
+        }
+        return new Podcast(id, title, artist, duration, year, string(base + HOST), string(base + CATEGORY), number,
+                string(base + DESCRIPTION));
+    }
+
+    long getHeapGarbage() { return heapGarbage; }
+    int getHeapLength() { return heapLength; }
+
+    // Raw bytes of records [from, to), for copying unchanged records into a refreshed file.
+    ByteBuffer records(int from, int to) {
+        return buffer.slice(recordsOffset + from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+    }
+
+    ByteBuffer heap() {
+        return buffer.slice(heapOffset, heapLength);
+    }
+
+    // Heap bytes only this record references; shared values may still be used by other records.
+    long ownedHeapBytes(int index) {
+        int base = recordsOffset + index * RECORD_SIZE;
+        return Math.max(0, buffer.getInt(base + TITLE + 4)) + Math.max(0, buffer.getInt(base + DESCRIPTION + 4));
+    }
+
+    // Compares this record's title with UTF-8 bytes in String.compareTo order, without decoding.
+    // Equal prefixes leave both sides on the same character boundary, so a differing byte is
+    // either a continuation byte (byte order is code point order) or a lead byte, where
+    // U+E000..U+FFFF (0xEE, 0xEF) must sort after the surrogate pairs of 0xF0..0xF4 leads.
+    int compareTitle(int index, byte[] title) {
+        int ref = recordsOffset + index * RECORD_SIZE + TITLE;
+        int position = heapOffset + buffer.getInt(ref);
+        int length = buffer.getInt(ref + 4);
+        int common = Math.min(length, title.length);
+        for (int i = 0; i < common; i++) {
+            int a = buffer.get(position + i) & 0xFF;
+            int b = title[i] & 0xFF;
+            if (a != b) {
+                return utf16Rank(a) - utf16Rank(b);
+            }
+        }
+        return length - title.length;
+    }
+
+    private static int utf16Rank(int b) {
+        return b == 0xEE || b == 0xEF ? b + 0x10 : b;
+    }
+
+    private String string(int refPosition) {
+        int length = buffer.getInt(refPosition + 4);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapOffset + buffer.getInt(refPosition), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "MediaSnapshot[" + file + ", records=" + count + ", changeSeq=" + lastChangeSeq + "]";
+    }
+}
@@ -0,0 +1,147 @@
+package com.musiclibrary.snapshot;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.MediaRepositoryImpl;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.QuerySpec;
+import com.musiclibrary.utils.DatabaseConnection;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Produces snapshot files from SQLite. Triggers on media append every touched id to
+// media_changes; a refresh re-reads and encodes only those ids and copies every other record
+// from the previous file as raw bytes, so keeping a snapshot current costs O(changes) database
+// reads and object work plus one sequential copy of the file.
+public class MediaSnapshotBuilder {
+    private static final int FETCH_SIZE = 10_000;
+
+    private final DatabaseConnection dbConnection;
+    private final MediaRepositoryImpl mediaRepository;
+
+    public MediaSnapshotBuilder() {
+        this.dbConnection = DatabaseConnection.getInstance();
+        this.mediaRepository = new MediaRepositoryImpl();
+    }
+
+    public MediaSnapshot rebuild(Path target) throws IOException {
+        // Read the change position first: rows changed while we scan get re-applied next time.
+        long changeSeq = currentChangeSeq();
+        List<Media> all;
+        try (Stream<Media> rows = mediaRepository.stream(QuerySpec.all().orderBy(MediaField.ID), FETCH_SIZE)) {
+            all = rows.collect(Collectors.toList());
+        }
+        MediaSnapshotWriter.write(target, all, changeSeq);
+        System.out.println("Media snapshot rebuilt: " + all.size() + " records -> " + target);
+        return MediaSnapshot.open(target);
+    }
+
+    public MediaSnapshot refresh(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return rebuild(target);
+        }
+        MediaSnapshot previous;
+        try {
+            previous = MediaSnapshot.open(target);
+        } catch (IOException e) {
+            System.err.println("Unreadable snapshot, rebuilding: " + e.getMessage());
+            return rebuild(target);
+        }
+
+        long fromSeq = previous.getLastChangeSeq();
+        long changeSeq = currentChangeSeq();
+        if (changeSeq == fromSeq) {
+            // Checked first: once this snapshot's entries are pruned the log is empty, not a gap.
+            return previous;
+        }
+        if (oldestChangeSeq() > fromSeq + 1) {
+            // The change log was pruned past this snapshot; the gap cannot be replayed.
+            return rebuild(target);
+        }
+
+        if (previous.getHeapGarbage() > previous.getHeapLength() / 2) {
+            // Mostly strings of replaced records; a full write reclaims them.
+            return rebuild(target);
+        }
+
+        Set<Integer> changedIds = changedSince(fromSeq);
+        Map<Integer, Media> reloaded = mediaRepository.findAllById(changedIds);
+        MediaSnapshotWriter.writeIncremental(target, previous, changedIds, reloaded.values(), changeSeq);
+        MediaSnapshot refreshed = MediaSnapshot.open(target);
+        System.out.println("Media snapshot refreshed: " + changedIds.size() + " changed ids, "
+                + refreshed.size() + " records -> " + target);
+        return refreshed;
+    }
+
+    // For a deployment that keeps one snapshot file: once it is refreshed, nothing else needs the
+    // log entries it applied. Pruning past another file only costs that file a full rebuild.
+    public MediaSnapshot refreshAndPrune(Path target) throws IOException {
+        MediaSnapshot snapshot = refresh(target);
+        int pruned = pruneChangeLog(snapshot.getLastChangeSeq());
+        if (pruned > 0) {
+            System.out.println("Media change log pruned: " + pruned + " entries");
+        }
+        return snapshot;
+    }
+
+    // Drops change-log entries every snapshot has already applied.
+    public int pruneChangeLog(long throughSeq) {
+        try {
+            return dbConnection.executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("DELETE FROM media_changes WHERE seq <= ?")) {
+                    ps.setLong(1, throughSeq);
+                    return ps.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error pruning media change log: " + e.getMessage(), e);
+        }
+    }
+
+    private long currentChangeSeq() {
+        // sqlite_sequence keeps the last AUTOINCREMENT value even after pruning.
+        return queryLong("SELECT COALESCE((SELECT seq FROM sqlite_sequence WHERE name = 'media_changes'), 0)");
+    }
+
+    private long oldestChangeSeq() {
+        return queryLong("SELECT COALESCE(MIN(seq), 9223372036854775807) FROM media_changes");
+    }
+
+    private long queryLong(String sql) {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error reading media change log: " + e.getMessage(), e);
+        }
+    }
+
+    private Set<Integer> changedSince(long seq) {
+        Set<Integer> ids = new HashSet<>();
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT media_id FROM media_changes WHERE seq > ?")) {
+            ps.setLong(1, seq);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+            return ids;
+        } catch (SQLException e) {
+            throw new DatabaseOperationException("Error reading media change log: " + e.getMessage(), e);
+        }
+    }
+}
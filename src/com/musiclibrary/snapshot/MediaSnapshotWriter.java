@@ -0,0 +1,294 @@
+package com.musiclibrary.snapshot;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Writes a snapshot to a temp file next to the target and moves it into place, so readers
+// that still map the previous file keep a consistent view until they reopen.
+public class MediaSnapshotWriter {
+    private static final int COPY_CHUNK_RECORDS = 4096;
+
+    private final Map<String, int[]> heapRefs = new HashMap<>();
+    private final ByteArrayOutputStream heap = new ByteArrayOutputStream();
+    // Heap offset of the first string this writer appends; non-zero when the previous heap is carried over.
+    private final int heapBase;
+
+    private MediaSnapshotWriter(int heapBase) {
+        this.heapBase = heapBase;
+    }
+
+    public static void write(Path target, List<Media> mediaList, long lastChangeSeq) throws IOException {
+        new MediaSnapshotWriter(0).writeFile(target, mediaList, lastChangeSeq);
+    }
+
+    // Applies changed ids to the previous snapshot without decoding it: unchanged records are
+    // copied as raw bytes, the previous heap is carried over as-is and only the reloaded rows are
+    // encoded. Heap bytes of replaced records stay behind as garbage until the next full write.
+    public static void writeIncremental(Path target, MediaSnapshot previous, Set<Integer> changedIds,
+                                        Collection<Media> reloaded, long lastChangeSeq) throws IOException {
+        new MediaSnapshotWriter(previous.getHeapLength()).applyChanges(target, previous, changedIds, reloaded,
+                lastChangeSeq);
+    }
+
+    private void writeFile(Path target, List<Media> mediaList, long lastChangeSeq) throws IOException {
+        List<Media> byId = new ArrayList<>(mediaList);
+        byId.sort(Comparator.comparingInt(Media::getId));
+        int count = byId.size();
+
+        ByteBuffer records = ByteBuffer.allocate(count * MediaSnapshot.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (Media media : byId) {
+            writeRecord(records, media);
+        }
+
+        Integer[] titleOrder = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            titleOrder[i] = i;
+        }
+        Arrays.sort(titleOrder, Comparator.comparing((Integer i) -> byId.get(i).getTitle())
+                .thenComparingInt(i -> byId.get(i).getId()));
+        ByteBuffer order = ByteBuffer.allocate(count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int index : titleOrder) {
+            order.putInt(index);
+        }
+
+        long recordsOffset = MediaSnapshot.HEADER_SIZE;
+        long orderOffset = recordsOffset + records.capacity();
+        long heapOffset = orderOffset + order.capacity();
+        if (heapOffset + heap.size() > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot would exceed the 2 GB single-mapping limit");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(MediaSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MediaSnapshot.MAGIC)
+                .putInt(MediaSnapshot.VERSION)
+                .putInt(count)
+                .putInt(MediaSnapshot.RECORD_SIZE)
+                .putLong(lastChangeSeq)
+                .putLong(System.currentTimeMillis())
+                .putLong(recordsOffset)
+                .putLong(orderOffset)
+                .putLong(heapOffset)
+                .putLong(heap.size())
+                .putLong(0L);
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                out.write(header.array());
+                out.write(records.array());
+                out.write(order.array());
+                heap.writeTo(out);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void applyChanges(Path target, MediaSnapshot previous, Set<Integer> changedIds,
+                              Collection<Media> reloaded, long lastChangeSeq) throws IOException {
+        int previousCount = previous.size();
+        boolean[] dropped = new boolean[previousCount];
+        int droppedCount = 0;
+        long garbage = previous.getHeapGarbage();
+        for (int id : changedIds) {
+            int index = previous.indexOf(id);
+            if (index >= 0) {
+                dropped[index] = true;
+                droppedCount++;
+                garbage += previous.ownedHeapBytes(index);
+            }
+        }
+        List<Media> added = new ArrayList<>(reloaded);
+        added.sort(Comparator.comparingInt(Media::getId));
+        int count = previousCount - droppedCount + added.size();
+
+        long recordsOffset = MediaSnapshot.HEADER_SIZE;
+        long orderOffset = recordsOffset + (long) count * MediaSnapshot.RECORD_SIZE;
+        long heapOffset = orderOffset + (long) count * Integer.BYTES;
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                // Merge by id: runs of kept records are copied straight from the old mapping.
+                int[] newIndex = new int[previousCount];
+                int[] addedIndex = new int[added.size()];
+                ByteBuffer record = ByteBuffer.allocate(MediaSnapshot.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                long position = recordsOffset;
+                int next = 0;
+                int i = 0;
+                int a = 0;
+                while (i < previousCount || a < added.size()) {
+                    if (i < previousCount && dropped[i]) {
+                        i++;
+                    } else if (a == added.size() || (i < previousCount && previous.getId(i) < added.get(a).getId())) {
+                        int runStart = i;
+                        int limit = a == added.size() ? Integer.MAX_VALUE : added.get(a).getId();
+                        while (i < previousCount && !dropped[i] && previous.getId(i) < limit
+                                && i - runStart < COPY_CHUNK_RECORDS) {
+                            newIndex[i++] = next++;
+                        }
+                        position += writeFully(out, previous.records(runStart, i), position);
+                    } else {
+                        record.clear();
+                        writeRecord(record, added.get(a));
+                        record.flip();
+                        position += writeFully(out, record, position);
+                        addedIndex[a++] = next++;
+                    }
+                }
+
+                writeTitleOrder(out, orderOffset, previous, dropped, newIndex, added, addedIndex);
+
+                if (heapOffset + heapBase + heap.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot would exceed the 2 GB single-mapping limit");
+                }
+                writeFully(out, previous.heap(), heapOffset);
+                writeFully(out, ByteBuffer.wrap(heap.toByteArray()), heapOffset + heapBase);
+
+                ByteBuffer header = ByteBuffer.allocate(MediaSnapshot.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MediaSnapshot.MAGIC)
+                        .putInt(MediaSnapshot.VERSION)
+                        .putInt(count)
+                        .putInt(MediaSnapshot.RECORD_SIZE)
+                        .putLong(lastChangeSeq)
+                        .putLong(System.currentTimeMillis())
+                        .putLong(recordsOffset)
+                        .putLong(orderOffset)
+                        .putLong(heapOffset)
+                        .putLong(heapBase + heap.size())
+                        .putLong(garbage);
+                header.flip();
+                writeFully(out, header, 0);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The previous order section is already sorted, so only the reloaded rows are sorted and the
+    // two sequences are merged; old titles are compared as heap bytes.
+    private static void writeTitleOrder(FileChannel out, long orderOffset, MediaSnapshot previous, boolean[] dropped,
+                                        int[] newIndex, List<Media> added, int[] addedIndex) throws IOException {
+        Integer[] addedOrder = new Integer[added.size()];
+        byte[][] addedTitles = new byte[added.size()][];
+        for (int a = 0; a < addedOrder.length; a++) {
+            addedOrder[a] = a;
+            addedTitles[a] = added.get(a).getTitle().getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(addedOrder, Comparator.comparing((Integer a) -> added.get(a).getTitle())
+                .thenComparingInt(a -> added.get(a).getId()));
+
+        ByteBuffer chunk = ByteBuffer.allocate(COPY_CHUNK_RECORDS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long position = orderOffset;
+        int p = 0;
+        int a = 0;
+        int previousCount = previous.size();
+        while (p < previousCount || a < addedOrder.length) {
+            int index = p < previousCount ? previous.indexInTitleOrder(p) : -1;
+            if (index >= 0 && dropped[index]) {
+                p++;
+                continue;
+            }
+            boolean takeOld;
+            if (a == addedOrder.length) {
+                takeOld = true;
+            } else if (index < 0) {
+                takeOld = false;
+            } else {
+                int candidate = addedOrder[a];
+                int cmp = previous.compareTitle(index, addedTitles[candidate]);
+                takeOld = cmp < 0 || (cmp == 0 && previous.getId(index) < added.get(candidate).getId());
+            }
+            if (takeOld) {
+                chunk.putInt(newIndex[index]);
+                p++;
+            } else {
+                chunk.putInt(addedIndex[addedOrder[a++]]);
+            }
+            if (!chunk.hasRemaining()) {
+                chunk.flip();
+                position += writeFully(out, chunk, position);
+                chunk.clear();
+            }
+        }
+        chunk.flip();
+        writeFully(out, chunk, position);
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer source, long position) throws IOException {
+        int length = source.remaining();
+        int written = 0;
+        while (written < length) {
+            written += out.write(source, position + written);
+        }
+        return length;
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeRecord(ByteBuffer records, Media media) {
+        boolean song = media instanceof Song;
+        records.putInt(media.getId());
+        records.put(song ? MediaSnapshot.SONG : MediaSnapshot.PODCAST);
+        records.put((byte) 0).put((byte) 0).put((byte) 0);
+        records.putInt(media.getDuration());
+        records.putInt(media.getReleaseYear());
+        records.putInt(song ? ((Song) media).getTrackNumber() : ((Podcast) media).getEpisodeNumber());
+        putString(records, media.getTitle(), false);
+        putString(records, media.getArtist(), true);
+        putString(records, song ? ((Song) media).getAlbum() : null, true);
+        putString(records, song ? ((Song) media).getGenre() : null, true);
+        putString(records, song ? null : ((Podcast) media).getHost(), true);
+        putString(records, song ? null : ((Podcast) media).getCategory(), true);
+        putString(records, song ? null : ((Podcast) media).getDescription(), false);
+    }
+
+    // Repeated values (artists, genres, albums) are written to the heap once; titles and
+    // descriptions are nearly unique, so they skip the lookup.
+    private void putString(ByteBuffer records, String value, boolean shared) {
+        if (value == null) {
+            records.putInt(0).putInt(-1);
+            return;
+        }
+        int[] ref = shared ? heapRefs.get(value) : null;
+        if (ref == null) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ref = new int[]{heapBase + heap.size(), bytes.length};
+            heap.write(bytes, 0, bytes.length);
+            if (shared) {
+                heapRefs.put(value, ref);
+            }
+        }
+        records.putInt(ref[0]).putInt(ref[1]);
+    }
+}
@@ -0,0 +1,276 @@
+package com.musiclibrary.snapshot;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaAggregator;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QueryEvaluator;
+import com.musiclibrary.repository.query.QuerySpec;
+import com.musiclibrary.utils.MediaSorter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Read-only media repository served straight from a mapped snapshot file. Lookups by id
+// binary-search the id-sorted records; everything else scans records and decodes only the
+// rows that survive the filter. Queries use the same semantics as the SQLite repository
+// (QueryEvaluator), but search is substring matching rather than FTS5 ranking.
+public class SnapshotMediaRepository implements SearchableRepository<Media, Integer> {
+    private static final int DEFAULT_SEARCH_LIMIT = 200;
+    private static final String READ_ONLY = "Snapshot repository is read-only";
+
+    private volatile MediaSnapshot snapshot;
+
+    public SnapshotMediaRepository(MediaSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public static SnapshotMediaRepository open(Path file) throws IOException {
+        return new SnapshotMediaRepository(MediaSnapshot.open(file));
+    }
+
+    public MediaSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Swaps in a refreshed snapshot; readers already iterating keep the old mapping.
+    public void replace(MediaSnapshot refreshed) {
+        this.snapshot = refreshed;
+    }
+
+    @Override
+    public Optional<Media> findById(Integer id) {
+        MediaSnapshot current = snapshot;
+        int index = current.indexOf(id);
+        return index >= 0 ? Optional.of(current.get(index)) : Optional.empty();
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        return snapshot.indexOf(id) >= 0;
+    }
+
+    @Override
+    public long count() {
+        return snapshot.size();
+    }
+
+    @Override
+    public Map<Integer, Media> findAllById(Collection<Integer> ids) {
+        MediaSnapshot current = snapshot;
+        Map<Integer, Media> result = new HashMap<>();
+        for (Integer id : ids) {
+            int index = current.indexOf(id);
+            if (index >= 0) {
+                result.put(id, current.get(index));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> findAll() {
+        MediaSnapshot current = snapshot;
+        List<Media> result = new ArrayList<>(current.size());
+        for (int pos = 0; pos < current.size(); pos++) {
+            result.add(current.get(current.indexInTitleOrder(pos)));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> findByTitle(String title) {
+        String needle = fold(title);
+        return scanInTitleOrder(media -> contains(media.getTitle(), needle), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Media> findByArtist(String artist) {
+        String needle = fold(artist);
+        return scanInTitleOrder(media -> contains(media.getArtist(), needle), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Media> findByYear(int year) {
+        return query(QuerySpec.all().releaseYear(year).orderBy(MediaField.TITLE));
+    }
+
+    // Every word has to appear in one of the columns the FTS index covers.
+    @Override
+    public List<Media> search(String keyword) {
+        List<String> words = new ArrayList<>();
+        if (keyword != null) {
+            for (String word : keyword.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    words.add(fold(word));
+                }
+            }
+        }
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return scanInTitleOrder(media -> {
+            for (String word : words) {
+                if (!matchesAnyColumn(media, word)) {
+                    return false;
+                }
+            }
+            return true;
+        }, DEFAULT_SEARCH_LIMIT);
+    }
+
+    @Override
+    public List<Media> query(QuerySpec spec) {
+        if (isTitleOrder(spec.getOrders())) {
+            return scanInTitleOrder(QueryEvaluator.predicate(spec), spec.hasLimit() ? spec.getLimit() : Integer.MAX_VALUE);
+        }
+        if (spec.hasLimit() && !spec.getOrders().isEmpty()) {
+            // Records are in id order, so the sorter's stable ties match QueryEvaluator's id tie-break.
+            List<Media> matching = rows(snapshot).filter(QueryEvaluator.predicate(spec)).collect(Collectors.toList());
+            return MediaSorter.of(spec).top(matching, spec.getLimit());
+        }
+        return QueryEvaluator.apply(spec, records(snapshot));
+    }
+
+    @Override
+    public List<String> findDistinct(MediaField field, QuerySpec spec) {
+        Predicate<Media> filter = QueryEvaluator.predicate(spec);
+        TreeSet<String> values = new TreeSet<>();
+        for (Media media : records(snapshot)) {
+            if (filter.test(media)) {
+                Object value = field.extract(media);
+                if (value != null) {
+                    values.add(value.toString());
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(values);
+        if (spec.hasLimit() && result.size() > spec.getLimit()) {
+            return new ArrayList<>(result.subList(0, spec.getLimit()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<GroupStats> aggregate(MediaField groupBy, QuerySpec spec) {
+        return MediaAggregator.aggregate(rows(snapshot), groupBy, spec);
+    }
+
+    @Override
+    public Page<Media> findPage(QuerySpec spec, PageCursor after, int pageSize) {
+        List<Media> sorted = query(spec);
+        return QueryEvaluator.page(sorted, spec.getOrders(), after, pageSize);
+    }
+
+    @Override
+    public Stream<Media> stream(QuerySpec spec, int fetchSize) {
+        if (!spec.getOrders().isEmpty() || spec.hasLimit()) {
+            return query(spec).stream();
+        }
+        // Unordered: decode lazily in id order so large exports never hold every row.
+        return StreamSupport.stream(records(snapshot).spliterator(), false).filter(QueryEvaluator.predicate(spec));
+    }
+
+    @Override
+    public Media save(Media entity) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public Media update(Media entity) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        throw new UnsupportedOperationException(READ_ONLY);
+    }
+
+    private List<Media> scanInTitleOrder(Predicate<Media> filter, int limit) {
+        MediaSnapshot current = snapshot;
+        List<Media> result = new ArrayList<>();
+        for (int pos = 0; pos < current.size() && result.size() < limit; pos++) {
+            Media media = current.get(current.indexInTitleOrder(pos));
+            if (filter.test(media)) {
+                result.add(media);
+            }
+        }
+        return result;
+    }
+
+    // The order section is sorted by (title, id), which is exactly orderBy(TITLE).
+    private static boolean isTitleOrder(List<QuerySpec.Order> orders) {
+        if (orders.size() != 1) {
+            return false;
+        }
+        QuerySpec.Order order = orders.get(0);
+        return order.getField() == MediaField.TITLE && order.isAscending() && !order.isIgnoreCase();
+    }
+
+    // Parallel decode in id order; the mapping is only read with absolute gets.
+    private static Stream<Media> rows(MediaSnapshot snapshot) {
+        return IntStream.range(0, snapshot.size()).parallel().mapToObj(snapshot::get);
+    }
+
+    private static Iterable<Media> records(MediaSnapshot snapshot) {
+        return () -> new Iterator<Media>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public Media next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return snapshot.get(next++);
+            }
+        };
+    }
+
+    private static boolean matchesAnyColumn(Media media, String word) {
+        if (contains(media.getTitle(), word) || contains(media.getArtist(), word)) {
+            return true;
+        }
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            return contains(song.getAlbum(), word) || contains(song.getGenre(), word);
+        }
+        if (media instanceof Podcast) {
+            Podcast podcast = (Podcast) media;
+            return contains(podcast.getHost(), word) || contains(podcast.getCategory(), word);
+        }
+        return false;
+    }
+
+    private static boolean contains(String value, String foldedNeedle) {
+        return value != null && fold(value).contains(foldedNeedle);
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
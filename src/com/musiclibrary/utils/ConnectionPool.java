@@ -0,0 +1,376 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long checkoutTimeoutMillis;
+    private final ConnectionCustomizer customizer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int totalConnections;
+    private boolean closed;
+
+    // A thread that already holds a connection gets the same one back, so nested
+    // repository calls never need a second slot from the pool. Leases that may outlive the
+    // call or move to another thread (lazy streams) come from getDetachedConnection and are
+    // never handed to nested calls, so one SQLite handle is never used by two threads.
+    private final ThreadLocal<Lease> checkedOut = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong connectionsCreated = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+
+    public ConnectionPool(String url, Properties properties, int maxSize, int minIdle,
+                          long idleTimeoutMillis, long validationIntervalMillis,
+                          long checkoutTimeoutMillis, ConnectionCustomizer customizer) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: max=" + maxSize + ", minIdle=" + minIdle);
+        }
+        this.url = url;
+        this.properties = properties != null ? properties : new Properties();
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        this.customizer = customizer != null ? customizer : raw -> raw;
+    }
+
+    public ConnectionPool(String url, int maxSize) {
+        this(url, null, maxSize, 1, TimeUnit.MINUTES.toMillis(5), TimeUnit.SECONDS.toMillis(30),
+                TimeUnit.SECONDS.toMillis(30), null);
+    }
+
+    public Connection getConnection() {
+        Lease current = checkedOut.get();
+        if (current != null) {
+            if (current.retain()) {
+                return current.handle;
+            }
+            checkedOut.remove();
+        }
+
+        Lease lease = new Lease(checkout());
+        checkedOut.set(lease);
+        return lease.handle;
+    }
+
+    // Always a connection of its own, closable from any thread. Nested calls on this thread
+    // keep using (or open) their own lease rather than this one.
+    public Connection getDetachedConnection() {
+        return new Lease(checkout()).handle;
+    }
+
+    private PooledConnection checkout() {
+        long start = System.nanoTime();
+        PooledConnection pooled = acquire();
+        long waited = System.nanoTime() - start;
+
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        checkouts.incrementAndGet();
+        return pooled;
+    }
+
+    private PooledConnection acquire() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(checkoutTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean mayCreate = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new DatabaseOperationException("Connection pool is closed");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        mayCreate = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new DatabaseOperationException(
+                                "Timed out after " + checkoutTimeoutMillis + " ms waiting for a database connection");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DatabaseOperationException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayCreate) {
+                try {
+                    return createConnection();
+                } catch (SQLException e) {
+                    releaseSlot();
+                    throw new DatabaseOperationException("Error opening database connection: " + e.getMessage(), e);
+                }
+            }
+
+            if (isUsable(candidate)) {
+                return candidate;
+            }
+            validationFailures.incrementAndGet();
+            discard(candidate);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long sinceUse = System.currentTimeMillis() - pooled.lastUsedMillis;
+        if (sinceUse < validationIntervalMillis) {
+            return true;
+        }
+        try {
+            return !pooled.raw.isClosed() && pooled.raw.isValid(5);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection raw = customizer.customize(DriverManager.getConnection(url, properties));
+        connectionsCreated.incrementAndGet();
+        return new PooledConnection(raw);
+    }
+
+    // Each checkout gets its own handle, so a handle kept past close() cannot reach the
+    // connection once it has moved on to the next borrower.
+    private Connection newHandle(Lease lease) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            release(lease);
+                            return null;
+                        case "isClosed":
+                            return lease.isReleased() || lease.pooled.raw.isClosed();
+                        case "unwrap":
+                            if (!lease.isReleased() && ((Class<?>) args[0]).isInstance(lease.pooled.raw)) {
+                                return lease.pooled.raw;
+                            }
+                            break;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                        default:
+                            break;
+                    }
+                    if (lease.isReleased()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(lease.pooled.raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // Any thread may close a lease; the last close returns the connection to the pool.
+    private void release(Lease lease) {
+        if (!lease.drop()) {
+            return;
+        }
+        if (lease.owner == Thread.currentThread() && checkedOut.get() == lease) {
+            checkedOut.remove();
+        }
+        PooledConnection pooled = lease.pooled;
+        pooled.lastUsedMillis = System.currentTimeMillis();
+
+        try {
+            if (!pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                closeQuietly(pooled);
+                totalConnections--;
+                return;
+            }
+            idle.addFirst(pooled);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        closeQuietly(pooled);
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeQuietly(PooledConnection pooled) {
+        try {
+            pooled.raw.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+        connectionsClosed.incrementAndGet();
+    }
+
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // The most recently used connections sit at the head, so stale ones collect at the tail.
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections > minIdle) {
+                PooledConnection pooled = it.next();
+                if (now - pooled.lastUsedMillis < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                totalConnections--;
+                closeQuietly(pooled);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        int idleCount;
+        int total;
+        int waiting;
+        lock.lock();
+        try {
+            idleCount = idle.size();
+            total = totalConnections;
+            waiting = lock.getWaitQueueLength(available);
+        } finally {
+            lock.unlock();
+        }
+        return new PoolMetrics(total - idleCount, idleCount, waiting, maxSize,
+                checkouts.get(), totalWaitNanos.get(), maxWaitNanos.get(),
+                validationFailures.get(), connectionsCreated.get(), connectionsClosed.get(),
+                System.nanoTime() - startNanos);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pollFirst());
+                totalConnections--;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ConnectionCustomizer {
+        Connection customize(Connection raw) throws SQLException;
+    }
+
+    private static class PooledConnection {
+        private final Connection raw;
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+        }
+    }
+
+    // One checkout of a pooled connection. holds counts the owner's nested getConnection calls.
+    private class Lease {
+        private final PooledConnection pooled;
+        private final Thread owner = Thread.currentThread();
+        private final Connection handle;
+        private int holds = 1;
+        private boolean released;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.handle = newHandle(this);
+        }
+
+        synchronized boolean retain() {
+            if (released) {
+                return false;
+            }
+            holds++;
+            return true;
+        }
+
+        // True for the close that hands the connection back.
+        synchronized boolean drop() {
+            if (released || --holds > 0) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+
+        synchronized boolean isReleased() {
+            return released;
+        }
+    }
+}
@@ -1,45 +1,356 @@
 package com.musiclibrary.utils;
 
+import com.musiclibrary.exception.DatabaseOperationException;
+import com.musiclibrary.repository.CacheStats;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DatabaseConnection {
-    private static DatabaseConnection instance;
-    private Connection connection;
+    public enum StorageMode { POOLED, WAL }
 
-    private static final String URL = "jdbc:sqlite:music_library.db";
+    private static volatile DatabaseConnection instance;
+    private final StorageMode mode;
+    private final ConnectionPool pool;
+    private final SqliteWriteQueue writeQueue;
+    private final ScheduledExecutorService maintenance;
+    private final StatementProfiler profiler;
+    private final StatementCache statementCache;
+
+    private static final String URL = System.getProperty("musiclibrary.db.url", "jdbc:sqlite:music_library.db");
+    private static final StorageMode MODE =
+            StorageMode.valueOf(System.getProperty("musiclibrary.db.mode", "POOLED").toUpperCase());
+    private static final int POOL_SIZE = Integer.getInteger("musiclibrary.db.poolSize",
+            MODE == StorageMode.WAL ? Runtime.getRuntime().availableProcessors() : 8);
+    private static final int MIN_IDLE = Integer.getInteger("musiclibrary.db.minIdle", 1);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("musiclibrary.db.idleTimeoutMs", 300_000L);
+    private static final long VALIDATION_INTERVAL_MS = Long.getLong("musiclibrary.db.validationIntervalMs", 30_000L);
+    private static final long CHECKOUT_TIMEOUT_MS = Long.getLong("musiclibrary.db.checkoutTimeoutMs", 30_000L);
+    private static final int WRITE_QUEUE_CAPACITY = Integer.getInteger("musiclibrary.db.writeQueueCapacity", 10_000);
+    private static final boolean PROFILE_STATEMENTS =
+            Boolean.parseBoolean(System.getProperty("musiclibrary.db.profile", "true"));
+    private static final long SLOW_QUERY_MS = Long.getLong("musiclibrary.db.slowQueryMs", 200L);
+    private static final boolean EXPLAIN_SLOW_QUERIES =
+            Boolean.parseBoolean(System.getProperty("musiclibrary.db.explainSlowQueries", "true"));
+    private static final String SLOW_QUERY_LOG = System.getProperty("musiclibrary.db.slowQueryLog");
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("musiclibrary.db.statementCacheSize", 64);
+    // Newest media_changes entries kept however long no snapshot refresh runs.
+    private static final long CHANGE_LOG_RETENTION = Long.getLong("musiclibrary.db.changeLogRetention", 100_000L);
+    private static final long CHANGE_LOG_PRUNE_PERIOD_MS = 60_000L;
+
+    private static final String SQLITE_OPEN_READONLY = "1";
 
     private DatabaseConnection() {
+        this.mode = MODE;
+        this.profiler = PROFILE_STATEMENTS
+                ? new StatementProfiler(SLOW_QUERY_MS, EXPLAIN_SLOW_QUERIES, SLOW_QUERY_LOG)
+                : null;
+        this.statementCache = STATEMENT_CACHE_SIZE > 0 ? new StatementCache(STATEMENT_CACHE_SIZE) : null;
         try {
             Class.forName("org.sqlite.JDBC");
-
-            connection = DriverManager.getConnection(URL);
-            System.out.println("✓ SQLite Database connected! File: music_library.db");
-
-            initializeDatabase();
         } catch (ClassNotFoundException e) {
             System.err.println("SQLite Driver Error: " + e.getMessage());
-        } catch (SQLException e) {
+        }
+
+        SqliteWriteQueue writer = null;
+        if (mode == StorageMode.WAL) {
+            // Without the writer every write would land on the query_only read pool and fail
+            // far from the cause, so a WAL setup that cannot open it does not start at all.
+            Connection writerConnection = null;
+            try {
+                writerConnection = DriverManager.getConnection(URL);
+                configureConnection(writerConnection);
+                applyWalPragmas(writerConnection);
+                writer = new SqliteWriteQueue(instrument(writerConnection), WRITE_QUEUE_CAPACITY);
+            } catch (SQLException e) {
+                if (writerConnection != null) {
+                    try {
+                        writerConnection.close();
+                    } catch (SQLException closeError) {
+                        e.addSuppressed(closeError);
+                    }
+                }
+                throw new DatabaseOperationException("Could not open the WAL writer connection to " + URL
+                        + ": " + e.getMessage(), e);
+            }
+
+            Properties readOnly = new Properties();
+            readOnly.setProperty("open_mode", SQLITE_OPEN_READONLY);
+            pool = new ConnectionPool(URL, readOnly, POOL_SIZE, MIN_IDLE, IDLE_TIMEOUT_MS,
+                    VALIDATION_INTERVAL_MS, CHECKOUT_TIMEOUT_MS, raw -> instrument(configureReadConnection(raw)));
+        } else {
+            pool = new ConnectionPool(URL, null, POOL_SIZE, MIN_IDLE, IDLE_TIMEOUT_MS,
+                    VALIDATION_INTERVAL_MS, CHECKOUT_TIMEOUT_MS, raw -> instrument(configureConnection(raw)));
+        }
+        writeQueue = writer;
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        long evictionPeriod = Math.max(1_000L, IDLE_TIMEOUT_MS / 2);
+        maintenance.scheduleWithFixedDelay(pool::evictIdle, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+        maintenance.scheduleWithFixedDelay(this::trimChangeLog, CHANGE_LOG_PRUNE_PERIOD_MS,
+                CHANGE_LOG_PRUNE_PERIOD_MS, TimeUnit.MILLISECONDS);
+
+        try {
+            executeWrite(conn -> {
+                initializeDatabase(conn);
+                return null;
+            });
+            System.out.println("✓ SQLite Database connected! " + URL + " (" + mode
+                    + " mode, pool size " + POOL_SIZE + ")");
+        } catch (Exception e) {
             System.err.println("SQLite Error: " + e.getMessage());
         }
     }
 
     public static DatabaseConnection getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConnection();
+        DatabaseConnection result = instance;
+        if (result == null) {
+            synchronized (DatabaseConnection.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new DatabaseConnection();
+                }
+            }
         }
-        return instance;
+        return result;
     }
 
+    // Callers must close the returned connection; closing hands it back to the pool.
+    // In WAL mode the connection is read-only, so all writes must go through executeWrite.
     public Connection getConnection() {
-        return connection;
+        return QueryCancellation.track(pool.getConnection());
+    }
+
+    // For cursors that stay open after the call returns (lazy streams); never shared with
+    // nested calls on this thread, so the holder may consume and close it on another thread.
+    public Connection getDetachedConnection() {
+        return QueryCancellation.track(pool.getDetachedConnection());
+    }
+
+    public <T> T executeWrite(SqlWork<T> work) throws SQLException {
+        if (writeQueue != null) {
+            return writeQueue.execute(work);
+        }
+        try (Connection conn = pool.getConnection()) {
+            return work.execute(conn);
+        }
     }
 
-    private void initializeDatabase() {
+    // Runs the work as one transaction on the write path. If the connection is already inside
+    // a transaction (a nested call), the work simply joins it.
+    public <T> T executeInTransaction(SqlWork<T> work) throws SQLException {
+        return executeWrite(conn -> {
+            if (!conn.getAutoCommit()) {
+                return work.execute(conn);
+            }
+            conn.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException | Error e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    public StorageMode getStorageMode() {
+        return mode;
+    }
+
+    public SqliteWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        return pool.getMetrics();
+    }
+
+    // Null when profiling is disabled with -Dmusiclibrary.db.profile=false.
+    public StatementProfiler getStatementProfiler() {
+        return profiler;
+    }
+
+    public CacheStats getStatementCacheStats() {
+        return statementCache != null ? statementCache.getStats() : null;
+    }
+
+    public void shutdown() {
+        maintenance.shutdownNow();
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        pool.close();
+    }
+
+    // The statement cache sits outermost so that reused statements are still profiled per execution.
+    private Connection instrument(Connection raw) {
+        Connection conn = profiler != null ? profiler.wrap(raw) : raw;
+        return statementCache != null ? statementCache.wrap(conn) : conn;
+    }
+
+    private static Connection configureConnection(Connection raw) throws SQLException {
+        try (Statement stmt = raw.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = ON");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+        }
+        return raw;
+    }
+
+    private static Connection configureReadConnection(Connection raw) throws SQLException {
+        configureConnection(raw);
+        try (Statement stmt = raw.createStatement()) {
+            stmt.execute("PRAGMA query_only = ON");
+            stmt.execute("PRAGMA cache_size = -32768");
+            stmt.execute("PRAGMA mmap_size = 268435456");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        }
+        return raw;
+    }
+
+    private static void applyWalPragmas(Connection writer) throws SQLException {
+        try (Statement stmt = writer.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            // NORMAL is durable across application crashes in WAL mode and skips the fsync per commit.
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = -65536");
+            stmt.execute("PRAGMA mmap_size = 268435456");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            stmt.execute("PRAGMA wal_autocheckpoint = 1000");
+        }
+    }
+
+    private void initializeDatabase(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS media (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "title TEXT NOT NULL, " +
+                    "artist TEXT NOT NULL, " +
+                    "duration INTEGER NOT NULL CHECK (duration > 0), " +
+                    "release_year INTEGER, " +
+                    "media_type TEXT NOT NULL CHECK (media_type IN ('Song', 'Podcast')), " +
+                    "album TEXT, " +
+                    "genre TEXT, " +
+                    "track_number INTEGER, " +
+                    "host TEXT, " +
+                    "category TEXT, " +
+                    "episode_number INTEGER, " +
+                    "description TEXT, " +
+                    "UNIQUE (title, artist, album))");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS playlists (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "name TEXT NOT NULL UNIQUE, " +
+                    "description TEXT)");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS playlist_items (" +
+                    "playlist_id INTEGER NOT NULL REFERENCES playlists(id) ON DELETE CASCADE, " +
+                    "media_id INTEGER NOT NULL REFERENCES media(id) ON DELETE CASCADE, " +
+                    "position INTEGER NOT NULL, " +
+                    "PRIMARY KEY (playlist_id, media_id))");
+
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_playlist_items_position ON playlist_items (playlist_id, position)");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS ratings (" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "media_id INTEGER NOT NULL REFERENCES media(id) ON DELETE CASCADE, " +
+                    "stars INTEGER NOT NULL CHECK (stars BETWEEN 1 AND 5), " +
+                    "rated_at INTEGER NOT NULL)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_ratings_media ON ratings (media_id, stars)");
+
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_title ON media (title, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_artist_title ON media (artist, title)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_artist_nocase ON media (artist COLLATE NOCASE)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_duration ON media (duration, id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_type ON media (media_type COLLATE NOCASE)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_media_release_year ON media (release_year)");
+
+            initializeFullTextIndex(stmt);
+            initializeChangeLog(stmt);
+        }
+    }
+
+    // Log of touched media ids, used to refresh snapshot files incrementally. Main --snapshot and
+    // -Dmusiclibrary.http.snapshot prune the entries a refresh has applied; trimChangeLog caps it
+    // for databases that never refresh one.
+    private void initializeChangeLog(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS media_changes (" +
+                "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "media_id INTEGER NOT NULL)");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_changes_ai AFTER INSERT ON media BEGIN " +
+                "INSERT INTO media_changes (media_id) VALUES (new.id); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_changes_ad AFTER DELETE ON media BEGIN " +
+                "INSERT INTO media_changes (media_id) VALUES (old.id); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_changes_au AFTER UPDATE ON media BEGIN " +
+                "INSERT INTO media_changes (media_id) VALUES (new.id); " +
+                "INSERT INTO media_changes (media_id) SELECT old.id WHERE old.id <> new.id; END");
+    }
+
+    // Keeps the newest CHANGE_LOG_RETENTION entries. A snapshot that falls further behind than that
+    // sees the gap on its next refresh and is rebuilt instead of replayed.
+    private void trimChangeLog() {
+        if (CHANGE_LOG_RETENTION <= 0) {
+            return;
+        }
+        try {
+            int trimmed = executeWrite(conn -> {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "DELETE FROM media_changes WHERE seq <= (SELECT MAX(seq) FROM media_changes) - ?")) {
+                    ps.setLong(1, CHANGE_LOG_RETENTION);
+                    return ps.executeUpdate();
+                }
+            });
+            if (trimmed > 0) {
+                System.out.println("Media change log trimmed: " + trimmed + " entries");
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Media change log trim failed: " + e.getMessage());
+        }
+    }
+
+    // External-content FTS5 table over media; triggers keep it in step with every write.
+    private void initializeFullTextIndex(Statement stmt) throws SQLException {
+        boolean exists;
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'media_fts'")) {
+            exists = rs.next();
+        }
+
+        stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS media_fts USING fts5(" +
+                "title, artist, album, genre, host, category, " +
+                "content = 'media', content_rowid = 'id', " +
+                "tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')");
+
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_fts_ai AFTER INSERT ON media BEGIN " +
+                "INSERT INTO media_fts (rowid, title, artist, album, genre, host, category) " +
+                "VALUES (new.id, new.title, new.artist, new.album, new.genre, new.host, new.category); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_fts_ad AFTER DELETE ON media BEGIN " +
+                "INSERT INTO media_fts (media_fts, rowid, title, artist, album, genre, host, category) " +
+                "VALUES ('delete', old.id, old.title, old.artist, old.album, old.genre, old.host, old.category); END");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS media_fts_au AFTER UPDATE ON media BEGIN " +
+                "INSERT INTO media_fts (media_fts, rowid, title, artist, album, genre, host, category) " +
+                "VALUES ('delete', old.id, old.title, old.artist, old.album, old.genre, old.host, old.category); " +
+                "INSERT INTO media_fts (rowid, title, artist, album, genre, host, category) " +
+                "VALUES (new.id, new.title, new.artist, new.album, new.genre, new.host, new.category); END");
+
+        if (!exists) {
+            stmt.execute("INSERT INTO media_fts (media_fts) VALUES ('rebuild')");
+        }
     }
 
     public void closeResources(ResultSet rs, PreparedStatement ps) {
@@ -50,4 +361,13 @@ public class DatabaseConnection {
             System.err.println("Error closing resources: " + e.getMessage());
         }
     }
+
+    public void closeResources(ResultSet rs, PreparedStatement ps, Connection conn) {
+        closeResources(rs, ps);
+        try {
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing resources: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,339 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.QueryEvaluator;
+import com.musiclibrary.repository.query.QuerySpec;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Multi-key sorting for large in-memory media lists.
+// Each sort key is reduced to an int rank once per sort: strings through the configured
+// collation (binary, NOCASE for ignore-case orders, or a java.text.Collator), numbers by
+// offset, NULL as rank 0 so it sorts first ascending like SQL. When all ranks plus the row
+// index fit in 63 bits they are packed into one long per row and sorted with
+// Arrays.parallelSort(long[]); otherwise an index comparator walks the rank columns.
+// Equal keys keep their input order either way.
+public final class MediaSorter {
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+    private static final int TOP_K_CHUNK = 1 << 15;
+
+    private final List<QuerySpec.Order> orders;
+    private final Collator collator;
+
+    private MediaSorter(List<QuerySpec.Order> orders, Collator collator) {
+        if (orders.isEmpty()) {
+            throw new IllegalArgumentException("At least one sort key is required");
+        }
+        this.orders = List.copyOf(orders);
+        this.collator = collator;
+    }
+
+    public static MediaSorter by(MediaField... fields) {
+        QuerySpec spec = QuerySpec.all();
+        for (MediaField field : fields) {
+            spec.orderBy(field);
+        }
+        return of(spec);
+    }
+
+    public static MediaSorter of(QuerySpec spec) {
+        return new MediaSorter(spec.getOrders(), null);
+    }
+
+    // Locale-aware text keys. Collation keys are computed once per distinct string.
+    public MediaSorter withCollator(Collator collator) {
+        return new MediaSorter(orders, collator);
+    }
+
+    public List<Media> sort(List<Media> media) {
+        int[] order = order(media);
+        List<Media> sorted = new ArrayList<>(order.length);
+        for (int index : order) {
+            sorted.add(media.get(index));
+        }
+        return sorted;
+    }
+
+    public void sortInPlace(List<Media> media) {
+        Media[] source = media.toArray(new Media[0]);
+        int[] order = order(media);
+        for (int i = 0; i < order.length; i++) {
+            media.set(i, source[order[i]]);
+        }
+    }
+
+    // Permutation of input indices in sorted order.
+    public int[] order(List<Media> media) {
+        int n = media.size();
+        int[][] ranks = new int[orders.size()][];
+        int[] bits = new int[orders.size()];
+        int totalBits = bitsFor(n);
+        for (int k = 0; k < orders.size(); k++) {
+            ranks[k] = ranks(media, orders.get(k));
+            int max = 0;
+            for (int rank : ranks[k]) {
+                max = Math.max(max, rank);
+            }
+            bits[k] = bitsFor(max + 1);
+            totalBits += bits[k];
+        }
+        return totalBits <= 63 ? sortPacked(ranks, bits, n) : sortByColumns(ranks, n);
+    }
+
+    public List<Media> top(List<Media> media, int limit) {
+        return page(media, 0, limit);
+    }
+
+    // Rows [offset, offset + limit) of the sorted order, without sorting the rest.
+    // Chunks keep bounded heaps of their best rows in parallel; only the survivors are merged.
+    public List<Media> page(List<Media> media, int offset, int limit) {
+        int n = media.size();
+        int k = (int) Math.min((long) offset + limit, n);
+        if (k <= 0 || offset >= n) {
+            return new ArrayList<>();
+        }
+        if (k > n / 8) {
+            return new ArrayList<>(sort(media).subList(offset, k));
+        }
+
+        Comparator<Integer> byKey = indexComparator(media);
+        int chunks = (n + TOP_K_CHUNK - 1) / TOP_K_CHUNK;
+        List<Integer> candidates = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, byKey.reversed());
+                    int end = Math.min(n, (chunk + 1) * TOP_K_CHUNK);
+                    for (int i = chunk * TOP_K_CHUNK; i < end; i++) {
+                        heap.offer(i);
+                        if (heap.size() > k) {
+                            heap.poll();
+                        }
+                    }
+                    return heap;
+                })
+                .flatMap(PriorityQueue::stream)
+                .sorted(byKey)
+                .limit(k)
+                .collect(Collectors.toList());
+
+        List<Media> result = new ArrayList<>(k - offset);
+        for (int i = offset; i < candidates.size(); i++) {
+            result.add(media.get(candidates.get(i)));
+        }
+        return result;
+    }
+
+    // Order-preserving filter; the predicate must be safe to call from several threads.
+    public static List<Media> filter(List<Media> media, Predicate<Media> predicate) {
+        if (media.size() < PARALLEL_THRESHOLD) {
+            List<Media> result = new ArrayList<>();
+            for (Media item : media) {
+                if (predicate.test(item)) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+        return media.parallelStream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private int[] sortPacked(int[][] ranks, int[] bits, int n) {
+        int indexBits = bitsFor(n);
+        long[] packed = new long[n];
+        forEachRow(n, i -> {
+            long key = 0;
+            for (int k = 0; k < ranks.length; k++) {
+                key = (key << bits[k]) | ranks[k][i];
+            }
+            packed[i] = (key << indexBits) | i;
+        });
+        if (n >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(packed);
+        } else {
+            Arrays.sort(packed);
+        }
+
+        long indexMask = (1L << indexBits) - 1;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) (packed[i] & indexMask);
+        }
+        return order;
+    }
+
+    private static int[] sortByColumns(int[][] ranks, int n) {
+        Integer[] indices = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        Comparator<Integer> byRanks = (a, b) -> {
+            for (int[] column : ranks) {
+                int cmp = Integer.compare(column[a], column[b]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return Integer.compare(a, b);
+        };
+        if (n >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(indices, byRanks);
+        } else {
+            Arrays.sort(indices, byRanks);
+        }
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = indices[i];
+        }
+        return order;
+    }
+
+    // Dense ranks in sort direction: equal keys share a rank, NULL is 0 before inversion.
+    private int[] ranks(List<Media> media, QuerySpec.Order order) {
+        int n = media.size();
+        MediaField field = order.getField();
+        int[] ranks = new int[n];
+
+        if (field.isText()) {
+            String[] values = new String[n];
+            forEachRow(n, i -> values[i] = (String) field.extract(media.get(i)));
+            Map<String, Integer> rankOf = rankDistinct(values, order.isIgnoreCase());
+            forEachRow(n, i -> ranks[i] = values[i] == null ? 0 : rankOf.get(values[i]));
+        } else {
+            long[] values = new long[n];
+            boolean[] nulls = new boolean[n];
+            forEachRow(n, i -> {
+                Object value = field.extract(media.get(i));
+                nulls[i] = value == null;
+                values[i] = value == null ? 0 : ((Number) value).longValue();
+            });
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                if (!nulls[i]) {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+            }
+            if (min <= max && max - min >= Integer.MAX_VALUE - 1) {
+                throw new IllegalArgumentException("Value range of " + field + " is too wide to rank");
+            }
+            long base = min;
+            forEachRow(n, i -> ranks[i] = nulls[i] ? 0 : (int) (values[i] - base + 1));
+        }
+
+        if (!order.isAscending()) {
+            int max = 0;
+            for (int rank : ranks) {
+                max = Math.max(max, rank);
+            }
+            int top = max;
+            forEachRow(n, i -> ranks[i] = top - ranks[i]);
+        }
+        return ranks;
+    }
+
+    private Map<String, Integer> rankDistinct(String[] values, boolean ignoreCase) {
+        String[] distinct = Arrays.stream(values)
+                .parallel()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toArray(String[]::new);
+        Map<String, Integer> rankOf = new HashMap<>(distinct.length * 2);
+        if (distinct.length == 0) {
+            return rankOf;
+        }
+
+        if (collator != null) {
+            CollationKey[] keys = new CollationKey[distinct.length];
+            for (int i = 0; i < distinct.length; i++) {
+                keys[i] = collator.getCollationKey(distinct[i]);
+            }
+            sort(keys, Comparator.naturalOrder());
+            int rank = 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0 && keys[i].compareTo(keys[i - 1]) != 0) {
+                    rank++;
+                }
+                rankOf.put(keys[i].getSourceString(), rank);
+            }
+        } else {
+            Comparator<String> collation = ignoreCase ? QueryEvaluator.NOCASE : Comparator.naturalOrder();
+            sort(distinct, collation);
+            int rank = 1;
+            for (int i = 0; i < distinct.length; i++) {
+                if (i > 0 && collation.compare(distinct[i], distinct[i - 1]) != 0) {
+                    rank++;
+                }
+                rankOf.put(distinct[i], rank);
+            }
+        }
+        return rankOf;
+    }
+
+    // Direct comparison for top-K, where ranking every row would cost more than the heap.
+    private Comparator<Integer> indexComparator(List<Media> media) {
+        return (a, b) -> {
+            Media x = media.get(a);
+            Media y = media.get(b);
+            for (QuerySpec.Order order : orders) {
+                int cmp = compare(order, order.getField().extract(x), order.getField().extract(y));
+                if (cmp != 0) {
+                    return order.isAscending() ? cmp : -cmp;
+                }
+            }
+            return Integer.compare(a, b);
+        };
+    }
+
+    private int compare(QuerySpec.Order order, Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        if (a instanceof String) {
+            if (collator != null) {
+                return collator.compare(a, b);
+            }
+            return order.isIgnoreCase()
+                    ? QueryEvaluator.NOCASE.compare((String) a, (String) b)
+                    : ((String) a).compareTo((String) b);
+        }
+        return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+    }
+
+    private static <T> void sort(T[] values, Comparator<? super T> comparator) {
+        if (values.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(values, comparator);
+        } else {
+            Arrays.sort(values, comparator);
+        }
+    }
+
+    private static void forEachRow(int n, IntConsumer action) {
+        if (n >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, n).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < n; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    private static int bitsFor(int values) {
+        return values <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(values - 1);
+    }
+}
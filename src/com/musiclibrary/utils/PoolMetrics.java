@@ -0,0 +1,64 @@
+package com.musiclibrary.utils;
+
+import java.util.concurrent.TimeUnit;
+
+public class PoolMetrics {
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final int maxSize;
+    private final long checkouts;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long validationFailures;
+    private final long connectionsCreated;
+    private final long connectionsClosed;
+    private final long uptimeNanos;
+
+    public PoolMetrics(int activeConnections, int idleConnections, int waitingThreads, int maxSize,
+                       long checkouts, long totalWaitNanos, long maxWaitNanos, long validationFailures,
+                       long connectionsCreated, long connectionsClosed, long uptimeNanos) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.maxSize = maxSize;
+        this.checkouts = checkouts;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.validationFailures = validationFailures;
+        this.connectionsCreated = connectionsCreated;
+        this.connectionsClosed = connectionsClosed;
+        this.uptimeNanos = uptimeNanos;
+    }
+
+    public int getActiveConnections() { return activeConnections; }
+    public int getIdleConnections() { return idleConnections; }
+    public int getWaitingThreads() { return waitingThreads; }
+    public int getMaxSize() { return maxSize; }
+    public long getCheckouts() { return checkouts; }
+    public long getValidationFailures() { return validationFailures; }
+    public long getConnectionsCreated() { return connectionsCreated; }
+    public long getConnectionsClosed() { return connectionsClosed; }
+
+    public double getAverageWaitMillis() {
+        return checkouts == 0 ? 0.0 : totalWaitNanos / (double) checkouts / 1_000_000.0;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    public double getCheckoutsPerSecond() {
+        double seconds = uptimeNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        return seconds <= 0 ? 0.0 : checkouts / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[active=%d, idle=%d, waiting=%d, max=%d, checkouts=%d (%.1f/s), " +
+                        "avgWait=%.3fms, maxWait=%.3fms, validationFailures=%d, created=%d, closed=%d]",
+                activeConnections, idleConnections, waitingThreads, maxSize, checkouts,
+                getCheckoutsPerSecond(), getAverageWaitMillis(), getMaxWaitMillis(),
+                validationFailures, connectionsCreated, connectionsClosed);
+    }
+}
@@ -0,0 +1,108 @@
+package com.musiclibrary.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lets a caller cancel the SQL that another thread is running on its behalf. While a scope
+// is entered on a thread, connections handed out by DatabaseConnection record the statements
+// they create; cancel() calls Statement.cancel() on every statement whose connection is still
+// checked out. sqlite-jdbc's cancel interrupts the whole connection, so cancel() runs under
+// the scope's lock and a closing connection forgets its statements under the same lock before
+// it goes back to the pool: a close waits for an in-flight cancel, and a cancel that comes
+// later no longer sees the connection, so the next borrower cannot be interrupted. Writes run
+// on the writer thread and are not covered.
+public final class QueryCancellation {
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Map<Connection, List<Statement>> open = new HashMap<>();
+    private boolean cancelled;
+
+    public static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    // Returns the scope that was active before, to be passed back to exit().
+    public QueryCancellation enter() {
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public void exit(QueryCancellation previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Statement.cancel() only signals the connection, so holding the lock across it is brief.
+    public synchronized void cancel() {
+        cancelled = true;
+        for (List<Statement> statements : open.values()) {
+            for (Statement statement : statements) {
+                cancelQuietly(statement);
+            }
+        }
+    }
+
+    static Connection track(Connection conn) {
+        QueryCancellation scope = CURRENT.get();
+        if (scope == null) {
+            return conn;
+        }
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("close")) {
+                scope.release(conn);
+            }
+            Object result;
+            try {
+                result = method.invoke(conn, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                scope.register(conn, (Statement) result);
+            }
+            return result;
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private void register(Connection conn, Statement statement) throws SQLException {
+        synchronized (this) {
+            if (!cancelled) {
+                open.computeIfAbsent(conn, c -> new ArrayList<>()).add(statement);
+                return;
+            }
+        }
+        statement.close();
+        throw new SQLException("Query cancelled");
+    }
+
+    // Called before the connection is returned; blocks while cancel() is interrupting it.
+    private synchronized void release(Connection conn) {
+        open.remove(conn);
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error cancelling statement: " + e.getMessage());
+        }
+    }
+}
@@ -1,30 +1,60 @@
 package com.musiclibrary.utils;
 
+import com.musiclibrary.catalog.ColumnarCatalog;
 import com.musiclibrary.model.Media;
-import java.util.Comparator;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.QuerySpec;
 import java.util.List;
 import java.util.function.Predicate;
 
 public class SortingUtils {
+    private static final MediaSorter BY_DURATION = MediaSorter.by(MediaField.DURATION);
+    private static final MediaSorter BY_TITLE = MediaSorter.by(MediaField.TITLE);
+    private static final MediaSorter BY_ARTIST_THEN_TITLE = MediaSorter.by(MediaField.ARTIST, MediaField.TITLE);
 
     public static void sortByDuration(List<Media> mediaList) {
-        mediaList.sort((m1, m2) -> Integer.compare(m1.getDuration(), m2.getDuration()));
+        BY_DURATION.sortInPlace(mediaList);
     }
 
     public static void sortByTitle(List<Media> mediaList) {
-        mediaList.sort(Comparator.comparing(Media::getTitle));
+        BY_TITLE.sortInPlace(mediaList);
+    }
+
+    public static void sortByArtistThenTitle(List<Media> mediaList) {
+        BY_ARTIST_THEN_TITLE.sortInPlace(mediaList);
+    }
+
+    public static List<Media> sort(List<Media> mediaList, QuerySpec spec) {
+        return MediaSorter.of(spec).sort(mediaList);
+    }
+
+    // First page of a sorted view without sorting the whole list.
+    public static List<Media> top(List<Media> mediaList, QuerySpec spec, int offset, int limit) {
+        return MediaSorter.of(spec).page(mediaList, offset, limit);
     }
 
     public static List<Media> filterMedia(List<Media> mediaList, Predicate<Media> predicate) {
-        return mediaList.stream()
-                .filter(predicate)
-                .toList();
+        return MediaSorter.filter(mediaList, predicate);
     }
 
     public static List<Media> filterByMinDuration(List<Media> mediaList, int minDuration) {
         return filterMedia(mediaList, media -> media.getDuration() >= minDuration);
     }
 
-    public static void sortByArtistThenTitle(java.util.List<com.musiclibrary.model.Media> mediaList) {
+    // Columnar variants: return row numbers in order; use catalog.materialize(rows) for entities.
+    public static int[] sortByDuration(ColumnarCatalog catalog) {
+        return catalog.rowsSortedByDuration();
+    }
+
+    public static int[] sortByTitle(ColumnarCatalog catalog) {
+        return catalog.rowsSortedByTitle();
+    }
+
+    public static int[] sortByArtistThenTitle(ColumnarCatalog catalog) {
+        return catalog.rowsSortedByArtistThenTitle();
+    }
+
+    public static int[] filterByMinDuration(ColumnarCatalog catalog, int minDuration) {
+        return catalog.rowsWithDurationAtLeast(minDuration);
     }
 }
\ No newline at end of file
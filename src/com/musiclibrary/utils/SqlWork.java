@@ -0,0 +1,9 @@
+package com.musiclibrary.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlWork<T> {
+    T execute(Connection conn) throws SQLException;
+}
@@ -0,0 +1,165 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SQLite allows one writer at a time, so every write runs on a single thread that owns
+// the only read-write connection. Callers queue work instead of fighting over the lock.
+public class SqliteWriteQueue implements AutoCloseable {
+    private final Connection connection;
+    private final BlockingQueue<Task<?>> queue;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+
+    public SqliteWriteQueue(Connection connection, int capacity) {
+        this.connection = connection;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::runLoop, "sqlite-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        if (Thread.currentThread() == writerThread) {
+            // Nested write from inside a queued task: join the caller's transaction.
+            try {
+                return CompletableFuture.completedFuture(work.execute(connection));
+            } catch (Throwable t) {
+                return CompletableFuture.failedFuture(t);
+            }
+        }
+        Task<T> task = new Task<>(work);
+        if (!running) {
+            throw new DatabaseOperationException("Write queue is closed");
+        }
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Interrupted while queueing a write", e);
+        }
+        // close() may have drained the queue between the check above and the put; whichever
+        // side removes the task fails it, so no caller waits on a task nobody will run.
+        if (!running && queue.remove(task)) {
+            task.reject();
+        }
+        return task.future;
+    }
+
+    public <T> T execute(SqlWork<T> work) throws SQLException {
+        try {
+            return submit(work).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseOperationException("Interrupted while waiting for a write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) throw (SQLException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new DatabaseOperationException("Write failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void runLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> task = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run(connection);
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public int getPendingWrites() {
+        return queue.size();
+    }
+
+    public long getCompletedWrites() {
+        return completed.get();
+    }
+
+    public long getFailedWrites() {
+        return failed.get();
+    }
+
+    public double getAverageQueueMillis() {
+        long done = completed.get() + failed.get();
+        return done == 0 ? 0.0 : totalQueueNanos.get() / (double) done / 1_000_000.0;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Task<?> leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.reject();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing writer connection: " + e.getMessage());
+        }
+    }
+
+    private class Task<T> {
+        private final SqlWork<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+
+        Task(SqlWork<T> work) {
+            this.work = work;
+        }
+
+        void run(Connection conn) {
+            totalQueueNanos.addAndGet(System.nanoTime() - enqueuedNanos);
+            try {
+                future.complete(work.execute(conn));
+                completed.incrementAndGet();
+            } catch (Throwable t) {
+                failed.incrementAndGet();
+                future.completeExceptionally(t);
+            } finally {
+                resetTransaction(conn);
+            }
+        }
+
+        void reject() {
+            failed.incrementAndGet();
+            future.completeExceptionally(new DatabaseOperationException("Write queue is closed"));
+        }
+    }
+
+    private static void resetTransaction(Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resetting writer connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.repository.CacheStats;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-connection LRU of compiled PreparedStatements, keyed by SQL text and generated-keys
+// mode. Repositories keep calling prepareStatement/close as before: close() clears the
+// parameters, closes any open ResultSet (so SQLite resets the statement and releases its
+// read snapshot) and parks the statement for the next caller on the same connection.
+// A statement is removed from the cache while checked out, so nested use of the same SQL
+// simply compiles a second, uncached copy.
+public class StatementCache {
+    private final int maxPerConnection;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicInteger cached = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public StatementCache(int maxPerConnection) {
+        if (maxPerConnection <= 0) {
+            throw new IllegalArgumentException("Statement cache size must be positive: " + maxPerConnection);
+        }
+        this.maxPerConnection = maxPerConnection;
+    }
+
+    public Connection wrap(Connection raw) {
+        ConnectionStatements statements = new ConnectionStatements(raw);
+        connections.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            if (args.length == 1) {
+                                return statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                            }
+                            if (args.length == 2 && args[1] instanceof Integer) {
+                                return statements.prepare((String) args[0], (Integer) args[1]);
+                            }
+                            break;
+                        case "close":
+                            statements.closeAll();
+                            connections.decrementAndGet();
+                            break;
+                        default:
+                            break;
+                    }
+                    return invoke(raw, method, args);
+                });
+    }
+
+    // hits = compilations avoided, misses = statements compiled.
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), 0, cached.get(),
+                maxPerConnection * Math.max(1, connections.get()));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionStatements {
+        private final Connection raw;
+        private final Map<String, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+        ConnectionStatements(Connection raw) {
+            this.raw = raw;
+        }
+
+        synchronized PreparedStatement prepare(String sql, int generatedKeys) throws SQLException {
+            String key = generatedKeys + ":" + sql;
+            PreparedStatement statement = idle.remove(key);
+            if (statement != null) {
+                cached.decrementAndGet();
+                hits.increment();
+            } else {
+                statement = generatedKeys == Statement.NO_GENERATED_KEYS
+                        ? raw.prepareStatement(sql)
+                        : raw.prepareStatement(sql, generatedKeys);
+                misses.increment();
+            }
+            return checkout(key, statement);
+        }
+
+        synchronized void checkin(String key, PreparedStatement statement) {
+            if (idle.containsKey(key)) {
+                closeQuietly(statement);
+                return;
+            }
+            idle.put(key, statement);
+            cached.incrementAndGet();
+            if (idle.size() > maxPerConnection) {
+                Iterator<PreparedStatement> eldest = idle.values().iterator();
+                closeQuietly(eldest.next());
+                eldest.remove();
+                cached.decrementAndGet();
+                evictions.increment();
+            }
+        }
+
+        synchronized void closeAll() {
+            List<PreparedStatement> statements = new ArrayList<>(idle.values());
+            cached.addAndGet(-statements.size());
+            idle.clear();
+            for (PreparedStatement statement : statements) {
+                closeQuietly(statement);
+            }
+        }
+
+        private PreparedStatement checkout(String key, PreparedStatement statement) {
+            Checkout state = new Checkout();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!state.closed) {
+                                    state.closed = true;
+                                    release(key, statement, state);
+                                }
+                                return null;
+                            case "isClosed":
+                                return state.closed || statement.isClosed();
+                            case "setFetchSize":
+                            case "setMaxRows":
+                            case "setQueryTimeout":
+                                state.tuned = true;
+                                break;
+                            default:
+                                break;
+                        }
+                        if (state.closed) {
+                            throw new SQLException("Statement is closed");
+                        }
+                        Object result = invoke(statement, method, args);
+                        if (result instanceof ResultSet) {
+                            state.resultSet = (ResultSet) result;
+                        }
+                        return result;
+                    });
+        }
+
+        private void release(String key, PreparedStatement statement, Checkout state) {
+            try {
+                if (state.resultSet != null && !state.resultSet.isClosed()) {
+                    state.resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                if (state.tuned) {
+                    statement.setFetchSize(0);
+                    statement.setMaxRows(0);
+                    statement.setQueryTimeout(0);
+                }
+                if (statement.isClosed()) {
+                    return;
+                }
+            } catch (SQLException e) {
+                closeQuietly(statement);
+                return;
+            }
+            checkin(key, statement);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    private static class Checkout {
+        private boolean closed;
+        private boolean tuned;
+        private ResultSet resultSet;
+    }
+}
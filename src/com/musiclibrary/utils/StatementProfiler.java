@@ -0,0 +1,290 @@
+package com.musiclibrary.utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Wraps JDBC connections so every statement execution is timed and aggregated per
+// normalized SQL shape. Executions over the threshold go to the slow-query log, and the
+// first slow execution of each shape also records its EXPLAIN QUERY PLAN.
+// A query is timed from execute until its ResultSet is exhausted or closed, because
+// SQLite does most of its work while stepping through rows, not in executeQuery itself.
+public class StatementProfiler {
+    private static final int MAX_CACHED_SQL = 10_000;
+    private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)(?:\\s*,\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\))+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long slowThresholdNanos;
+    private final boolean explainSlowQueries;
+    private final PrintStream slowLog;
+    private final Map<String, StatementStats> statsByShape = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> statsBySql = new ConcurrentHashMap<>();
+
+    public StatementProfiler(long slowThresholdMillis, boolean explainSlowQueries, String slowLogFile) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.explainSlowQueries = explainSlowQueries;
+        this.slowLog = openLog(slowLogFile);
+    }
+
+    private static PrintStream openLog(String file) {
+        if (file == null || file.isEmpty()) {
+            return System.out;
+        }
+        try {
+            return new PrintStream(Files.newOutputStream(Paths.get(file),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), true, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Cannot open slow-query log " + file + ": " + e.getMessage());
+            return System.out;
+        }
+    }
+
+    public Connection wrap(Connection raw) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(raw, method, args);
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return wrapStatement((Statement) result, PreparedStatement.class, raw, (String) args[0]);
+                        case "createStatement":
+                            return wrapStatement((Statement) result, Statement.class, raw, null);
+                        default:
+                            return result;
+                    }
+                });
+    }
+
+    public List<StatementStats> getStatementStats() {
+        List<StatementStats> stats = new ArrayList<>(statsByShape.values());
+        stats.sort(Comparator.comparingDouble(StatementStats::getTotalMillis).reversed());
+        return stats;
+    }
+
+    public String report(int top) {
+        StringBuilder report = new StringBuilder("=== SQL statements by total time ===");
+        List<StatementStats> stats = getStatementStats();
+        for (int i = 0; i < Math.min(top, stats.size()); i++) {
+            report.append(System.lineSeparator()).append(stats.get(i));
+        }
+        return report.toString();
+    }
+
+    public void reset() {
+        statsByShape.clear();
+        statsBySql.clear();
+    }
+
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        // Chunked IN lists and multi-row VALUES would otherwise create one shape per size.
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?...)");
+        shape = VALUES_LIST.matcher(shape).replaceAll("(?...)...");
+        return shape;
+    }
+
+    private StatementStats statsFor(String sql) {
+        StatementStats stats = statsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        stats = statsByShape.computeIfAbsent(normalize(sql), StatementStats::new);
+        if (statsBySql.size() < MAX_CACHED_SQL) {
+            statsBySql.put(sql, stats);
+        }
+        return stats;
+    }
+
+    private <S extends Statement> S wrapStatement(Statement statement, Class<S> type, Connection raw, String sql) {
+        StatementHandler handler = new StatementHandler(statement, raw, sql);
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private void finish(Execution execution, boolean failed) {
+        long elapsed = System.nanoTime() - execution.startNanos;
+        StatementStats stats = execution.stats;
+        stats.record(elapsed, execution.rows, failed);
+        if (elapsed < slowThresholdNanos) {
+            return;
+        }
+        stats.recordSlow();
+        if (explainSlowQueries && stats.getQueryPlan() == null) {
+            stats.setQueryPlan(explain(execution.connection, execution.sql));
+        }
+        slowLog.printf("[slow-query] %s %.1f ms rows=%d%s %s%n", LocalDateTime.now(), elapsed / 1_000_000.0,
+                execution.rows, failed ? " FAILED" : "", stats.getShape());
+        if (stats.getQueryPlan() != null) {
+            slowLog.println("    plan: " + stats.getQueryPlan());
+        }
+    }
+
+    // Runs on the raw connection so the EXPLAIN itself is not profiled. Unbound parameters
+    // are NULL, which does not change the plan SQLite picks.
+    private static String explain(Connection raw, String sql) {
+        String verb = sql.trim().split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (!Set.of("SELECT", "WITH", "INSERT", "UPDATE", "DELETE", "REPLACE").contains(verb)) {
+            return null;
+        }
+        try (PreparedStatement ps = raw.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = ps.executeQuery()) {
+            List<String> steps = new ArrayList<>();
+            while (rs.next()) {
+                steps.add(rs.getString("detail"));
+            }
+            return String.join("; ", steps);
+        } catch (SQLException e) {
+            return "unavailable (" + e.getMessage() + ")";
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Execution {
+        private final StatementStats stats;
+        private final Connection connection;
+        private final String sql;
+        private final long startNanos = System.nanoTime();
+        private long rows;
+        private boolean finished;
+
+        Execution(StatementStats stats, Connection connection, String sql) {
+            this.stats = stats;
+            this.connection = connection;
+            this.sql = sql;
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection raw;
+        private final String preparedSql;
+        private final StatementStats preparedStats;
+        private Execution open;
+
+        StatementHandler(Statement statement, Connection raw, String preparedSql) {
+            this.statement = statement;
+            this.raw = raw;
+            this.preparedSql = preparedSql;
+            this.preparedStats = preparedSql != null ? statsFor(preparedSql) : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                complete(false);
+                return StatementProfiler.invoke(statement, method, args);
+            }
+            if (name.equals("getResultSet") && open != null) {
+                ResultSet rs = (ResultSet) StatementProfiler.invoke(statement, method, args);
+                return rs != null ? wrapResultSet(rs, open) : null;
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                return StatementProfiler.invoke(statement, method, args);
+            }
+
+            complete(false);
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null) {
+                return StatementProfiler.invoke(statement, method, args);
+            }
+            Execution execution = new Execution(sql == preparedSql ? preparedStats : statsFor(sql), raw, sql);
+            Object result;
+            try {
+                result = StatementProfiler.invoke(statement, method, args);
+            } catch (Throwable t) {
+                finish(execution, true);
+                throw t;
+            }
+
+            if (result instanceof ResultSet) {
+                open = execution;
+                return wrapResultSet((ResultSet) result, execution);
+            }
+            if (result instanceof Boolean) {
+                if ((Boolean) result) {
+                    // execute() produced a result set; it will be read through getResultSet().
+                    open = execution;
+                    return result;
+                }
+                execution.rows = Math.max(0, statement.getUpdateCount());
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) execution.rows += Math.max(0, count);
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) execution.rows += Math.max(0, count);
+            } else if (result instanceof Number) {
+                execution.rows = ((Number) result).longValue();
+            }
+            execution.finished = true;
+            finish(execution, false);
+            return result;
+        }
+
+        private void complete(boolean failed) {
+            if (open != null && !open.finished) {
+                open.finished = true;
+                finish(open, failed);
+            }
+            open = null;
+        }
+
+        private ResultSet wrapResultSet(ResultSet rs, Execution execution) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next": {
+                                boolean hasRow = (Boolean) StatementProfiler.invoke(rs, method, args);
+                                if (hasRow) {
+                                    execution.rows++;
+                                } else if (open == execution) {
+                                    complete(false);
+                                }
+                                return hasRow;
+                            }
+                            case "close":
+                                if (open == execution) {
+                                    complete(false);
+                                }
+                                return StatementProfiler.invoke(rs, method, args);
+                            default:
+                                return StatementProfiler.invoke(rs, method, args);
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Aggregate for one normalized statement shape, e.g. "SELECT * FROM media WHERE id = ?".
+public class StatementStats {
+    private final String shape;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slowExecutions = new LongAdder();
+    private volatile String queryPlan;
+
+    StatementStats(String shape) {
+        this.shape = shape;
+    }
+
+    void record(long nanos, long rowCount, boolean failed) {
+        latency.record(nanos);
+        totalNanos.add(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    void recordSlow() {
+        slowExecutions.increment();
+    }
+
+    void setQueryPlan(String queryPlan) {
+        this.queryPlan = queryPlan;
+    }
+
+    public String getShape() { return shape; }
+    public long getExecutions() { return latency.getCount(); }
+    public long getRows() { return rows.sum(); }
+    public long getErrors() { return errors.sum(); }
+    public long getSlowExecutions() { return slowExecutions.sum(); }
+    public String getQueryPlan() { return queryPlan; }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1_000_000.0;
+    }
+
+    public double getP50Millis() {
+        return latency.getPercentileNanos(50) / 1_000_000.0;
+    }
+
+    public double getP99Millis() {
+        return latency.getPercentileNanos(99) / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return latency.getMaxNanos() / 1_000_000.0;
+    }
+
+    public double getRowsPerExecution() {
+        long executions = getExecutions();
+        return executions == 0 ? 0.0 : getRows() / (double) executions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%9.1fms total  %7d execs  p50=%.3fms  p99=%.3fms  max=%.3fms  rows/exec=%.1f  errors=%d  slow=%d  %s%s",
+                getTotalMillis(), getExecutions(), getP50Millis(), getP99Millis(), getMaxMillis(),
+                getRowsPerExecution(), getErrors(), getSlowExecutions(), shape,
+                queryPlan != null ? System.lineSeparator() + "            plan: " + queryPlan : "");
+    }
+}
@@ -0,0 +1,82 @@
+package com.musiclibrary.catalog;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarCatalogTest {
+    private static final String[] WORDS = {"alpha", "Alpha", "beta", "Ärger", "zeta", "Ａwide", "🎵note", ""};
+
+    // SQLite's BINARY collation: UTF-8 bytes compared unsigned, then id as the tie-break.
+    private static final Comparator<Media> SQL_TITLE_ORDER = Comparator
+            .comparing((Media m) -> m.getTitle().getBytes(StandardCharsets.UTF_8), Arrays::compareUnsigned)
+            .thenComparingInt(Media::getId);
+
+    private static List<Media> sample(int count) {
+        Random random = new Random(11);
+        List<Media> media = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + (random.nextBoolean() ? " " + random.nextInt(20) : "");
+            String artist = "Artist " + random.nextInt(7);
+            media.add(id % 3 == 0
+                    ? new Podcast(id, title, artist, 100 + id, 2000, "Host", "Talk", id, "About " + id)
+                    : new Song(id, title, artist, 100 + id, 2000, "Album", "Rock", id));
+        }
+        return media;
+    }
+
+    private static List<Integer> ids(ColumnarCatalog catalog, int[] rows) {
+        List<Integer> ids = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            ids.add(catalog.getId(row));
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Media> media) {
+        List<Integer> ids = new ArrayList<>(media.size());
+        for (Media m : media) {
+            ids.add(m.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void titleOrderMatchesTheSqlCollation() {
+        List<Media> media = sample(2_000);
+        ColumnarCatalog catalog = ColumnarCatalog.from(media);
+
+        List<Media> expected = new ArrayList<>(media);
+        expected.sort(SQL_TITLE_ORDER);
+
+        assertEquals(ids(expected), ids(catalog, catalog.rowsSortedByTitle()));
+    }
+
+    @Test
+    void artistThenTitleOrderUsesTheSameTitleRanks() {
+        List<Media> media = sample(500);
+        ColumnarCatalog catalog = ColumnarCatalog.from(media);
+
+        List<Media> expected = new ArrayList<>(media);
+        expected.sort(Comparator.comparing(Media::getArtist).thenComparing(SQL_TITLE_ORDER));
+
+        assertEquals(ids(expected), ids(catalog, catalog.rowsSortedByArtistThenTitle()));
+    }
+
+    @Test
+    void emptyAndSingleRowCatalogsSort() {
+        assertEquals(0, ColumnarCatalog.from(new ArrayList<>()).rowsSortedByTitle().length);
+        ColumnarCatalog one = ColumnarCatalog.from(sample(1));
+        assertEquals(List.of(1), ids(one, one.rowsSortedByTitle()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.musiclibrary.ingest;
+
+import com.musiclibrary.exception.InvalidInputException;
+import com.musiclibrary.model.Podcast;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaRecordParserTest {
+    private static final String HEADER = "media_type,title,artist,duration,release_year,host,category,episode_number,description";
+
+    @Test
+    void quotedFieldMaySpanLines() {
+        String first = "Podcast,Talk,Host,1800,2020,H,Tech,3,\"line one";
+        String second = "line \"\"two\"\"\"";
+        assertTrue(MediaRecordParser.endsInsideQuotes(first, false));
+        assertFalse(MediaRecordParser.endsInsideQuotes(second, true));
+
+        Podcast podcast = (Podcast) MediaRecordParser.csv(HEADER).parse(first + "\n" + second);
+        assertEquals("line one\nline \"two\"", podcast.getDescription());
+    }
+
+    @Test
+    void escapedQuotesDoNotOpenAField() {
+        assertFalse(MediaRecordParser.endsInsideQuotes("Song,\"A \"\"quoted\"\" title\",B", false));
+        assertEquals(List.of("Song", "A \"quoted\" title", "B"),
+                MediaRecordParser.splitCsv("Song,\"A \"\"quoted\"\" title\",B"));
+    }
+
+    @Test
+    void unterminatedQuoteIsRejected() {
+        MediaRecordParser parser = MediaRecordParser.csv(HEADER);
+        assertThrows(InvalidInputException.class,
+                () -> parser.parse("Podcast,Talk,Host,1800,2020,H,Tech,3,\"never closed"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.musiclibrary.repository;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingMediaRepositoryTest {
+    private final InMemoryMediaRepository delegate = new InMemoryMediaRepository();
+    private final CachingMediaRepository cache = new CachingMediaRepository(delegate, 100);
+
+    private static Song song(String title, int year) {
+        return new Song(0, title, "Artist", 200, year, "Album", "Rock", 1);
+    }
+
+    @Test
+    void mutatingAReturnedInstanceDoesNotChangeTheCache() {
+        int id = cache.save(song("Original", 2000)).getId();
+
+        Media first = cache.findById(id).orElseThrow();
+        first.setTitle("Changed by caller");
+        Media second = cache.findById(id).orElseThrow();
+
+        assertEquals("Original", second.getTitle());
+        assertNotSame(first, second);
+        assertEquals(1, delegate.calls("findById"));
+    }
+
+    @Test
+    void rejectedChangeToACachedInstanceIsNeverServed() {
+        int id = cache.save(song("Original", 2000)).getId();
+        Media cached = cache.findById(id).orElseThrow();
+
+        // The shape of a rejected update: a setter succeeds, the next one throws.
+        cached.setTitle("X");
+        assertThrows(IllegalArgumentException.class, () -> cached.setReleaseYear(3000));
+
+        assertEquals("Original", cache.findById(id).orElseThrow().getTitle());
+        assertEquals(2000, cache.findById(id).orElseThrow().getReleaseYear());
+    }
+
+    @Test
+    void writesDoNotCacheTheCallersInstance() {
+        Song entity = song("Saved", 2000);
+        int id = cache.save(entity).getId();
+        cache.findById(id);
+
+        Media update = cache.findById(id).orElseThrow();
+        update.setTitle("Updated");
+        cache.update(update);
+        update.setTitle("Changed after update");
+
+        assertEquals("Updated", cache.findById(id).orElseThrow().getTitle());
+        assertEquals("Updated", delegate.stored(id).getTitle());
+    }
+
+    @Test
+    void bulkResultsAreNotSharedWithCachedEntries() {
+        int id = cache.save(song("Original", 2000)).getId();
+        cache.findById(id);
+
+        List<Media> all = cache.findAll();
+        all.get(0).setTitle("Changed by caller");
+        Map<Integer, Media> byId = cache.findAllById(List.of(id));
+        byId.get(id).setTitle("Changed again");
+
+        assertEquals("Original", cache.findById(id).orElseThrow().getTitle());
+    }
+
+    @Test
+    void readRacingAnUpdateDoesNotCacheTheOldRow() throws Exception {
+        int id = delegate.save(song("v1", 2000)).getId();
+
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        delegate.setAfterLoad(media -> {
+            loaded.countDown();
+            await(updated);
+        });
+        CompletableFuture<Media> slowRead = CompletableFuture.supplyAsync(
+                () -> cache.findById(id).orElseThrow());
+
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        delegate.setAfterLoad(media -> { });
+        Media v2 = delegate.stored(id);
+        v2.setTitle("v2");
+        cache.update(v2);
+        updated.countDown();
+
+        assertEquals("v1", slowRead.get(5, TimeUnit.SECONDS).getTitle());
+        assertEquals("v2", cache.findById(id).orElseThrow().getTitle());
+    }
+
+    @Test
+    void readRacingADeleteDoesNotResurrectTheRow() throws Exception {
+        int id = delegate.save(song("v1", 2000)).getId();
+
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+        delegate.setAfterLoad(media -> {
+            loaded.countDown();
+            await(deleted);
+        });
+        CompletableFuture<Boolean> slowRead = CompletableFuture.supplyAsync(() -> cache.findById(id).isPresent());
+
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        delegate.setAfterLoad(media -> { });
+        assertTrue(cache.delete(id));
+        deleted.countDown();
+
+        assertTrue(slowRead.get(5, TimeUnit.SECONDS));
+        assertTrue(cache.findById(id).isEmpty());
+    }
+
+    @Test
+    void sizeStaysWithinTheBoundAcrossSegments() {
+        for (int i = 0; i < 1_000; i++) {
+            delegate.save(song("Song " + i, 2000));
+        }
+        for (int id = 1; id <= 1_000; id++) {
+            cache.findById(id);
+        }
+        int size = cache.getStats().getSize();
+        assertTrue(size > 0 && size <= 100, "cache holds " + size + " entries");
+    }
+
+    @Test
+    void writesFromOutsideTheCacheAreSeenOnceTheEntryExpires() throws Exception {
+        CachingMediaRepository expiring = new CachingMediaRepository(delegate, 100, 50, TimeUnit.MILLISECONDS);
+        int id = delegate.save(song("v1", 2000)).getId();
+        expiring.findById(id);
+
+        // Another process writing the same database: the cache is not told.
+        Media changed = delegate.stored(id);
+        changed.setTitle("v2");
+        delegate.update(changed);
+        assertEquals("v1", expiring.findById(id).orElseThrow().getTitle());
+
+        Thread.sleep(80);
+        assertEquals("v2", expiring.findById(id).orElseThrow().getTitle());
+        assertEquals(1, expiring.getStats().getExpirations());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.musiclibrary.repository;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.repository.interfaces.SearchableRepository;
+import com.musiclibrary.repository.query.GroupStats;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.Page;
+import com.musiclibrary.repository.query.PageCursor;
+import com.musiclibrary.repository.query.QuerySpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Map-backed repository for tests. Like the JDBC repository it stores and returns copies, so
+// instances never leak between callers. afterLoad runs after findById has read its row and
+// before it returns, which lets a test hold a read in flight while it writes.
+public class InMemoryMediaRepository implements SearchableRepository<Media, Integer> {
+    private final Map<Integer, Media> rows = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private volatile Consumer<Media> afterLoad = media -> { };
+
+    public void setAfterLoad(Consumer<Media> afterLoad) {
+        this.afterLoad = afterLoad;
+    }
+
+    public int calls(String method) {
+        AtomicInteger count = calls.get(method);
+        return count != null ? count.get() : 0;
+    }
+
+    // What is actually stored, bypassing any decorator.
+    public Media stored(int id) {
+        Media media = rows.get(id);
+        return media != null ? media.copy() : null;
+    }
+
+    @Override
+    public Media save(Media entity) {
+        count("save");
+        Media saved = entity.copy();
+        saved.setId(nextId.getAndIncrement());
+        rows.put(saved.getId(), saved);
+        return saved.copy();
+    }
+
+    @Override
+    public Optional<Media> findById(Integer id) {
+        count("findById");
+        Media media = rows.get(id);
+        Media copy = media != null ? media.copy() : null;
+        afterLoad.accept(copy);
+        return Optional.ofNullable(copy);
+    }
+
+    @Override
+    public List<Media> findAll() {
+        count("findAll");
+        List<Media> result = new ArrayList<>();
+        for (Media media : rows.values()) {
+            result.add(media.copy());
+        }
+        return result;
+    }
+
+    @Override
+    public Media update(Media entity) {
+        count("update");
+        if (!rows.containsKey(entity.getId())) {
+            throw new IllegalArgumentException("No media with id " + entity.getId());
+        }
+        rows.put(entity.getId(), entity.copy());
+        return entity.copy();
+    }
+
+    @Override
+    public boolean delete(Integer id) {
+        count("delete");
+        return rows.remove(id) != null;
+    }
+
+    @Override
+    public boolean existsById(Integer id) {
+        count("existsById");
+        return rows.containsKey(id);
+    }
+
+    @Override
+    public long count() {
+        return rows.size();
+    }
+
+    @Override
+    public List<Media> findByTitle(String title) {
+        List<Media> result = new ArrayList<>();
+        for (Media media : rows.values()) {
+            if (media.getTitle().toLowerCase().contains(title.toLowerCase())) {
+                result.add(media.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> findByArtist(String artist) {
+        List<Media> result = new ArrayList<>();
+        for (Media media : rows.values()) {
+            if (media.getArtist().equalsIgnoreCase(artist)) {
+                result.add(media.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> findByYear(int year) {
+        List<Media> result = new ArrayList<>();
+        for (Media media : rows.values()) {
+            if (media.getReleaseYear() == year) {
+                result.add(media.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> search(String keyword) {
+        return findByTitle(keyword);
+    }
+
+    @Override
+    public Map<Integer, Media> findAllById(Collection<Integer> ids) {
+        count("findAllById");
+        Map<Integer, Media> result = new HashMap<>();
+        for (Integer id : ids) {
+            Media media = rows.get(id);
+            if (media != null) {
+                result.put(id, media.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Media> query(QuerySpec spec) {
+        throw new UnsupportedOperationException("query");
+    }
+
+    @Override
+    public List<String> findDistinct(MediaField field, QuerySpec spec) {
+        throw new UnsupportedOperationException("findDistinct");
+    }
+
+    @Override
+    public List<GroupStats> aggregate(MediaField groupBy, QuerySpec spec) {
+        throw new UnsupportedOperationException("aggregate");
+    }
+
+    @Override
+    public Page<Media> findPage(QuerySpec spec, PageCursor after, int pageSize) {
+        throw new UnsupportedOperationException("findPage");
+    }
+
+    @Override
+    public Stream<Media> stream(QuerySpec spec, int fetchSize) {
+        throw new UnsupportedOperationException("stream");
+    }
+
+    private void count(String method) {
+        calls.computeIfAbsent(method, m -> new AtomicInteger()).incrementAndGet();
+    }
+}
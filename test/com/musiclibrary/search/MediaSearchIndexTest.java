@@ -0,0 +1,87 @@
+package com.musiclibrary.search;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaSearchIndexTest {
+
+    private static Song song(int id, String title, String artist) {
+        return new Song(id, title, artist, 200, 2000, "Album", "Rock", 1);
+    }
+
+    private static List<Integer> ids(List<Media> media) {
+        return media.stream().map(Media::getId).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void unionAllMatchesAFoldOfPairwiseUnions() {
+        Random random = new Random(7);
+        List<IntPostingList> lists = new ArrayList<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int k = 0; k < 50; k++) {
+            IntPostingList list = new IntPostingList();
+            for (int i = random.nextInt(40); i > 0; i--) {
+                int value = random.nextInt(500);
+                list.add(value);
+                expected.add(value);
+            }
+            lists.add(list);
+        }
+
+        int[] merged = IntPostingList.unionAll(lists).toArray();
+
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), merged);
+        assertEquals(0, IntPostingList.unionAll(new ArrayList<>()).size());
+    }
+
+    @Test
+    void shortPrefixFindsEveryTermThatStartsWithIt() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        List<Media> all = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            all.add(song(id, "b" + Integer.toString(id, 36) + " track", "Artist " + id));
+        }
+        index.rebuild(all);
+
+        assertEquals(300, index.search("b", 1000).size());
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            if (Integer.toString(id, 36).startsWith("1")) {
+                expected.add(id);
+            }
+        }
+        assertEquals(expected, ids(index.search("b1 track", 1000)));
+    }
+
+    @Test
+    void removedTermsNoLongerMatchAndTheirIdsAreSafelyReused() {
+        MediaSearchIndex index = new MediaSearchIndex();
+        index.index(song(1, "Yesterday", "Beatles"));
+        index.index(song(2, "Imagine", "Lennon"));
+
+        index.remove(1);
+        assertTrue(index.search("yesterday").isEmpty());
+        assertTrue(index.search("beatels").isEmpty());
+
+        // New words take over the freed term ids; the old document must not come back.
+        index.index(song(3, "Wonderwall", "Oasis"));
+        assertEquals(List.of(3), ids(index.search("wonder")));
+        assertEquals(List.of(3), ids(index.search("oasis")));
+        assertEquals(List.of(2), ids(index.search("imagine")));
+
+        index.index(song(2, "Imagine", "Lenon"));
+        assertEquals(List.of(2), ids(index.search("lenon")));
+        assertTrue(index.search("lennon").stream().noneMatch(m -> m.getArtist().equals("Lennon")));
+    }
+}
@@ -0,0 +1,180 @@
+package com.musiclibrary.serialization;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaBinaryRoundTripTest {
+    // Two-, three- and four-byte UTF-8 forms, the last as a surrogate pair.
+    private static final String MULTI_BYTE = "Café – 東京 🎵𝄞";
+
+    private static String describe(Media media) {
+        String common = media.getId() + "|" + media.getTitle() + "|" + media.getArtist() + "|"
+                + media.getDuration() + "|" + media.getReleaseYear();
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            return "Song|" + common + "|" + song.getAlbum() + "|" + song.getGenre() + "|" + song.getTrackNumber();
+        }
+        Podcast podcast = (Podcast) media;
+        return "Podcast|" + common + "|" + podcast.getHost() + "|" + podcast.getCategory() + "|"
+                + podcast.getEpisodeNumber() + "|" + podcast.getDescription();
+    }
+
+    private static List<String> describeAll(List<Media> media) {
+        List<String> result = new ArrayList<>();
+        for (Media item : media) {
+            result.add(describe(item));
+        }
+        return result;
+    }
+
+    private static List<Media> catalog() {
+        List<Media> media = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            // Few distinct artists, albums and genres, so the dictionary gets hits.
+            media.add(new Song(i, "Track " + i, "Artist " + (i % 7), 120 + i, 1990 + i % 30,
+                    "Album " + (i % 11), "Genre " + (i % 3), i % 14 + 1));
+            media.add(new Podcast(100_000 + i, "Episode " + i, "Artist " + (i % 7), 1800, 2015 + i % 5,
+                    "Host " + (i % 4), "Category " + (i % 2), i, "Notes " + i));
+        }
+        // Large ids and durations need all five varint bytes.
+        media.add(new Song(Integer.MAX_VALUE, "Last", "Artist 0", Integer.MAX_VALUE, 2001, "Album 0", "Genre 0", 99));
+        return media;
+    }
+
+    private static byte[] encodeStream(List<Media> media, BufferPool pool, boolean dictionary) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MediaBinaryWriter writer = MediaBinaryWriter.to(out, pool, dictionary)) {
+            writer.writeAll(media);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void dictionaryStreamRoundTrips() {
+        List<Media> media = catalog();
+        byte[] withDictionary = encodeStream(media, BufferPool.DEFAULT, true);
+        byte[] without = encodeStream(media, BufferPool.DEFAULT, false);
+
+        assertEquals(describeAll(media), describeAll(MediaBinaryReader.readAll(ByteBuffer.wrap(withDictionary))));
+        assertTrue(withDictionary.length < without.length, "repeated values should be written once");
+    }
+
+    @Test
+    void streamWithoutDictionaryRoundTrips() {
+        List<Media> media = catalog();
+        byte[] bytes = encodeStream(media, BufferPool.DEFAULT, false);
+
+        assertEquals(describeAll(media), describeAll(MediaBinaryReader.readAll(ByteBuffer.wrap(bytes))));
+    }
+
+    @Test
+    void smallStagingBuffersProduceTheSameBytes() {
+        List<Media> media = catalog();
+        byte[] expected = encodeStream(media, BufferPool.DEFAULT, true);
+
+        // Every record straddles a drain of the 16-byte staging buffer.
+        assertTrue(Arrays.equals(expected, encodeStream(media, new BufferPool(16, 1), true)));
+
+        ByteBuffer target = ByteBuffer.allocate(expected.length);
+        try (MediaBinaryWriter writer = MediaBinaryWriter.to(target, true)) {
+            writer.writeAll(media);
+        }
+        assertEquals(expected.length, target.position());
+        assertTrue(Arrays.equals(expected, target.array()));
+    }
+
+    @Test
+    void nullFieldsStayNull() {
+        List<Media> media = List.of(
+                new Song(1, "No album", "Artist", 100, 2000, null, null, 0),
+                new Podcast(2, "No host", "Artist", 100, 2000, null, null, 0, null));
+        List<Media> decoded = MediaBinaryReader.readAll(ByteBuffer.wrap(encodeStream(media, BufferPool.DEFAULT, true)));
+
+        assertEquals(describeAll(media), describeAll(decoded));
+        Song song = (Song) decoded.get(0);
+        assertNull(song.getAlbum());
+        assertNull(song.getGenre());
+        Podcast podcast = (Podcast) decoded.get(1);
+        assertNull(podcast.getHost());
+        assertNull(podcast.getCategory());
+        assertNull(podcast.getDescription());
+    }
+
+    @Test
+    void multiByteAndSurrogateTextRoundTrips() {
+        List<Media> media = List.of(
+                new Song(1, MULTI_BYTE, "Björk", 100, 2000, "Ünïcödé", MULTI_BYTE, 1),
+                new Song(2, "Plain", "Björk", 100, 2000, "Ünïcödé", "Genre", 2),
+                new Podcast(3, "🎙 " + MULTI_BYTE, "Ólafur", 100, 2000, "Ηost", "Κατηγορία", 3, MULTI_BYTE + MULTI_BYTE));
+        for (boolean dictionary : new boolean[]{true, false}) {
+            byte[] bytes = encodeStream(media, new BufferPool(32, 1), dictionary);
+            assertEquals(describeAll(media), describeAll(MediaBinaryReader.readAll(ByteBuffer.wrap(bytes))));
+        }
+
+        // A lone surrogate has no UTF-8 form and is written as U+FFFD.
+        Media lone = new Song(4, "Broken \uD83C end", "Artist", 100, 2000, null, null, 1);
+        assertEquals("Broken � end", MediaCodec.decode(MediaCodec.encode(lone)).getTitle());
+    }
+
+    @Test
+    void recordsLargerThanThePoolBufferRoundTrip() {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 3 * BufferPool.DEFAULT.getBufferSize()) {
+            description.append(MULTI_BYTE).append(' ');
+        }
+        Podcast large = new Podcast(7, "Long notes", "Host", 3600, 2020, "Host", "Talk", 1, description.toString());
+        assertTrue(description.toString().getBytes(StandardCharsets.UTF_8).length > BufferPool.DEFAULT.getBufferSize());
+
+        List<Media> media = List.of(new Song(6, "Before", "A", 100, 2000, "B", "C", 1), large,
+                new Song(8, "After", "A", 100, 2000, "B", "C", 2));
+        byte[] bytes = encodeStream(media, BufferPool.DEFAULT, true);
+        assertEquals(describeAll(media), describeAll(MediaBinaryReader.readAll(ByteBuffer.wrap(bytes))));
+
+        assertEquals(describe(large), describe(MediaCodec.decode(MediaCodec.encode(large))));
+    }
+
+    @Test
+    void truncatedInputIsRejected() {
+        List<Media> media = List.of(
+                new Song(1, "First", "Artist", 100, 2000, "Album", "Genre", 1),
+                new Podcast(2, "Second", "Artist", 100, 2000, "Host", "Talk", 1, "A description of some length"));
+        byte[] bytes = encodeStream(media, BufferPool.DEFAULT, true);
+
+        assertThrows(IllegalArgumentException.class, () -> MediaBinaryReader.of(ByteBuffer.wrap(bytes, 0, 3)));
+
+        // The stream header and first record are the same as in a stream of the first record alone.
+        int secondRecord = encodeStream(media.subList(0, 1), BufferPool.DEFAULT, true).length - 1;
+        assertEquals(MediaCodec.PODCAST, bytes[secondRecord]);
+
+        // Cutting inside the second record, in its description and then in its id varint.
+        for (int cut : new int[]{bytes.length - 5, secondRecord + 1}) {
+            MediaBinaryReader reader = MediaBinaryReader.of(ByteBuffer.wrap(Arrays.copyOf(bytes, cut)));
+            assertTrue(reader.next());
+            assertEquals("First", reader.getTitle());
+            assertThrows(IllegalArgumentException.class, reader::next);
+        }
+
+        // A stream cut cleanly between records ends without the end marker.
+        MediaBinaryReader reader = MediaBinaryReader.of(ByteBuffer.wrap(Arrays.copyOf(bytes, secondRecord)));
+        assertTrue(reader.next());
+        assertFalse(reader.next());
+
+        byte[] value = MediaCodec.encode(media.get(1));
+        assertThrows(IllegalArgumentException.class, () -> MediaCodec.decode(Arrays.copyOf(value, value.length - 3)));
+    }
+}
@@ -0,0 +1,56 @@
+package com.musiclibrary.service;
+
+import com.musiclibrary.exception.ResourceNotFoundException;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.ratings.RatingStore;
+import com.musiclibrary.repository.CachingMediaRepository;
+import com.musiclibrary.repository.InMemoryMediaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MediaServiceTest {
+    private final InMemoryMediaRepository delegate = new InMemoryMediaRepository();
+    private final CachingMediaRepository cache = new CachingMediaRepository(delegate, 100);
+    private final MediaService service = new MediaService(cache, null, new RatingStore(null));
+
+    @AfterEach
+    void closeService() {
+        service.close();
+    }
+
+    private static Song song(String title, int year) {
+        return new Song(0, title, "Artist", 200, year, "Album", "Rock", 1);
+    }
+
+    @Test
+    void ratingAnUnknownIdIsNotFoundAndRecordsNothing() {
+        assertThrows(ResourceNotFoundException.class, () -> service.rate(42, 4));
+        assertNull(service.getRating(42));
+    }
+
+    @Test
+    void ratingAnExistingIdUpdatesTheAggregate() {
+        int id = service.createMedia(song("Rated", 2000)).getId();
+        service.rate(id, 4);
+        service.rate(id, 2);
+
+        assertEquals(2, service.getRating(id).getCount());
+        assertEquals(3.0, service.getRating(id).getAverage());
+    }
+
+    @Test
+    void rejectedUpdateLeavesTheCachedRowUnchanged() {
+        int id = service.createMedia(song("Original", 2000)).getId();
+        service.getMediaById(id);
+
+        // The title setter succeeds before the release year is rejected.
+        assertThrows(IllegalArgumentException.class, () -> service.updateMedia(id, song("Renamed", 3000)));
+
+        assertEquals("Original", service.getMediaById(id).getTitle());
+        assertEquals("Original", delegate.stored(id).getTitle());
+    }
+}
@@ -0,0 +1,125 @@
+package com.musiclibrary.snapshot;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MediaSnapshotWriterTest {
+    // Supplementary characters sort before U+E000..U+FFFF in String order but after them in UTF-8 byte order.
+    private static final String[] TITLES = {"Alpha", "alpha", "Éclair", "🎵 Note", " Private",
+            "Ａ Wide", "Zulu", "Alpha", "Zebra", "Mango"};
+
+    @TempDir
+    Path dir;
+
+    private static Media media(int id) {
+        String title = TITLES[id % TITLES.length] + (id % 3 == 0 ? "" : " " + id);
+        if (id % 4 == 0) {
+            return new Podcast(id, title, "Host " + (id % 5), 600 + id, 2000 + id % 20, "Host " + (id % 5),
+                    id % 8 == 0 ? null : "Talk", id, "Episode " + id);
+        }
+        return new Song(id, title, "Artist " + (id % 7), 100 + id, 1990 + id % 30, "Album " + (id % 6),
+                id % 5 == 0 ? null : "Rock", id % 12 + 1);
+    }
+
+    private static String describe(Media media) {
+        String common = media.getId() + "|" + media.getTitle() + "|" + media.getArtist() + "|"
+                + media.getDuration() + "|" + media.getReleaseYear();
+        if (media instanceof Song) {
+            Song song = (Song) media;
+            return "Song|" + common + "|" + song.getAlbum() + "|" + song.getGenre() + "|" + song.getTrackNumber();
+        }
+        Podcast podcast = (Podcast) media;
+        return "Podcast|" + common + "|" + podcast.getHost() + "|" + podcast.getCategory() + "|"
+                + podcast.getEpisodeNumber() + "|" + podcast.getDescription();
+    }
+
+    private static List<String> records(MediaSnapshot snapshot) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            result.add(describe(snapshot.get(i)));
+        }
+        return result;
+    }
+
+    private static List<Integer> titleOrder(MediaSnapshot snapshot) {
+        List<Integer> ids = new ArrayList<>();
+        for (int p = 0; p < snapshot.size(); p++) {
+            ids.add(snapshot.getId(snapshot.indexInTitleOrder(p)));
+        }
+        return ids;
+    }
+
+    @Test
+    void incrementalWriteMatchesAFullWriteOfTheSameRows() throws Exception {
+        Map<Integer, Media> rows = new TreeMap<>();
+        for (int id = 1; id <= 200; id++) {
+            rows.put(id, media(id));
+        }
+        Path incremental = dir.resolve("incremental.snap");
+        MediaSnapshotWriter.write(incremental, new ArrayList<>(rows.values()), 10);
+
+        // Updates, deletes and inserts, including ids before the first and after the last record.
+        Set<Integer> changed = Set.of(1, 2, 50, 51, 52, 117, 199, 200, 250, 0);
+        Map<Integer, Media> reloaded = new TreeMap<>();
+        for (int id : changed) {
+            if (id % 2 == 0 || id > 200) {
+                Media media = media(id + 1000);
+                Media renamed = id % 4 == 0
+                        ? new Podcast(id, media.getTitle(), "New host", 900, 2021, "New host", "News", 7, null)
+                        : new Song(id, media.getTitle(), "New artist", 300, 2022, "New album", "Jazz", 3);
+                reloaded.put(id, renamed);
+                rows.put(id, renamed);
+            } else {
+                rows.remove(id);
+            }
+        }
+        MediaSnapshot previous = MediaSnapshot.open(incremental);
+        MediaSnapshotWriter.writeIncremental(incremental, previous, changed, reloaded.values(), 11);
+
+        Path full = dir.resolve("full.snap");
+        MediaSnapshotWriter.write(full, new ArrayList<>(rows.values()), 11);
+
+        MediaSnapshot applied = MediaSnapshot.open(incremental);
+        MediaSnapshot expected = MediaSnapshot.open(full);
+        assertEquals(11, applied.getLastChangeSeq());
+        assertEquals(records(expected), records(applied));
+        assertEquals(titleOrder(expected), titleOrder(applied));
+        assertTrue(applied.getHeapGarbage() > 0);
+        for (int id : rows.keySet()) {
+            assertEquals(describe(rows.get(id)), describe(applied.get(applied.indexOf(id))));
+        }
+    }
+
+    @Test
+    void emptyChangeSetCopiesTheSnapshotUnchanged() throws Exception {
+        List<Media> rows = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            rows.add(media(id));
+        }
+        Path file = dir.resolve("same.snap");
+        MediaSnapshotWriter.write(file, rows, 3);
+        MediaSnapshot previous = MediaSnapshot.open(file);
+        List<String> before = records(previous);
+        List<Integer> beforeOrder = titleOrder(previous);
+
+        MediaSnapshotWriter.writeIncremental(file, previous, Set.of(), List.of(), 4);
+
+        MediaSnapshot applied = MediaSnapshot.open(file);
+        assertEquals(before, records(applied));
+        assertEquals(beforeOrder, titleOrder(applied));
+        assertEquals(0, applied.getHeapGarbage());
+    }
+}
@@ -0,0 +1,72 @@
+package com.musiclibrary.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private final ConnectionPool pool = new ConnectionPool("jdbc:sqlite::memory:", 2);
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    private static Connection raw(Connection handle) throws SQLException {
+        return handle.unwrap(Connection.class);
+    }
+
+    @Test
+    void nestedCheckoutsShareTheOuterConnection() throws Exception {
+        try (Connection outer = pool.getConnection(); Connection nested = pool.getConnection()) {
+            assertSame(raw(outer), raw(nested));
+        }
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+
+    @Test
+    void detachedCheckoutIsNeverSharedWithNestedCalls() throws Exception {
+        try (Connection outer = pool.getConnection()) {
+            Connection detached = pool.getDetachedConnection();
+            assertNotSame(raw(outer), raw(detached));
+            try (Connection nested = pool.getConnection()) {
+                assertSame(raw(outer), raw(nested));
+            }
+            detached.close();
+        }
+
+        // With a detached lease still open, the thread's next call gets a connection of its own.
+        Connection detached = pool.getDetachedConnection();
+        try (Connection later = pool.getConnection()) {
+            assertNotSame(raw(detached), raw(later));
+        }
+        detached.close();
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+
+    @Test
+    void detachedLeaseMayBeClosedOnAnotherThread() throws Exception {
+        Connection detached = pool.getDetachedConnection();
+        CompletableFuture.runAsync(() -> {
+            try {
+                detached.close();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(detached.isClosed());
+        assertThrows(SQLException.class, detached::createStatement);
+        assertEquals(0, pool.getMetrics().getActiveConnections());
+    }
+}
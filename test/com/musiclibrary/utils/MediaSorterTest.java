@@ -0,0 +1,174 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.model.Media;
+import com.musiclibrary.model.Podcast;
+import com.musiclibrary.model.Song;
+import com.musiclibrary.repository.query.MediaField;
+import com.musiclibrary.repository.query.QueryEvaluator;
+import com.musiclibrary.repository.query.QuerySpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MediaSorterTest {
+    private static final String[] TITLES = {"Alpha", "alpha", "ALPHA", "Beta", "beta", "Gamma", "Éclair", "delta"};
+    private static final String[] GENRES = {"Rock", "Jazz", "rock", null};
+
+    // Small value ranges and many ties, so stability matters.
+    private static List<Media> narrow(int n, long seed) {
+        Random random = new Random(seed);
+        List<Media> media = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String title = TITLES[random.nextInt(TITLES.length)];
+            String artist = "Artist " + random.nextInt(20);
+            int duration = 1 + random.nextInt(600);
+            int year = 1990 + random.nextInt(30);
+            if (random.nextInt(5) == 0) {
+                media.add(new Podcast(i + 1, title, artist, duration, year, "Host", null, i, null));
+            } else {
+                media.add(new Song(i + 1, title, artist, duration, year, "Album",
+                        GENRES[random.nextInt(GENRES.length)], 1));
+            }
+        }
+        return media;
+    }
+
+    // Durations and ids spread over 30 bits each: with the row index the ranks need more than
+    // 63 bits, so order() takes the sortByColumns fallback instead of packing them into longs.
+    private static List<Media> wide(int n, long seed) {
+        Random random = new Random(seed);
+        List<Media> media = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int duration = 1 + random.nextInt(1 << 30);
+            int id = 1 + random.nextInt(1 << 30);
+            media.add(new Song(id, TITLES[random.nextInt(TITLES.length)], "Artist", duration, 2000,
+                    null, null, 1));
+        }
+        // Duplicate durations across rows, so the second key decides.
+        for (int i = 0; i + 1 < n; i += 10) {
+            media.get(i + 1).setDuration(media.get(i).getDuration());
+        }
+        return media;
+    }
+
+    // Straightforward SQL semantics: NULL first ascending and last descending; List.sort is stable.
+    private static List<Media> reference(List<Media> media, QuerySpec spec) {
+        Comparator<Media> comparator = (a, b) -> 0;
+        for (QuerySpec.Order order : spec.getOrders()) {
+            Comparator<Media> key = (a, b) -> compareValues(order, order.getField().extract(a), order.getField().extract(b));
+            comparator = comparator.thenComparing(order.isAscending() ? key : key.reversed());
+        }
+        List<Media> sorted = new ArrayList<>(media);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    private static int compareValues(QuerySpec.Order order, Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        if (a instanceof String) {
+            return order.isIgnoreCase()
+                    ? QueryEvaluator.NOCASE.compare((String) a, (String) b)
+                    : ((String) a).compareTo((String) b);
+        }
+        return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+    }
+
+    private static void assertSameOrder(List<Media> expected, List<Media> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    void packedSortMatchesTheReferenceComparator() {
+        List<Media> media = narrow(5_000, 1);
+        List<QuerySpec> specs = List.of(
+                QuerySpec.all().orderBy(MediaField.TITLE),
+                QuerySpec.all().orderByIgnoreCase(MediaField.TITLE).orderByDescending(MediaField.DURATION),
+                QuerySpec.all().orderBy(MediaField.ARTIST).orderBy(MediaField.RELEASE_YEAR).orderBy(MediaField.TITLE),
+                QuerySpec.all().orderBy(MediaField.MEDIA_TYPE).orderBy(MediaField.GENRE));
+        for (QuerySpec spec : specs) {
+            assertSameOrder(reference(media, spec), MediaSorter.of(spec).sort(media));
+        }
+    }
+
+    @Test
+    void columnFallbackMatchesTheReferenceComparator() {
+        List<Media> media = wide(5_000, 2);
+        for (QuerySpec spec : List.of(
+                QuerySpec.all().orderBy(MediaField.DURATION).orderBy(MediaField.ID),
+                QuerySpec.all().orderByDescending(MediaField.DURATION).orderBy(MediaField.TITLE).orderByDescending(MediaField.ID))) {
+            assertSameOrder(reference(media, spec), MediaSorter.of(spec).sort(media));
+        }
+    }
+
+    @Test
+    void parallelSortIsStableAboveTheThreshold() {
+        List<Media> media = narrow(3 * MediaSorter.PARALLEL_THRESHOLD, 3);
+        QuerySpec spec = QuerySpec.all().orderBy(MediaField.TITLE).orderByDescending(MediaField.GENRE);
+        assertSameOrder(reference(media, spec), MediaSorter.of(spec).sort(media));
+
+        List<Media> wide = wide(2 * MediaSorter.PARALLEL_THRESHOLD, 4);
+        QuerySpec wideSpec = QuerySpec.all().orderBy(MediaField.DURATION).orderBy(MediaField.ID);
+        assertSameOrder(reference(wide, wideSpec), MediaSorter.of(wideSpec).sort(wide));
+    }
+
+    @Test
+    void descendingOrderPutsNullsLast() {
+        List<Media> media = narrow(2_000, 5);
+        QuerySpec spec = QuerySpec.all().orderByDescending(MediaField.GENRE);
+        List<Media> sorted = MediaSorter.of(spec).sort(media);
+
+        assertSameOrder(reference(media, spec), sorted);
+        int firstNull = -1;
+        for (int i = 0; i < sorted.size(); i++) {
+            String genre = (String) MediaField.GENRE.extract(sorted.get(i));
+            if (genre == null && firstNull < 0) {
+                firstNull = i;
+            }
+            if (firstNull >= 0) {
+                assertNull(genre, "non-NULL genre after the first NULL at " + firstNull);
+            }
+        }
+        assertEquals("rock", MediaField.GENRE.extract(sorted.get(0)));
+
+        // Ascending keeps SQL's NULLS FIRST.
+        assertNull(MediaField.GENRE.extract(MediaSorter.by(MediaField.GENRE).sort(media).get(0)));
+    }
+
+    @Test
+    void pageMatchesTheSortedSubList() {
+        // Several top-K chunks, and small pages so page() takes the heap path rather than a full sort.
+        List<Media> media = narrow(80_000, 6);
+        List<QuerySpec> specs = List.of(
+                QuerySpec.all().orderBy(MediaField.TITLE),
+                QuerySpec.all().orderByDescending(MediaField.GENRE).orderBy(MediaField.DURATION),
+                QuerySpec.all().orderByIgnoreCase(MediaField.TITLE).orderByDescending(MediaField.RELEASE_YEAR));
+        for (QuerySpec spec : specs) {
+            MediaSorter sorter = MediaSorter.of(spec);
+            List<Media> sorted = sorter.sort(media);
+            assertSameOrder(reference(media, spec), sorted);
+            for (int[] window : new int[][]{{0, 1}, {0, 50}, {1_234, 300}, {9_000, 999}}) {
+                int offset = window[0];
+                int limit = window[1];
+                assertSameOrder(sorted.subList(offset, offset + limit), sorter.page(media, offset, limit));
+            }
+            assertSameOrder(sorted.subList(0, 10), sorter.top(media, 10));
+        }
+
+        MediaSorter sorter = MediaSorter.by(MediaField.DURATION);
+        assertEquals(0, sorter.page(media, media.size(), 10).size());
+        assertSameOrder(sorter.sort(media).subList(media.size() - 5, media.size()),
+                sorter.page(media, media.size() - 5, 10));
+    }
+}
@@ -0,0 +1,50 @@
+package com.musiclibrary.utils;
+
+import com.musiclibrary.exception.DatabaseOperationException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteWriteQueueTest {
+
+    @Test
+    void everyQueuedWriteCompletesWhenTheQueueCloses() throws Exception {
+        SqliteWriteQueue queue = new SqliteWriteQueue(DriverManager.getConnection("jdbc:sqlite::memory:"), 16);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = queue.submit(conn -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            int value = i;
+            queued.add(queue.submit(conn -> value));
+        }
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(queue::close);
+        release.countDown();
+        closing.get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, blocking.get(1, TimeUnit.SECONDS));
+        for (CompletableFuture<Integer> future : queued) {
+            assertTrue(future.isDone(), "a write queued before close was left waiting");
+        }
+        assertThrows(DatabaseOperationException.class, () -> queue.submit(conn -> 1));
+    }
+}